@@ -0,0 +1,148 @@
+package com.example.gatekeeprt_design.botdetect;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Streaming request-cadence features of one client, in a fixed number of
+ * primitive fields. All features are exponentially weighted so old behavior
+ * fades out without keeping history.
+ *
+ * <p>Updates are guarded by a try-lock flag instead of {@code synchronized}:
+ * when two requests of the same client race, the loser skips its sample
+ * rather than waiting, which keeps the hot path non-blocking and
+ * allocation-free at the cost of a slightly thinner sample.
+ */
+public final class BehaviorProfile {
+
+    /**
+     * Weight of a new sample in every moving average.
+     */
+    private static final double ALPHA = 0.1;
+
+    /**
+     * Requests per path-diversity epoch; distinct paths are estimated per epoch.
+     */
+    private static final int PATH_EPOCH = 32;
+
+    private static final AtomicIntegerFieldUpdater<BehaviorProfile> BUSY = AtomicIntegerFieldUpdater
+            .newUpdater(BehaviorProfile.class, "busy");
+
+    private volatile int busy;
+
+    private long requests;
+    private long lastArrival;
+
+    /** Moving mean and variance of the inter-arrival time, in milliseconds. */
+    private double intervalMean;
+    private double intervalVariance;
+
+    /** 64-slot bitmap of path hashes seen in the current epoch. */
+    private long pathBits;
+    private int pathSamples;
+    private double pathDiversity;
+
+    private double clientErrorRate;
+    private double missingHeaderRate;
+
+    /**
+     * Last computed score, readable without the lock.
+     */
+    private volatile double score;
+
+    /**
+     * Record an incoming request and return the client's updated score.
+     */
+    public double onRequest(final long nowNanos, final int pathHash,
+            final boolean missingAccept, final boolean missingAcceptLanguage,
+            final BehaviorWeights weights) {
+        if (!BUSY.compareAndSet(this, 0, 1)) {
+            return score;
+        }
+        try {
+            if (requests > 0) {
+                double interval = (nowNanos - lastArrival) / 1_000_000.0;
+                if (requests == 1) {
+                    intervalMean = interval;
+                } else {
+                    double delta = interval - intervalMean;
+                    intervalMean += ALPHA * delta;
+                    intervalVariance = (1 - ALPHA) * (intervalVariance + ALPHA * delta * delta);
+                }
+            }
+            lastArrival = nowNanos;
+            requests++;
+
+            pathBits |= 1L << (pathHash ^ (pathHash >>> 16));
+            if (++pathSamples == PATH_EPOCH) {
+                pathDiversity = average(pathDiversity, Math.min(1.0, estimateDistinct(pathBits) / PATH_EPOCH),
+                        requests == PATH_EPOCH);
+                pathBits = 0;
+                pathSamples = 0;
+            }
+
+            double missing = (missingAccept ? 0.5 : 0) + (missingAcceptLanguage ? 0.5 : 0);
+            missingHeaderRate = average(missingHeaderRate, missing, requests == 1);
+
+            score = weights.score(this);
+            return score;
+        } finally {
+            busy = 0;
+        }
+    }
+
+    /**
+     * Record the status code the client got back.
+     */
+    public void onResponse(final int status) {
+        if (!BUSY.compareAndSet(this, 0, 1)) {
+            return;
+        }
+        try {
+            clientErrorRate += ALPHA * ((status >= 400 && status < 500 ? 1 : 0) - clientErrorRate);
+        } finally {
+            busy = 0;
+        }
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Coefficient of variation of the inter-arrival time; near 0 for a fixed cadence.
+     */
+    public double getIntervalVariation() {
+        return intervalMean > 0 ? Math.sqrt(intervalVariance) / intervalMean : 0;
+    }
+
+    /**
+     * Estimated share of distinct paths among recent requests, in [0, 1].
+     */
+    public double getPathDiversity() {
+        return pathDiversity;
+    }
+
+    public double getClientErrorRate() {
+        return clientErrorRate;
+    }
+
+    public double getMissingHeaderRate() {
+        return missingHeaderRate;
+    }
+
+    private static double average(final double current, final double sample, final boolean first) {
+        return first ? sample : current + ALPHA * (sample - current);
+    }
+
+    /**
+     * Linear counting over the 64-slot bitmap.
+     */
+    private static double estimateDistinct(final long bits) {
+        int empty = 64 - Long.bitCount(bits);
+        return empty == 0 ? 64 : -64 * Math.log(empty / 64.0);
+    }
+}
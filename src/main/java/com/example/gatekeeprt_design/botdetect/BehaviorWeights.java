@@ -0,0 +1,63 @@
+package com.example.gatekeeprt_design.botdetect;
+
+/**
+ * Turns the features of a {@link BehaviorProfile} into a bot score in [0, 1].
+ * Each feature is mapped to [0, 1] and combined as a weighted sum.
+ */
+public final class BehaviorWeights {
+
+    /**
+     * Inter-arrival variation at or below which the cadence counts as fully scripted.
+     */
+    private static final double SCRIPTED_VARIATION = 0.1;
+
+    /**
+     * Inter-arrival variation at or above which the cadence counts as human.
+     */
+    private static final double HUMAN_VARIATION = 0.5;
+
+    /**
+     * Share of distinct paths above which browsing starts to look like crawling.
+     */
+    private static final double CRAWL_DIVERSITY = 0.5;
+
+    private final double cadence;
+    private final double pathDiversity;
+    private final double clientErrors;
+    private final double missingHeaders;
+    private final long minRequests;
+
+    public BehaviorWeights(final double cadence, final double pathDiversity, final double clientErrors,
+            final double missingHeaders, final long minRequests) {
+        double total = cadence + pathDiversity + clientErrors + missingHeaders;
+        if (total <= 0 || cadence < 0 || pathDiversity < 0 || clientErrors < 0 || missingHeaders < 0) {
+            throw new IllegalArgumentException("weights must be non-negative with a positive sum");
+        }
+        this.cadence = cadence / total;
+        this.pathDiversity = pathDiversity / total;
+        this.clientErrors = clientErrors / total;
+        this.missingHeaders = missingHeaders / total;
+        this.minRequests = Math.max(2, minRequests);
+    }
+
+    /**
+     * Score a profile; clients with too few requests always score 0.
+     */
+    public double score(final BehaviorProfile profile) {
+        if (profile.getRequests() < minRequests) {
+            return 0;
+        }
+        double scripted = clamp((HUMAN_VARIATION - profile.getIntervalVariation())
+                / (HUMAN_VARIATION - SCRIPTED_VARIATION));
+        double crawling = clamp((profile.getPathDiversity() - CRAWL_DIVERSITY) / (1 - CRAWL_DIVERSITY));
+
+        return cadence * scripted
+                + pathDiversity * crawling
+                + clientErrors * profile.getClientErrorRate()
+                + missingHeaders * profile.getMissingHeaderRate();
+    }
+
+    private static double clamp(final double value) {
+        return Math.max(0, Math.min(1, value));
+    }
+}
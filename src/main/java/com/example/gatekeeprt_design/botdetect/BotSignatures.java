@@ -0,0 +1,113 @@
+package com.example.gatekeeprt_design.botdetect;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable, compiled bot rule set: deny signatures plus an allow-list of
+ * agents (monitoring probes and the like) that are never treated as bots.
+ *
+ * <p>Rule file format, one rule per line:
+ * <pre>
+ * # comment
+ * curl                 deny signature (case-insensitive substring)
+ * java(?!script)       deny signature with a negative lookahead
+ * allow: UptimeRobot   allow-list entry, same syntax
+ * </pre>
+ */
+public final class BotSignatures {
+
+    private static final String ALLOW_PREFIX = "allow:";
+
+    /**
+     * Built-in rules shipped with the application.
+     */
+    public static final String DEFAULT_RESOURCE = "bot-signatures.txt";
+
+    private final UserAgentMatcher deny;
+    private final UserAgentMatcher allow;
+
+    private BotSignatures(final List<String> deny, final List<String> allow) {
+        this.deny = UserAgentMatcher.compile(deny);
+        this.allow = allow.isEmpty() ? null : UserAgentMatcher.compile(allow);
+    }
+
+    public static BotSignatures of(final List<String> deny, final List<String> allow) {
+        return new BotSignatures(deny, allow);
+    }
+
+    /**
+     * Parse and compile rule lines; fails on the first invalid rule.
+     */
+    public static BotSignatures parse(final List<String> lines) {
+        List<String> deny = new ArrayList<>();
+        List<String> allow = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.regionMatches(true, 0, ALLOW_PREFIX, 0, ALLOW_PREFIX.length())) {
+                allow.add(line.substring(ALLOW_PREFIX.length()).strip());
+            } else {
+                deny.add(line);
+            }
+        }
+        if (deny.isEmpty()) {
+            throw new IllegalArgumentException("Rule set has no deny signatures");
+        }
+        return new BotSignatures(deny, allow);
+    }
+
+    public static BotSignatures load(final Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Load the built-in rules from the classpath.
+     */
+    public static BotSignatures loadDefaults() {
+        try (InputStream in = BotSignatures.class.getClassLoader().getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing classpath resource " + DEFAULT_RESOURCE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return parse(reader.lines().toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Check whether a User-Agent is a bot: not allow-listed and matching a deny signature.
+     */
+    public boolean isBot(final CharSequence userAgent) {
+        if (isAllowed(userAgent)) {
+            return false;
+        }
+        return deny.matches(userAgent);
+    }
+
+    /**
+     * Check whether a User-Agent is allow-listed, e.g. an uptime monitor.
+     */
+    public boolean isAllowed(final CharSequence userAgent) {
+        return allow != null && allow.matches(userAgent);
+    }
+
+    public int getDenyCount() {
+        return deny.getSignatures().size();
+    }
+
+    public int getAllowCount() {
+        return allow == null ? 0 : allow.getSignatures().size();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.gatekeeprt_design.botdetect;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches a bot rule file and publishes a freshly compiled
+ * {@link BotSignatures} whenever it changes. Parsing and compilation happen on
+ * the watcher thread; a file that fails to parse is logged and ignored, so
+ * the previous rule set stays active.
+ */
+public class SignatureFileWatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SignatureFileWatcher.class);
+
+    /**
+     * Quiet period after the last change event before reloading,
+     * so editors that write in several steps trigger a single reload.
+     */
+    private static final long SETTLE_MILLIS = 200;
+
+    private final Path file;
+    private final Consumer<BotSignatures> publisher;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    public SignatureFileWatcher(final Path file, final Consumer<BotSignatures> publisher) throws IOException {
+        this.file = file.toAbsolutePath().normalize();
+        this.publisher = publisher;
+
+        publisher.accept(BotSignatures.load(this.file));
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+        this.thread = new Thread(this::watch, "bot-signature-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(key);
+                // Coalesce the burst of events a single save produces
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(key);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private boolean drain(final WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Re-read the rule file and publish it if it compiles.
+     */
+    public boolean reload() {
+        try {
+            BotSignatures signatures = BotSignatures.load(file);
+            publisher.accept(signatures);
+            log.info("Reloaded bot signatures from {}: {} deny, {} allow",
+                    file, signatures.getDenyCount(), signatures.getAllowCount());
+            return true;
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            log.warn("Keeping previous bot signatures, could not load {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.gatekeeprt_design.botdetect;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over a list of User-Agent signatures.
+ * Signatures are literal substrings matched ASCII case-insensitively, the
+ * same way {@code Pattern.CASE_INSENSITIVE} does; a signature may end with a
+ * negative lookahead such as {@code java(?!script)}, which is checked only
+ * when the literal part matches. The header is scanned once, in linear time,
+ * whatever the number of signatures.
+ */
+public final class UserAgentMatcher {
+
+    private static final String LOOKAHEAD_OPEN = "(?!";
+
+    private static final byte MATCH = 1;
+    private static final byte GUARDED_MATCH = 2;
+
+    /**
+     * Character class of each ASCII char; 0 is every char no signature uses.
+     */
+    private final byte[] charClass = new byte[128];
+    private final int classCount;
+
+    /**
+     * Full transition table: {@code delta[state * classCount + class]}.
+     */
+    private final int[] delta;
+
+    /**
+     * Whether reaching a state completes a signature.
+     */
+    private final byte[] output;
+
+    /**
+     * Lookahead texts that must NOT follow, for states that complete only guarded signatures.
+     */
+    private final char[][][] guards;
+
+    private final List<String> signatures;
+
+    private UserAgentMatcher(final List<String> signatures) {
+        this.signatures = List.copyOf(signatures);
+
+        List<char[]> literals = new ArrayList<>();
+        List<char[]> lookaheads = new ArrayList<>();
+        for (String signature : signatures) {
+            parse(signature, literals, lookaheads);
+        }
+
+        int classes = 1;
+        for (char[] literal : literals) {
+            for (char c : literal) {
+                if (charClass[c] == 0) {
+                    if (classes == Byte.MAX_VALUE) {
+                        throw new IllegalArgumentException("Too many distinct signature characters");
+                    }
+                    charClass[c] = (byte) classes;
+                    if (c >= 'a' && c <= 'z') {
+                        charClass[c - 'a' + 'A'] = (byte) classes;
+                    }
+                    classes++;
+                }
+            }
+        }
+        this.classCount = classes;
+
+        // Trie
+        List<int[]> next = new ArrayList<>();
+        List<List<Integer>> terminal = new ArrayList<>();
+        next.add(newRow(classes));
+        terminal.add(new ArrayList<>());
+        for (int p = 0; p < literals.size(); p++) {
+            int state = 0;
+            for (char c : literals.get(p)) {
+                int cls = charClass[c];
+                if (next.get(state)[cls] < 0) {
+                    next.get(state)[cls] = next.size();
+                    next.add(newRow(classes));
+                    terminal.add(new ArrayList<>());
+                }
+                state = next.get(state)[cls];
+            }
+            terminal.get(state).add(p);
+        }
+
+        // Failure links, folded directly into a complete transition table
+        int states = next.size();
+        int[] fail = new int[states];
+        int[] table = new int[states * classes];
+        List<List<Integer>> outputs = new ArrayList<>(terminal);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int cls = 0; cls < classes; cls++) {
+            int child = next.get(0)[cls];
+            table[cls] = child < 0 ? 0 : child;
+            if (child > 0) {
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> merged = new ArrayList<>(outputs.get(state));
+            merged.addAll(outputs.get(fail[state]));
+            outputs.set(state, merged);
+            for (int cls = 0; cls < classes; cls++) {
+                int child = next.get(state)[cls];
+                if (child < 0) {
+                    table[state * classes + cls] = table[fail[state] * classes + cls];
+                } else {
+                    fail[child] = table[fail[state] * classes + cls];
+                    table[state * classes + cls] = child;
+                    queue.add(child);
+                }
+            }
+        }
+        this.delta = table;
+
+        this.output = new byte[states];
+        this.guards = new char[states][][];
+        for (int state = 0; state < states; state++) {
+            List<char[]> stateGuards = new ArrayList<>();
+            for (int p : outputs.get(state)) {
+                if (lookaheads.get(p) == null) {
+                    output[state] = MATCH;
+                    break;
+                }
+                stateGuards.add(lookaheads.get(p));
+            }
+            if (output[state] != MATCH && !stateGuards.isEmpty()) {
+                output[state] = GUARDED_MATCH;
+                guards[state] = stateGuards.toArray(new char[0][]);
+            }
+        }
+    }
+
+    /**
+     * Compile a list of signatures into a matcher.
+     */
+    public static UserAgentMatcher compile(final List<String> signatures) {
+        return new UserAgentMatcher(signatures);
+    }
+
+    /**
+     * Check whether any signature occurs in the User-Agent.
+     */
+    public boolean matches(final CharSequence userAgent) {
+        int state = 0;
+        int length = userAgent.length();
+        for (int i = 0; i < length; i++) {
+            char c = userAgent.charAt(i);
+            state = delta[state * classCount + (c < 128 ? charClass[c] : 0)];
+            byte out = output[state];
+            if (out == MATCH) {
+                return true;
+            }
+            if (out == GUARDED_MATCH) {
+                for (char[] guard : guards[state]) {
+                    if (!followedBy(userAgent, i + 1, guard)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public List<String> getSignatures() {
+        return signatures;
+    }
+
+    private static boolean followedBy(final CharSequence text, final int from, final char[] lowerGuard) {
+        if (from + lowerGuard.length > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < lowerGuard.length; i++) {
+            char c = text.charAt(from + i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if (c != lowerGuard[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void parse(final String signature, final List<char[]> literals, final List<char[]> lookaheads) {
+        String literal = signature;
+        String lookahead = null;
+        int open = signature.indexOf(LOOKAHEAD_OPEN);
+        if (open >= 0) {
+            if (!signature.endsWith(")")) {
+                throw new IllegalArgumentException("Lookahead must end the signature: " + signature);
+            }
+            literal = signature.substring(0, open);
+            lookahead = signature.substring(open + LOOKAHEAD_OPEN.length(), signature.length() - 1);
+        }
+        if (literal.isEmpty() || (lookahead != null && lookahead.isEmpty())) {
+            throw new IllegalArgumentException("Empty signature: " + signature);
+        }
+        literals.add(toAsciiLower(literal, signature));
+        lookaheads.add(lookahead == null ? null : toAsciiLower(lookahead, signature));
+    }
+
+    private static char[] toAsciiLower(final String text, final String signature) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (c >= 128) {
+                throw new IllegalArgumentException("Signatures must be ASCII: " + signature);
+            }
+            if (c >= 'A' && c <= 'Z') {
+                chars[i] = (char) (c + ('a' - 'A'));
+            }
+        }
+        return chars;
+    }
+
+    private static int[] newRow(final int classes) {
+        int[] row = new int[classes];
+        Arrays.fill(row, -1);
+        return row;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.gatekeeprt_design.botdetect;
+
+import com.example.gatekeeprt_design.metrics.StripedCounters;
+
+/**
+ * Bounded, lock-free cache of bot verdicts per User-Agent string.
+ * A direct-mapped table of immutable entries: a colliding User-Agent simply
+ * overwrites the slot, so the size never exceeds the capacity. Each entry
+ * remembers the rule set that produced it and only counts as a hit for that
+ * same rule set, so swapping in new signatures invalidates every cached
+ * verdict at once.
+ */
+public final class VerdictCache {
+
+    /**
+     * User-Agents longer than this are matched but never cached.
+     */
+    private static final int MAX_CACHED_LENGTH = 1024;
+
+    private static final class Entry {
+        final String userAgent;
+        final BotSignatures signatures;
+        final boolean bot;
+
+        Entry(final String userAgent, final BotSignatures signatures, final boolean bot) {
+            this.userAgent = userAgent;
+            this.signatures = signatures;
+            this.bot = bot;
+        }
+    }
+
+    private final Entry[] table;
+    private final int mask;
+
+    private static final int HITS = 0;
+    private static final int MISSES = 1;
+
+    private final StripedCounters stats = new StripedCounters(2);
+
+    public VerdictCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.table = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Get the verdict for a User-Agent, evaluating {@code signatures} on a miss.
+     */
+    public boolean isBot(final String userAgent, final BotSignatures signatures) {
+        if (userAgent.length() > MAX_CACHED_LENGTH) {
+            stats.increment(MISSES);
+            return signatures.isBot(userAgent);
+        }
+
+        int h = userAgent.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        Entry entry = table[slot];
+        if (entry != null && entry.signatures == signatures && entry.userAgent.equals(userAgent)) {
+            stats.increment(HITS);
+            return entry.bot;
+        }
+
+        stats.increment(MISSES);
+        boolean bot = signatures.isBot(userAgent);
+        table[slot] = new Entry(userAgent, signatures, bot);
+        return bot;
+    }
+
+    public int getCapacity() {
+        return table.length;
+    }
+
+    public long getHits() {
+        return stats.sum(HITS);
+    }
+
+    public long getMisses() {
+        return stats.sum(MISSES);
+    }
+
+    /**
+     * Share of lookups served from the cache, from one read of both counters.
+     */
+    public double getHitRate() {
+        long[] totals = stats.snapshot();
+        long lookups = totals[HITS] + totals[MISSES];
+        return lookups > 0 ? (double) totals[HITS] / lookups : 0.0;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.gatekeeprt_design.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admin endpoint access configuration bound from {@code gateway.admin.*}.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.admin")
+public class AdminProperties {
+
+    /**
+     * Token admin calls must send in the {@code X-Admin-Token} header; when
+     * empty, admin calls are only accepted from the loopback interface.
+     */
+    private String token = "";
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+}
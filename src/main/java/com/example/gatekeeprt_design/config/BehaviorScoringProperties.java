@@ -0,0 +1,98 @@
+package com.example.gatekeeprt_design.config;
+
+import com.example.gatekeeprt_design.botdetect.BehaviorWeights;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Behavioral bot scoring configuration bound from {@code gateway.bot-detection.behavior.*}.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.bot-detection.behavior")
+public class BehaviorScoringProperties {
+
+    private double threshold = 0.6;
+    private long minRequests = 10;
+    private int maxClients = 50_000;
+    private Duration idleTtl = Duration.ofMinutes(10);
+
+    /**
+     * Scripted cadence and missing browser headers together (0.65) cross
+     * the default threshold; either alone, or crawling on top of one, does not.
+     */
+    private double cadenceWeight = 0.35;
+    private double pathDiversityWeight = 0.15;
+    private double clientErrorWeight = 0.2;
+    private double missingHeaderWeight = 0.3;
+
+    public BehaviorWeights toWeights() {
+        return new BehaviorWeights(cadenceWeight, pathDiversityWeight, clientErrorWeight,
+                missingHeaderWeight, minRequests);
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+
+    public long getMinRequests() {
+        return minRequests;
+    }
+
+    public void setMinRequests(long minRequests) {
+        this.minRequests = minRequests;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public Duration getIdleTtl() {
+        return idleTtl;
+    }
+
+    public void setIdleTtl(Duration idleTtl) {
+        this.idleTtl = idleTtl;
+    }
+
+    public double getCadenceWeight() {
+        return cadenceWeight;
+    }
+
+    public void setCadenceWeight(double cadenceWeight) {
+        this.cadenceWeight = cadenceWeight;
+    }
+
+    public double getPathDiversityWeight() {
+        return pathDiversityWeight;
+    }
+
+    public void setPathDiversityWeight(double pathDiversityWeight) {
+        this.pathDiversityWeight = pathDiversityWeight;
+    }
+
+    public double getClientErrorWeight() {
+        return clientErrorWeight;
+    }
+
+    public void setClientErrorWeight(double clientErrorWeight) {
+        this.clientErrorWeight = clientErrorWeight;
+    }
+
+    public double getMissingHeaderWeight() {
+        return missingHeaderWeight;
+    }
+
+    public void setMissingHeaderWeight(double missingHeaderWeight) {
+        this.missingHeaderWeight = missingHeaderWeight;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.gatekeeprt_design.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Log viewer configuration bound from {@code gateway.logs.*}.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.logs")
+public class LogViewerProperties {
+
+    private int pageLines = 200;
+    private int maxPageBytes = 1024 * 1024;
+    private int maxOpenFiles = 32;
+    private Duration followInterval = Duration.ofMillis(500);
+    private int maxFollowers = 100;
+    private int followSenders = 4;
+    private String directory = "logs";
+    private Duration indexInterval = Duration.ofSeconds(2);
+    private long maxIndexedBytes = 256L * 1024 * 1024;
+    private int maxIndexedTokens = 200_000;
+    private int maxSearchResults = 200;
+
+    public int getPageLines() {
+        return pageLines;
+    }
+
+    public void setPageLines(int pageLines) {
+        this.pageLines = pageLines;
+    }
+
+    public int getMaxPageBytes() {
+        return maxPageBytes;
+    }
+
+    public void setMaxPageBytes(int maxPageBytes) {
+        this.maxPageBytes = maxPageBytes;
+    }
+
+    public int getMaxOpenFiles() {
+        return maxOpenFiles;
+    }
+
+    public void setMaxOpenFiles(int maxOpenFiles) {
+        this.maxOpenFiles = maxOpenFiles;
+    }
+
+    public Duration getFollowInterval() {
+        return followInterval;
+    }
+
+    public void setFollowInterval(Duration followInterval) {
+        this.followInterval = followInterval;
+    }
+
+    public int getMaxFollowers() {
+        return maxFollowers;
+    }
+
+    public void setMaxFollowers(int maxFollowers) {
+        this.maxFollowers = maxFollowers;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public Duration getIndexInterval() {
+        return indexInterval;
+    }
+
+    public void setIndexInterval(Duration indexInterval) {
+        this.indexInterval = indexInterval;
+    }
+
+    public long getMaxIndexedBytes() {
+        return maxIndexedBytes;
+    }
+
+    public void setMaxIndexedBytes(long maxIndexedBytes) {
+        this.maxIndexedBytes = maxIndexedBytes;
+    }
+
+    public int getMaxIndexedTokens() {
+        return maxIndexedTokens;
+    }
+
+    public void setMaxIndexedTokens(int maxIndexedTokens) {
+        this.maxIndexedTokens = maxIndexedTokens;
+    }
+
+    public int getMaxSearchResults() {
+        return maxSearchResults;
+    }
+
+    public void setMaxSearchResults(int maxSearchResults) {
+        this.maxSearchResults = maxSearchResults;
+    }
+
+    public int getFollowSenders() {
+        return followSenders;
+    }
+
+    public void setFollowSenders(int followSenders) {
+        this.followSenders = followSenders;
+    }
+}
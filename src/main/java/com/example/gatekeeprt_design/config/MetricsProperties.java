@@ -0,0 +1,51 @@
+package com.example.gatekeeprt_design.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Dashboard metrics publishing configuration bound from {@code gateway.metrics.*}.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.metrics")
+public class MetricsProperties {
+
+    private Duration snapshotInterval = Duration.ofSeconds(1);
+    private Duration streamInterval = Duration.ofSeconds(2);
+    private int maxStreamSubscribers = 1000;
+    private int streamSenders = 4;
+
+    public Duration getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(Duration snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public Duration getStreamInterval() {
+        return streamInterval;
+    }
+
+    public void setStreamInterval(Duration streamInterval) {
+        this.streamInterval = streamInterval;
+    }
+
+    public int getMaxStreamSubscribers() {
+        return maxStreamSubscribers;
+    }
+
+    public void setMaxStreamSubscribers(int maxStreamSubscribers) {
+        this.maxStreamSubscribers = maxStreamSubscribers;
+    }
+
+    public int getStreamSenders() {
+        return streamSenders;
+    }
+
+    public void setStreamSenders(int streamSenders) {
+        this.streamSenders = streamSenders;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.gatekeeprt_design.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gateway pipeline configuration bound from {@code gateway.pipeline.*}.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.pipeline")
+public class PipelineProperties {
+
+    /**
+     * Stage ids in execution order; cheapest rejections first.
+     */
+    private List<String> stages = new ArrayList<>(
+            List.of("benchmark", "bot-detection", "rate-limiting", "behavior-scoring"));
+
+    public List<String> getStages() {
+        return stages;
+    }
+
+    public void setStages(List<String> stages) {
+        this.stages = stages;
+    }
+}
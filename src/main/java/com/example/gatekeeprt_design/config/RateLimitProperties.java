@@ -0,0 +1,259 @@
+package com.example.gatekeeprt_design.config;
+
+import com.example.gatekeeprt_design.ratelimit.ClusterRateLimiter;
+import com.example.gatekeeprt_design.ratelimit.RateLimitAlgorithm;
+import com.example.gatekeeprt_design.ratelimit.RoutePolicyTable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiting configuration bound from {@code gateway.rate-limit.*}.
+ * The top-level limit applies to every request not matched by a policy.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    private RateLimitAlgorithm algorithm = RateLimitAlgorithm.GCRA;
+    private int limit = 100;
+    private Duration window = Duration.ofMinutes(1);
+    private int maxClients = 100_000;
+    private List<Policy> policies = new ArrayList<>();
+    private Cluster cluster = new Cluster();
+
+    /**
+     * A limit for requests matching a path pattern and, optionally, methods.
+     */
+    public static class Policy {
+        private String path;
+        private List<String> methods = new ArrayList<>();
+        private RateLimitAlgorithm algorithm;
+        private int limit;
+        private Duration window;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+
+        public RateLimitAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(RateLimitAlgorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+    }
+
+    /**
+     * Sharing of limits between gateway instances. Each node lists the
+     * {@code host:port} of the others (its own entry is ignored, so all nodes
+     * can share one list) and exchanges counts with them every interval.
+     * Datagrams are signed with the secret and only accepted from the peers.
+     */
+    public static class Cluster {
+        private boolean enabled;
+        private String bindAddress = "127.0.0.1";
+        private int port = 7100;
+        private String secret = "";
+        private List<String> peers = new ArrayList<>();
+        private Duration interval = Duration.ofMillis(100);
+        private int maxPeers = 8;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getBindAddress() {
+            return bindAddress;
+        }
+
+        public void setBindAddress(String bindAddress) {
+            this.bindAddress = bindAddress;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public String getSecret() {
+            return secret;
+        }
+
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+
+        public List<String> getPeers() {
+            return peers;
+        }
+
+        public void setPeers(List<String> peers) {
+            this.peers = peers;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public int getMaxPeers() {
+            return maxPeers;
+        }
+
+        public void setMaxPeers(int maxPeers) {
+            this.maxPeers = maxPeers;
+        }
+    }
+
+    /**
+     * Compile the configured policies into a route table.
+     * Policies without their own algorithm or window inherit the defaults.
+     */
+    public RoutePolicyTable toPolicyTable() {
+        RoutePolicyTable.Builder builder = RoutePolicyTable.builder(
+                algorithm.create(limit, window), window.toNanos());
+        for (Policy policy : policies) {
+            RateLimitAlgorithm policyAlgorithm = policy.getAlgorithm() != null ? policy.getAlgorithm() : algorithm;
+            Duration policyWindow = policy.getWindow() != null ? policy.getWindow() : window;
+            builder.add(policy.getPath(), policy.getMethods(),
+                    policyAlgorithm.create(policy.getLimit(), policyWindow), policyWindow.toNanos());
+        }
+        return builder.build();
+    }
+
+    /**
+     * The cluster-wide limiter for the policies of {@link #toPolicyTable()},
+     * or null when cluster mode is off. Cluster limits count requests in a
+     * sliding window whatever algorithm is configured.
+     */
+    public ClusterRateLimiter toClusterLimiter() {
+        if (!cluster.isEnabled()) {
+            return null;
+        }
+        int[] limits = new int[policies.size() + 1];
+        long[] windows = new long[policies.size() + 1];
+        limits[0] = limit;
+        windows[0] = window.toNanos();
+        for (int i = 0; i < policies.size(); i++) {
+            Policy policy = policies.get(i);
+            limits[i + 1] = policy.getLimit();
+            windows[i + 1] = (policy.getWindow() != null ? policy.getWindow() : window).toNanos();
+        }
+        if (cluster.getSecret() == null || cluster.getSecret().isBlank()) {
+            throw new IllegalStateException("gateway.rate-limit.cluster.secret must be set in cluster mode");
+        }
+        InetSocketAddress bindAddress = new InetSocketAddress(cluster.getBindAddress(), cluster.getPort());
+        try {
+            ClusterRateLimiter limiter = new ClusterRateLimiter(limits, windows, maxClients, bindAddress,
+                    cluster.getSecret().getBytes(StandardCharsets.UTF_8), cluster.getMaxPeers(),
+                    cluster.getInterval().toNanos(), TimeUnit.NANOSECONDS);
+            for (String peer : cluster.getPeers()) {
+                if (peer.isBlank()) {
+                    continue;
+                }
+                int colon = peer.lastIndexOf(':');
+                limiter.addPeer(new InetSocketAddress(peer.substring(0, colon).trim(),
+                        Integer.parseInt(peer.substring(colon + 1).trim())));
+            }
+            return limiter;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start rate limit cluster on " + bindAddress, e);
+        }
+    }
+
+    public RateLimitAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(RateLimitAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public List<Policy> getPolicies() {
+        return policies;
+    }
+
+    public void setPolicies(List<Policy> policies) {
+        this.policies = policies;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    public void setCluster(Cluster cluster) {
+        this.cluster = cluster;
+    }
+}
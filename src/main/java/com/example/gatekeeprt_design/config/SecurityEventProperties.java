@@ -0,0 +1,87 @@
+package com.example.gatekeeprt_design.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Security event store configuration bound from {@code gateway.events.*}.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.events")
+public class SecurityEventProperties {
+
+    private boolean enabled = true;
+    private int queueCapacity = 65536;
+    private int overloadSampleRate = 10;
+    private int batchSize = 1000;
+    private Duration flushInterval = Duration.ofMillis(200);
+    private Duration retention = Duration.ofHours(24);
+    private int maxQueryResults = 1000;
+    private long maxRows = 1_000_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getOverloadSampleRate() {
+        return overloadSampleRate;
+    }
+
+    public void setOverloadSampleRate(int overloadSampleRate) {
+        this.overloadSampleRate = overloadSampleRate;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+
+    public int getMaxQueryResults() {
+        return maxQueryResults;
+    }
+
+    public void setMaxQueryResults(int maxQueryResults) {
+        this.maxQueryResults = maxQueryResults;
+    }
+
+    public long getMaxRows() {
+        return maxRows;
+    }
+
+    public void setMaxRows(long maxRows) {
+        this.maxRows = maxRows;
+    }
+}
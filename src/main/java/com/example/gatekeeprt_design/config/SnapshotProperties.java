@@ -0,0 +1,44 @@
+package com.example.gatekeeprt_design.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Warm restart snapshot configuration bound from {@code gateway.snapshot.*}.
+ * Off unless enabled, so nothing is written to the working directory by
+ * default.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.snapshot")
+public class SnapshotProperties {
+
+    private boolean enabled;
+    private String file = "data/gateway-state.snap";
+    private Duration interval = Duration.ofSeconds(30);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+}
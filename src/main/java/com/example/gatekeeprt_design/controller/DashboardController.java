@@ -1,61 +1,135 @@
 package com.example.gatekeeprt_design.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.ui.Model;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.example.gatekeeprt_design.botdetect.VerdictCache;
+import com.example.gatekeeprt_design.config.AdminProperties;
+import com.example.gatekeeprt_design.events.SecurityEvent;
+import com.example.gatekeeprt_design.events.SecurityEventStore;
+import com.example.gatekeeprt_design.filter.BehaviorScoringFilter;
 import com.example.gatekeeprt_design.filter.BotDetectionFilter;
 import com.example.gatekeeprt_design.filter.BenchmarkFilter;
+import com.example.gatekeeprt_design.gateway.GatewayPipeline;
+import com.example.gatekeeprt_design.gateway.GatewayStage;
+import com.example.gatekeeprt_design.gateway.StageRegistry;
+import com.example.gatekeeprt_design.monitoring.MetricsSnapshotPublisher;
+import com.example.gatekeeprt_design.monitoring.MetricsStream;
 import com.example.gatekeeprt_design.security.SecurityGateway;
+import com.example.gatekeeprt_design.snapshot.SnapshotService;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Controller
 public class DashboardController {
 
+    private final MetricsSnapshotPublisher snapshots;
+    private final MetricsStream metricsStream;
+    private final SnapshotService stateSnapshots;
+    private final SecurityEventStore securityEvents;
+    private final AdminProperties admin;
+
+    public DashboardController(final MetricsSnapshotPublisher snapshots, final MetricsStream metricsStream,
+            final SnapshotService stateSnapshots, final SecurityEventStore securityEvents,
+            final AdminProperties admin) {
+        this.snapshots = snapshots;
+        this.metricsStream = metricsStream;
+        this.stateSnapshots = stateSnapshots;
+        this.securityEvents = securityEvents;
+        this.admin = admin;
+    }
+
     /**
      * Display the dashboard page with current metrics
      */
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
-        model.addAttribute("rateLimitingEnabled", SecurityGateway.isRateLimitingEnabled());
-        model.addAttribute("botDetectionEnabled", SecurityGateway.isBotDetectionEnabled());
-        model.addAttribute("benchmarkEnabled", SecurityGateway.isBenchmarkEnabled());
-
-        model.addAttribute("botDetectionCount", BotDetectionFilter.getBotDetectionCount());
-        model.addAttribute("totalRequests", BenchmarkFilter.getTotalRequests());
-        model.addAttribute("averageResponseTime", BenchmarkFilter.getAverageResponseTime());
-
+        model.addAllAttributes(snapshots.get().getPageAttributes());
         return "dashboard";
     }
 
     /**
-     * Get benchmark metrics as JSON (for AJAX)
+     * Get benchmark metrics as JSON (for AJAX), served from the latest snapshot
      */
-    @GetMapping("/api/metrics")
+    @GetMapping(path = "/api/metrics", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> getMetrics() {
-        Map<String, Object> metrics = new HashMap<>();
+    public byte[] getMetrics() {
+        return snapshots.get().getJson();
+    }
 
-        // Get benchmark metrics
-        long totalRequests = BenchmarkFilter.getTotalRequests();
-        long successfulRequests = BenchmarkFilter.getSuccessfulRequests();
-        long failedRequests = BenchmarkFilter.getFailedRequests();
-        long averageResponseTime = BenchmarkFilter.getAverageResponseTime();
-        double successRate = BenchmarkFilter.getSuccessRate();
+    /**
+     * Stream metrics to the dashboard with Server-Sent Events: a full
+     * snapshot on connect, then only the values that changed on each tick
+     */
+    @GetMapping(path = "/api/metrics/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamMetrics() {
+        return metricsStream.subscribe();
+    }
 
-        metrics.put("totalRequests", totalRequests);
-        metrics.put("successfulRequests", successfulRequests);
-        metrics.put("failedRequests", failedRequests);
-        metrics.put("averageResponseTime", averageResponseTime);
-        metrics.put("successRate", successRate);
+    /**
+     * Get rate limiter client table statistics (for sizing maxClients)
+     */
+    @GetMapping("/api/rate-limit/stats")
+    @ResponseBody
+    public Map<String, Object> getRateLimitStats() {
+        return SecurityGateway.getRateLimiterStats();
+    }
 
-        // Add bot detection count
-        metrics.put("botsDetected", BotDetectionFilter.getBotDetectionCount());
+    /**
+     * Get warm restart snapshot statistics
+     */
+    @GetMapping("/api/snapshot/stats")
+    @ResponseBody
+    public Map<String, Object> getSnapshotStats() {
+        return stateSnapshots.getStats();
+    }
 
-        return metrics;
+    /**
+     * Get stored security events, newest first, filtered by any of client
+     * IP, event type and time range ({@code from} inclusive, {@code to}
+     * exclusive, ISO-8601); admin only, as details include typed usernames
+     */
+    @GetMapping("/api/security-events")
+    @ResponseBody
+    public List<SecurityEvent> getSecurityEvents(@RequestParam(required = false) String ip,
+            @RequestParam(required = false) SecurityEvent.Type type,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestHeader(name = "X-Admin-Token", required = false) String token,
+            HttpServletRequest request) {
+        requireAdmin(token, request);
+        return securityEvents.find(ip, type, from != null ? from.toEpochMilli() : null,
+                to != null ? to.toEpochMilli() : null, limit);
+    }
+
+    /**
+     * Get security event store statistics and stored counts by type
+     */
+    @GetMapping("/api/security-events/stats")
+    @ResponseBody
+    public Map<String, Object> getSecurityEventStats() {
+        Map<String, Object> stats = securityEvents.getStats();
+        stats.put("stored", securityEvents.countByType());
+        return stats;
     }
 
     /**
@@ -67,6 +141,24 @@ public class DashboardController {
         return "{\"botDetectionCount\": " + BotDetectionFilter.getBotDetectionCount() + "}";
     }
 
+    /**
+     * Get bot detection statistics, including the User-Agent verdict cache
+     */
+    @GetMapping("/api/bot-detection/stats")
+    @ResponseBody
+    public Map<String, Object> getBotDetectionStats() {
+        VerdictCache cache = BotDetectionFilter.getVerdictCache();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("botDetectionCount", BotDetectionFilter.getBotDetectionCount());
+        stats.put("behaviorBlockedCount", BehaviorScoringFilter.getBlockedCount());
+        stats.put("verdictCacheCapacity", cache.getCapacity());
+        stats.put("verdictCacheHits", cache.getHits());
+        stats.put("verdictCacheMisses", cache.getMisses());
+        stats.put("verdictCacheHitRate", cache.getHitRate() * 100.0);
+        return stats;
+    }
+
     /**
      * Reset bot detection counter
      */
@@ -74,6 +166,7 @@ public class DashboardController {
     @ResponseBody
     public String resetBotCount() {
         BotDetectionFilter.resetBotDetectionCount();
+        snapshots.refresh();
         return "{\"status\": \"success\", \"message\": \"Bot detection count reset\"}";
     }
 
@@ -85,15 +178,79 @@ public class DashboardController {
     public String resetMetrics() {
         BenchmarkFilter.resetMetrics();
         BotDetectionFilter.resetBotDetectionCount();
+        BehaviorScoringFilter.resetBlockedCount();
+        GatewayPipeline.resetStageStats();
+        snapshots.refresh();
         return "{\"status\": \"success\", \"message\": \"All metrics reset\"}";
     }
 
+    /**
+     * Get the installed and switched-on state of every gateway stage
+     */
+    @GetMapping("/api/admin/stages")
+    @ResponseBody
+    public Map<String, Map<String, Object>> getStages() {
+        return StageRegistry.describe();
+    }
+
+    /**
+     * Get calls, rejections and average time of every gateway pipeline stage
+     */
+    @GetMapping("/api/pipeline/stats")
+    @ResponseBody
+    public Map<String, Map<String, Object>> getPipelineStats() {
+        return GatewayPipeline.getStageStats();
+    }
+
+    /**
+     * Switch a gateway stage on or off at runtime; admin only
+     */
+    @PostMapping("/api/admin/stages/{stage}")
+    @ResponseBody
+    public Map<String, Map<String, Object>> setStage(@PathVariable("stage") String stage,
+            @RequestParam("enabled") boolean enabled,
+            @RequestHeader(name = "X-Admin-Token", required = false) String token,
+            HttpServletRequest request) {
+        requireAdmin(token, request);
+        try {
+            StageRegistry.setSwitchedOn(GatewayStage.fromId(stage), enabled);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+        snapshots.refresh();
+        return StageRegistry.describe();
+    }
+
+    /**
+     * Reject the call unless it carries the configured admin token or, with
+     * no token configured, comes from the loopback interface.
+     */
+    private void requireAdmin(final String token, final HttpServletRequest request) {
+        String expected = admin.getToken();
+        boolean allowed = expected == null || expected.isEmpty()
+                ? isLoopback(request.getRemoteAddr())
+                : token != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                        token.getBytes(StandardCharsets.UTF_8));
+        if (!allowed) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Admin access required");
+        }
+    }
+
+    private static boolean isLoopback(final String address) {
+        try {
+            // The remote address is always an IP literal, so this never does a lookup
+            return address != null && InetAddress.getByName(address).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
     /**
      * Get plain text metrics (for manual viewing)
      */
-    @GetMapping("/api/metrics/text")
+    @GetMapping(path = "/api/metrics/text", produces = "text/plain;charset=UTF-8")
     @ResponseBody
-    public String getMetricsText() {
-        return BenchmarkFilter.getMetrics();
+    public byte[] getMetricsText() {
+        return snapshots.get().getText();
     }
 }
@@ -1,22 +1,40 @@
 package com.example.gatekeeprt_design.controller;
 
+import com.example.gatekeeprt_design.config.LogViewerProperties;
+import com.example.gatekeeprt_design.events.SecurityEvent;
+import com.example.gatekeeprt_design.events.SecurityEvents;
+import com.example.gatekeeprt_design.gateway.RequestContext;
+import com.example.gatekeeprt_design.logs.LogFile;
+import com.example.gatekeeprt_design.logs.LogReader;
+import com.example.gatekeeprt_design.logs.LogSearch;
 import com.example.gatekeeprt_design.security.InputValidator;
 import com.example.gatekeeprt_design.security.SecurityGateway;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
 @Controller
 @RequestMapping
@@ -28,6 +46,18 @@ public class UnifiedController {
     @Autowired(required = false)
     private InputValidator inputValidator;
 
+    @Autowired
+    private MultipartProperties multipartProperties;
+
+    @Autowired
+    private LogReader logReader;
+
+    @Autowired
+    private LogViewerProperties logViewerProperties;
+
+    @Autowired
+    private LogSearch logSearch;
+
     // Simple login page
     @GetMapping("/login")
     public String loginPage() {
@@ -38,6 +68,7 @@ public class UnifiedController {
     @PostMapping("/login")
     public String login(@RequestParam String username,
             @RequestParam String password,
+            HttpServletRequest request,
             Model model) {
         boolean authenticated;
         if (securityGateway != null) {
@@ -50,6 +81,8 @@ public class UnifiedController {
             model.addAttribute("message", "Chào mừng, " + username);
             return "redirect:/dashboard";
         } else {
+            SecurityEvents.publish(SecurityEvent.Type.LOGIN_FAILED, RequestContext.clientIdOf(request),
+                    request.getRequestURI(), username);
             model.addAttribute("error", "Đăng nhập thất bại!");
             return "login";
         }
@@ -73,7 +106,9 @@ public class UnifiedController {
     }
 
     @PostMapping("/search")
-    public String search(@RequestParam String query, Model model) {
+    public String search(@RequestParam String query,
+            @RequestParam(defaultValue = "false") boolean substring,
+            Model model) {
         String result = query + " - Kết quả tìm kiếm";
         if (securityGateway != null) {
             result = securityGateway.sanitizeXSS(query) + " - Kết quả tìm kiếm";
@@ -82,41 +117,65 @@ public class UnifiedController {
         }
 
         model.addAttribute("result", result);
+        try {
+            model.addAttribute("logs", logSearch.search(query, substring));
+        } catch (IOException e) {
+            model.addAttribute("error", "Unable to search logs: " + e.getMessage());
+        }
         return "search";
     }
 
+    // Log search as JSON - token match by default, substring=true for a plain scan
+    @GetMapping("/api/logs/search")
+    @ResponseBody
+    public LogSearch.Result searchLogs(@RequestParam String q,
+            @RequestParam(defaultValue = "false") boolean substring) throws IOException {
+        return logSearch.search(q, substring);
+    }
+
     // View log - demonstrates path traversal when filename is concatenated
     @GetMapping("/view-log")
-    public String viewLog(@RequestParam String filename, Model model) {
-        String filePath = "logs/" + filename;
-        if (securityGateway != null) {
-            filePath = securityGateway.validateFilePath(filename, "logs");
-        } else {
-            // Vulnerable: direct path concatenation
+    public String viewLog(@RequestParam String filename,
+            @RequestParam(required = false) Long line,
+            @RequestParam(required = false) Integer tail,
+            Model model) {
+        Path p = resolveLog(filename);
+        if (p == null) {
+            model.addAttribute("error", "File not found");
+            return "view-log";
         }
-
         try {
-            Path p = Paths.get(filePath).toAbsolutePath().normalize();
-            if (!Files.exists(p) || Files.isDirectory(p)) {
-                model.addAttribute("error", "File not found");
-                return "view-log";
-            }
-            String content = Files.readString(p, StandardCharsets.UTF_8);
-            model.addAttribute("content", content);
+            LogFile.Page page = tail != null
+                    ? logReader.tail(p, Math.max(1, tail))
+                    : logReader.page(p, line != null ? line : 1, logViewerProperties.getPageLines());
+            addPage(model, filename, page);
         } catch (IOException e) {
             model.addAttribute("error", "Unable to read file: " + e.getMessage());
         }
         return "view-log";
     }
 
+    // Follow a log - streams lines appended after the given byte offset, or after the last
+    // event id (also a byte offset) when the browser reconnects on its own
+    @GetMapping(path = "/view-log/follow", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter followLog(@RequestParam String filename,
+            @RequestParam(defaultValue = "-1") long offset,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) throws IOException {
+        Path p = resolveLog(filename);
+        if (p == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found");
+        }
+        return logReader.follow(p, lastEventId != null ? lastEventId : offset);
+    }
+
     // Simple endpoint to show demo log (safe demo)
     @GetMapping("/view-log-demo")
     public String viewLogDemo(Model model) {
         Path p = Paths.get("logs/demo.log").toAbsolutePath().normalize();
         try {
             if (Files.exists(p)) {
-                String content = Files.readString(p, StandardCharsets.UTF_8);
-                model.addAttribute("content", content);
+                addPage(model, "demo.log", logReader.tail(p, logViewerProperties.getPageLines()));
             } else {
                 model.addAttribute("content", "(demo log not found)");
             }
@@ -126,6 +185,32 @@ public class UnifiedController {
         return "view-log";
     }
 
+    private Path resolveLog(String filename) {
+        String filePath = "logs/" + filename;
+        if (securityGateway != null) {
+            filePath = securityGateway.validateFilePath(filename, "logs");
+        } else {
+            // Vulnerable: direct path concatenation
+        }
+
+        Path p = Paths.get(filePath).toAbsolutePath().normalize();
+        return Files.exists(p) && !Files.isDirectory(p) ? p : null;
+    }
+
+    private void addPage(Model model, String filename, LogFile.Page page) {
+        int pageLines = logViewerProperties.getPageLines();
+        long first = page.getFirstLine() + 1;
+        long last = page.getFirstLine() + page.getLines().size();
+        model.addAttribute("content", page.getText());
+        model.addAttribute("filename", filename);
+        model.addAttribute("firstLine", first);
+        model.addAttribute("lastLine", last);
+        model.addAttribute("totalLines", page.getTotalLines());
+        model.addAttribute("prevLine", first > 1 ? Math.max(1, first - pageLines) : null);
+        model.addAttribute("nextLine", last < page.getTotalLines() ? last + 1 : null);
+        model.addAttribute("followOffset", page.getEndOffset());
+    }
+
     // Upload endpoint - demonstrates file size checks
     @GetMapping("/upload")
     public String uploadPage() {
@@ -140,9 +225,9 @@ public class UnifiedController {
         }
 
         if (securityGateway != null) {
-            long maxSize = 100 * 1024 * 1024;
+            long maxSize = multipartProperties.getMaxFileSize().toBytes();
             if (!securityGateway.validateFileSize(file.getSize(), maxSize)) {
-                model.addAttribute("error", "File size exceeds 1MB limit");
+                model.addAttribute("error", "File size exceeds " + multipartProperties.getMaxFileSize().toMegabytes() + "MB limit");
                 return "upload";
             }
         } else {
@@ -153,7 +238,8 @@ public class UnifiedController {
             Path uploads = Paths.get("uploads").toAbsolutePath().normalize();
             Files.createDirectories(uploads);
             Path dest = uploads.resolve(Paths.get(file.getOriginalFilename())).normalize();
-            Files.write(dest, file.getBytes());
+            // The body was streamed to a temp file while parsing; move it rather than load it
+            file.transferTo(dest.toFile());
             model.addAttribute("message", "File uploaded: " + file.getOriginalFilename());
         } catch (IOException e) {
             model.addAttribute("error", "Upload failed: " + e.getMessage());
@@ -161,6 +247,14 @@ public class UnifiedController {
         return "upload";
     }
 
+    // Oversized upload - the multipart parser stops reading once the limit is crossed
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    public String uploadTooLarge(Model model) {
+        model.addAttribute("error", "File size exceeds " + multipartProperties.getMaxFileSize().toMegabytes() + "MB limit");
+        return "upload";
+    }
+
     // Register endpoint - demonstrates input validation bypass
     @GetMapping("/register")
     public String registerPage() {
@@ -191,6 +285,18 @@ public class UnifiedController {
         return "register";
     }
 
+    // Bulk registration check - reports the invalid records and fields
+    @PostMapping("/api/register/validate")
+    @ResponseBody
+    public List<InputValidator.Failure> validateRegistrations(
+            @RequestBody List<InputValidator.Registration> registrations) {
+        if (securityGateway != null) {
+            return securityGateway.validateRegistrations(registrations);
+        }
+        // Vulnerable: no input validation
+        return List.of();
+    }
+
     // Rate limit test endpoint
     @GetMapping("/rate-limit-test")
     @ResponseBody
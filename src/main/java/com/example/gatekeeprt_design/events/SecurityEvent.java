@@ -0,0 +1,15 @@
+package com.example.gatekeeprt_design.events;
+
+/**
+ * A request the gateway turned away, or a failed login.
+ *
+ * @param timestamp wall clock in milliseconds since the epoch
+ * @param detail    what triggered it: the User-Agent, the route pattern,
+ *                  the behavior score or the user name; may be null
+ */
+public record SecurityEvent(long timestamp, Type type, String clientId, String path, String detail) {
+
+    public enum Type {
+        BOT_BLOCKED, BEHAVIOR_BLOCKED, RATE_LIMITED, LOGIN_FAILED
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.gatekeeprt_design.events;
+
+import com.example.gatekeeprt_design.metrics.StripedCounters;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue of security events from many request threads to one writer.
+ *
+ * <p>A ring of slots: producers claim a sequence number with one CAS on the
+ * tail and publish the event into its slot; the consumer takes events in
+ * sequence order, clears their slots and then advances the head. Neither
+ * side ever waits for the other. Once the queue is half full only one in
+ * {@code overloadSampleRate} events is kept, so a flood leaves a sample
+ * rather than only its first events; when it is full, events are dropped.
+ * Every event not kept is counted.
+ */
+public final class SecurityEventQueue {
+
+    private static final int ACCEPTED = 0;
+    private static final int SAMPLED_OUT = 1;
+    private static final int DROPPED = 2;
+
+    private final AtomicReferenceArray<SecurityEvent> slots;
+    private final int mask;
+    private final int overloadSampleRate;
+    private final AtomicLong tail = new AtomicLong();
+    private final StripedCounters counters = new StripedCounters(3);
+
+    /**
+     * Next sequence to take; written by the consumer only.
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public SecurityEventQueue(final int capacity, final int overloadSampleRate) {
+        if (capacity < 2 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 2 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.overloadSampleRate = Math.max(1, overloadSampleRate);
+    }
+
+    /**
+     * Add an event unless the queue is overloaded; never blocks.
+     *
+     * @return whether the event was kept
+     */
+    public boolean offer(final SecurityEvent event) {
+        int capacity = mask + 1;
+        if (tail.get() - head >= capacity / 2 && overloadSampleRate > 1
+                && ThreadLocalRandom.current().nextInt(overloadSampleRate) != 0) {
+            counters.increment(SAMPLED_OUT);
+            return false;
+        }
+        while (true) {
+            long t = tail.get();
+            if (t - head >= capacity) {
+                counters.increment(DROPPED);
+                return false;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                slots.lazySet((int) t & mask, event);
+                counters.increment(ACCEPTED);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Pass up to {@code max} events, oldest first, to {@code action}. Must
+     * only be called from one thread at a time.
+     *
+     * @return the number of events taken
+     */
+    public int drain(final Consumer<SecurityEvent> action, final int max) {
+        long h = head;
+        int taken = 0;
+        while (taken < max) {
+            int slot = (int) h & mask;
+            SecurityEvent event = slots.get(slot);
+            if (event == null) {
+                // Empty, or the producer of this sequence has not published yet
+                break;
+            }
+            slots.lazySet(slot, null);
+            action.accept(event);
+            h++;
+            taken++;
+        }
+        head = h;
+        return taken;
+    }
+
+    /**
+     * Events claimed but not yet taken.
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long getAccepted() {
+        return counters.sum(ACCEPTED);
+    }
+
+    /**
+     * Events left out by sampling while the queue was at least half full.
+     */
+    public long getSampledOut() {
+        return counters.sum(SAMPLED_OUT);
+    }
+
+    /**
+     * Events dropped because the queue was full.
+     */
+    public long getDropped() {
+        return counters.sum(DROPPED);
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.gatekeeprt_design.events;
+
+import com.example.gatekeeprt_design.config.SecurityEventProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps security events in the {@code security_event} table.
+ *
+ * <p>Request threads only put events on a {@link SecurityEventQueue}. One
+ * background thread drains it every flush interval and writes the events
+ * with JDBC batch inserts, so the database is never on a request's path;
+ * if it falls behind, the queue samples and then drops events instead of
+ * growing. Rows older than the retention are deleted about once a minute,
+ * and past {@code max-rows} the oldest rows are deleted after every flush,
+ * so the table stays bounded even under a sustained flood. Queries by
+ * client, by type and by time range are served from indexes that lead with
+ * the filtered column followed by the event time.
+ *
+ * <p>When disabled, no table is created, no thread is started and queries
+ * find nothing.
+ */
+@Component
+public class SecurityEventStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityEventStore.class);
+
+    /**
+     * Longest client id, path and detail kept; longer values are cut.
+     */
+    static final int MAX_VALUE_LENGTH = 255;
+
+    private static final long PURGE_INTERVAL_MILLIS = 60_000;
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS security_event ("
+                    + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "occurred_at BIGINT NOT NULL, "
+                    + "event_type VARCHAR(32) NOT NULL, "
+                    + "client_id VARCHAR(" + MAX_VALUE_LENGTH + ") NOT NULL, "
+                    + "request_path VARCHAR(" + MAX_VALUE_LENGTH + "), "
+                    + "detail VARCHAR(" + MAX_VALUE_LENGTH + "))",
+            "CREATE INDEX IF NOT EXISTS security_event_client ON security_event (client_id, occurred_at)",
+            "CREATE INDEX IF NOT EXISTS security_event_type ON security_event (event_type, occurred_at)",
+            "CREATE INDEX IF NOT EXISTS security_event_time ON security_event (occurred_at)" };
+
+    private static final String INSERT = "INSERT INTO security_event "
+            + "(occurred_at, event_type, client_id, request_path, detail) VALUES (?, ?, ?, ?, ?)";
+
+    private static final RowMapper<SecurityEvent> ROW_MAPPER = (rs, row) -> new SecurityEvent(
+            rs.getLong("occurred_at"), SecurityEvent.Type.valueOf(rs.getString("event_type")),
+            rs.getString("client_id"), rs.getString("request_path"), rs.getString("detail"));
+
+    private final JdbcTemplate jdbc;
+    private final SecurityEventProperties properties;
+    private final SecurityEventQueue queue;
+    private final ScheduledExecutorService executor;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong trimmed = new AtomicLong();
+    private long lastPurgeMillis;
+
+    /**
+     * Rows in the table, as counted at startup and kept up to date by the
+     * writer thread.
+     */
+    private volatile long rows;
+
+    public SecurityEventStore(final DataSource dataSource, final SecurityEventProperties properties) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.properties = properties;
+        this.queue = new SecurityEventQueue(properties.getQueueCapacity(), properties.getOverloadSampleRate());
+        if (!properties.isEnabled()) {
+            this.executor = null;
+            return;
+        }
+        for (String statement : SCHEMA) {
+            jdbc.execute(statement);
+        }
+        Long count = jdbc.queryForObject("SELECT COUNT(*) FROM security_event", Long.class);
+        this.rows = count != null ? count : 0;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "security-event-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        SecurityEvents.install(queue);
+        long interval = properties.getFlushInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write every queued event, in batches. Called from the writer thread.
+     */
+    void flush() {
+        List<SecurityEvent> batch = new ArrayList<>(properties.getBatchSize());
+        while (queue.drain(batch::add, properties.getBatchSize()) > 0) {
+            try {
+                insert(batch);
+                written.addAndGet(batch.size());
+                rows += batch.size();
+            } catch (DataAccessException e) {
+                // The events are lost; a failed batch must not cancel the schedule
+                failed.addAndGet(batch.size());
+                log.warn("Could not write {} security events", batch.size(), e);
+            }
+            batch.clear();
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastPurgeMillis >= PURGE_INTERVAL_MILLIS) {
+            lastPurgeMillis = now;
+            try {
+                rows -= jdbc.update("DELETE FROM security_event WHERE occurred_at < ?",
+                        now - properties.getRetention().toMillis());
+            } catch (DataAccessException e) {
+                log.warn("Could not delete expired security events", e);
+            }
+        }
+        long excess = rows - properties.getMaxRows();
+        if (excess > 0) {
+            try {
+                // Oldest first; ids grow with insertion order
+                int deleted = jdbc.update("DELETE FROM security_event WHERE id IN "
+                        + "(SELECT id FROM security_event ORDER BY id LIMIT ?)", excess);
+                rows -= deleted;
+                trimmed.addAndGet(deleted);
+            } catch (DataAccessException e) {
+                log.warn("Could not delete security events over the row cap", e);
+            }
+        }
+    }
+
+    private void insert(final List<SecurityEvent> batch) {
+        jdbc.batchUpdate(INSERT, batch, batch.size(), (ps, event) -> {
+            ps.setLong(1, event.timestamp());
+            ps.setString(2, event.type().name());
+            ps.setString(3, cut(event.clientId() != null ? event.clientId() : ""));
+            ps.setString(4, cut(event.path()));
+            ps.setString(5, cut(event.detail()));
+        });
+    }
+
+    private static String cut(final String value) {
+        return value != null && value.length() > MAX_VALUE_LENGTH ? value.substring(0, MAX_VALUE_LENGTH) : value;
+    }
+
+    /**
+     * Queue to put events on directly, bypassing {@link SecurityEvents}.
+     */
+    public SecurityEventQueue getQueue() {
+        return queue;
+    }
+
+    /**
+     * Stored events matching every given criterion, newest first.
+     *
+     * @param clientId exact client id, or null for any
+     * @param type     event type, or null for any
+     * @param from     earliest event time in epoch millis, inclusive, or null
+     * @param to       latest event time in epoch millis, exclusive, or null
+     * @param limit    at most this many, capped by {@code max-query-results}
+     */
+    public List<SecurityEvent> find(final String clientId, final SecurityEvent.Type type, final Long from,
+            final Long to, final int limit) {
+        if (!properties.isEnabled()) {
+            return List.of();
+        }
+        StringBuilder sql = new StringBuilder(
+                "SELECT occurred_at, event_type, client_id, request_path, detail FROM security_event WHERE 1 = 1");
+        List<Object> args = new ArrayList<>(5);
+        if (clientId != null) {
+            sql.append(" AND client_id = ?");
+            args.add(clientId);
+        }
+        if (type != null) {
+            sql.append(" AND event_type = ?");
+            args.add(type.name());
+        }
+        if (from != null) {
+            sql.append(" AND occurred_at >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND occurred_at < ?");
+            args.add(to);
+        }
+        sql.append(" ORDER BY occurred_at DESC, id DESC LIMIT ?");
+        args.add(Math.max(0, Math.min(limit, properties.getMaxQueryResults())));
+        return jdbc.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Stored event counts by type.
+     */
+    public Map<String, Long> countByType() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (!properties.isEnabled()) {
+            return counts;
+        }
+        jdbc.query("SELECT event_type, COUNT(*) FROM security_event GROUP BY event_type ORDER BY event_type",
+                rs -> {
+                    counts.put(rs.getString(1), rs.getLong(2));
+                });
+        return counts;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("queued", queue.size());
+        stats.put("queueCapacity", queue.capacity());
+        stats.put("accepted", queue.getAccepted());
+        stats.put("sampledOut", queue.getSampledOut());
+        stats.put("dropped", queue.getDropped());
+        stats.put("written", written.get());
+        stats.put("failed", failed.get());
+        stats.put("rows", rows);
+        stats.put("maxRows", properties.getMaxRows());
+        stats.put("trimmed", trimmed.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (executor == null) {
+            return;
+        }
+        SecurityEvents.uninstall(queue);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Whatever was reported since the last tick
+        flush();
+    }
+}
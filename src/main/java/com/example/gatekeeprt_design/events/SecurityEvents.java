@@ -0,0 +1,35 @@
+package com.example.gatekeeprt_design.events;
+
+/**
+ * Where gateway stages report security events. Events go to the queue of
+ * the installed {@link SecurityEventStore}; with none installed, reporting
+ * is a single volatile read.
+ */
+public final class SecurityEvents {
+
+    private static volatile SecurityEventQueue queue;
+
+    private SecurityEvents() {
+    }
+
+    /**
+     * Report an event that happened now; never blocks.
+     */
+    public static void publish(final SecurityEvent.Type type, final String clientId, final String path,
+            final String detail) {
+        SecurityEventQueue q = queue;
+        if (q != null) {
+            q.offer(new SecurityEvent(System.currentTimeMillis(), type, clientId, path, detail));
+        }
+    }
+
+    static void install(final SecurityEventQueue q) {
+        queue = q;
+    }
+
+    static void uninstall(final SecurityEventQueue q) {
+        if (queue == q) {
+            queue = null;
+        }
+    }
+}
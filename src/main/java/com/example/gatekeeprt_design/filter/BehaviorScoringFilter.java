@@ -0,0 +1,179 @@
+package com.example.gatekeeprt_design.filter;
+
+import com.example.gatekeeprt_design.botdetect.BehaviorProfile;
+import com.example.gatekeeprt_design.botdetect.BehaviorWeights;
+import com.example.gatekeeprt_design.botdetect.BotSignatures;
+import com.example.gatekeeprt_design.botdetect.SignatureFileWatcher;
+import com.example.gatekeeprt_design.config.BehaviorScoringProperties;
+import com.example.gatekeeprt_design.events.SecurityEvent;
+import com.example.gatekeeprt_design.events.SecurityEvents;
+import com.example.gatekeeprt_design.gateway.GatewayPipeline;
+import com.example.gatekeeprt_design.gateway.GatewayStage;
+import com.example.gatekeeprt_design.gateway.PipelineStage;
+import com.example.gatekeeprt_design.gateway.RequestContext;
+import com.example.gatekeeprt_design.metrics.StripedCounters;
+import com.example.gatekeeprt_design.ratelimit.ClientStateStore;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Blocks clients whose request cadence looks scripted, whatever User-Agent
+ * they send. Runs after {@link BotDetectionFilter} so known bots are rejected
+ * by the cheaper header check first. User-Agents on the allow-list of the
+ * bot rules, such as uptime monitors polling on a fixed cadence, are not
+ * scored.
+ */
+//@Component
+@Order(3)
+public class BehaviorScoringFilter implements Filter, PipelineStage {
+
+    /**
+     * HTTP status code returned when a client's behavior score crosses the threshold.
+     */
+    private static final int SUSPICIOUS_CLIENT_STATUS = 403;
+
+    private static final LongFunction<BehaviorProfile> NEW_PROFILE = now -> new BehaviorProfile();
+
+    /**
+     * Counter for clients blocked by behavior
+     */
+    private static final StripedCounters blockedCount = new StripedCounters(1);
+
+    private final BehaviorWeights weights;
+    private final double threshold;
+
+    /**
+     * Bounded store of per-client behavior profiles.
+     */
+    private final ClientStateStore<BehaviorProfile> profiles;
+
+    private final LongSupplier nanoClock;
+
+    /**
+     * Bot rules whose allow-list exempts clients from scoring; replaced
+     * atomically when the rule file changes
+     */
+    private volatile BotSignatures signatures = BotSignatures.loadDefaults();
+
+    /**
+     * Watcher of the external rule file, or null when using the built-in rules
+     */
+    private SignatureFileWatcher watcher;
+
+    public BehaviorScoringFilter() {
+        this(new BehaviorScoringProperties());
+    }
+
+    public BehaviorScoringFilter(final BehaviorScoringProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    @Autowired
+    public BehaviorScoringFilter(final BehaviorScoringProperties properties,
+            @Value("${gateway.bot-detection.signatures-file:}") final String signaturesFile) throws IOException {
+        this(properties);
+        if (signaturesFile != null && !signaturesFile.isBlank()) {
+            this.watcher = new SignatureFileWatcher(Paths.get(signaturesFile), s -> this.signatures = s);
+        }
+    }
+
+    BehaviorScoringFilter(final BehaviorScoringProperties properties, final LongSupplier nanoClock) {
+        this.weights = properties.toWeights();
+        this.threshold = properties.getThreshold();
+        this.nanoClock = nanoClock;
+        this.profiles = new ClientStateStore<>(properties.getMaxClients(),
+                properties.getIdleTtl().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request,
+            final ServletResponse response,
+            final FilterChain chain)
+            throws IOException, ServletException {
+
+        GatewayPipeline.runStage(this, null, request, response, chain);
+    }
+
+    @Override
+    public GatewayStage getStage() {
+        return GatewayStage.BEHAVIOR_SCORING;
+    }
+
+    @Override
+    public boolean onRequest(final RequestContext context) throws IOException {
+        String userAgent = context.getUserAgent();
+        if (userAgent != null && signatures.isAllowed(userAgent)) {
+            return true;
+        }
+        HttpServletRequest request = context.getRequest();
+
+        long now = nanoClock.getAsLong();
+        BehaviorProfile profile = profiles.get(context.getClientId(), now, NEW_PROFILE);
+        double score = profile.onRequest(now,
+                context.getPath().hashCode(),
+                request.getHeader("Accept") == null,
+                request.getHeader("Accept-Language") == null,
+                weights);
+
+        if (score >= threshold) {
+            blockedCount.increment(0);
+            SecurityEvents.publish(SecurityEvent.Type.BEHAVIOR_BLOCKED, context.getClientId(), context.getPath(),
+                    "score=" + score);
+            HttpServletResponse response = context.getResponse();
+            response.setStatus(SUSPICIOUS_CLIENT_STATUS);
+            response.getWriter().write("Suspicious client behavior blocked\n");
+            return false;
+        }
+
+        // Fed the response status once it is known
+        context.setStageState(GatewayStage.BEHAVIOR_SCORING, profile);
+        return true;
+    }
+
+    @Override
+    public void onResponse(final RequestContext context, final int status) {
+        if (context.getStageState(GatewayStage.BEHAVIOR_SCORING) instanceof BehaviorProfile profile) {
+            profile.onResponse(status);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        profiles.close();
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    /**
+     * Get the number of requests blocked because of client behavior
+     */
+    public static long getBlockedCount() {
+        return blockedCount.sum(0);
+    }
+
+    /**
+     * Reset the behavior block counter
+     */
+    public static void resetBlockedCount() {
+        blockedCount.reset();
+    }
+}
@@ -1,35 +1,67 @@
 package com.example.gatekeeprt_design.filter;
 
+import com.example.gatekeeprt_design.gateway.GatewayPipeline;
+import com.example.gatekeeprt_design.gateway.GatewayStage;
+import com.example.gatekeeprt_design.gateway.PipelineStage;
+import com.example.gatekeeprt_design.gateway.RequestContext;
+import com.example.gatekeeprt_design.metrics.LatencyHistogram;
+import com.example.gatekeeprt_design.metrics.RollingMetrics;
+import com.example.gatekeeprt_design.metrics.StripedCounters;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 
 //@Component
 @Order(1)
-public class BenchmarkFilter implements Filter {
+public class BenchmarkFilter implements Filter, PipelineStage {
 
     /**
      * Metrics container
      */
     private static class RequestMetrics {
-        AtomicLong totalRequests = new AtomicLong(0);
-        AtomicLong totalResponseTime = new AtomicLong(0);
-        AtomicLong successfulRequests = new AtomicLong(0);
-        AtomicLong failedRequests = new AtomicLong(0);
-        Map<Integer, AtomicLong> statusCodeCount = new ConcurrentHashMap<>();
-        Map<String, Long> endpointMetrics = new ConcurrentHashMap<>();
+        /** Request totals; the request count is successful + failed. */
+        StripedCounters totals = new StripedCounters(3);
+        Map<Integer, StripedCounters> statusCodeCount = new ConcurrentHashMap<>();
+        LatencyHistogram latency = new LatencyHistogram();
+        Map<String, LatencyHistogram> endpointMetrics = new ConcurrentHashMap<>();
+        RollingMetrics rolling = new RollingMetrics();
     }
 
+    /**
+     * Maximum number of endpoints with their own histogram; the rest share one.
+     * Keeps memory fixed when clients probe arbitrary URIs.
+     */
+    private static final int MAX_TRACKED_ENDPOINTS = 64;
+
+    private static final String OTHER_ENDPOINTS = "(other)";
+
+    /**
+     * Percentiles reported for every histogram.
+     */
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+    private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p999" };
+
+    /**
+     * Rolling windows reported next to the lifetime totals, in seconds.
+     */
+    private static final int[] ROLLING_WINDOWS = { 60, 300, 900 };
+    private static final String[] ROLLING_WINDOW_NAMES = { "1m", "5m", "15m" };
+
+    private static final int SUCCESSFUL = 0;
+    private static final int FAILED = 1;
+    private static final int RESPONSE_TIME = 2;
+
     private static final RequestMetrics metrics = new RequestMetrics();
 
     @Override
@@ -38,155 +70,284 @@ public class BenchmarkFilter implements Filter {
             final FilterChain chain)
             throws IOException, ServletException {
 
-        HttpServletRequest httpRequest = (HttpServletRequest) request;
-        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        GatewayPipeline.runStage(this, null, request, response, chain);
+    }
 
-        long startTime = System.currentTimeMillis();
-        String endpoint = httpRequest.getRequestURI();
+    @Override
+    public GatewayStage getStage() {
+        return GatewayStage.BENCHMARK;
+    }
 
-        try {
-            chain.doFilter(request, response);
-        } finally {
-            long endTime = System.currentTimeMillis();
-            long responseTime = endTime - startTime;
+    @Override
+    public boolean onRequest(final RequestContext context) {
+        return true;
+    }
 
-            recordMetrics(httpResponse, endpoint, responseTime);
-        }
+    /**
+     * Measured from when the request entered the gateway, so time spent in
+     * the other stages and in rejections counts too.
+     */
+    @Override
+    public void onResponse(final RequestContext context, final int status) {
+        recordMetrics(status, context.getPath(), System.nanoTime() - context.getStartNanos());
     }
 
-    private void recordMetrics(final HttpServletResponse response,
+    private void recordMetrics(final int statusCode,
             final String endpoint,
             final long responseTime) {
 
-        metrics.totalRequests.incrementAndGet();
-        metrics.totalResponseTime.addAndGet(responseTime);
+        int outcome = statusCode >= 200 && statusCode < 300 ? SUCCESSFUL : FAILED;
+        metrics.totals.add(outcome, 1, RESPONSE_TIME, responseTime);
 
-        int statusCode = response.getStatus();
         metrics.statusCodeCount
-                .computeIfAbsent(statusCode, k -> new AtomicLong(0))
-                .incrementAndGet();
+                .computeIfAbsent(statusCode, k -> new StripedCounters(1))
+                .increment(0);
 
-        if (statusCode >= 200 && statusCode < 300) {
-            metrics.successfulRequests.incrementAndGet();
-        } else {
-            metrics.failedRequests.incrementAndGet();
+        metrics.latency.record(responseTime);
+        metrics.rolling.record(responseTime, outcome == FAILED);
+        endpointHistogram(endpoint).record(responseTime);
+    }
+
+    private static LatencyHistogram endpointHistogram(final String endpoint) {
+        LatencyHistogram histogram = metrics.endpointMetrics.get(endpoint);
+        if (histogram != null) {
+            return histogram;
         }
+        String key = metrics.endpointMetrics.size() < MAX_TRACKED_ENDPOINTS ? endpoint : OTHER_ENDPOINTS;
+        return metrics.endpointMetrics.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
 
-        metrics.endpointMetrics.put(endpoint, responseTime);
+    private static double toMillis(final double nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String formatMillis(final double nanos) {
+        return String.format(Locale.ROOT, "%.3f", toMillis(nanos));
     }
 
     /**
      * Get all metrics as a formatted string
      */
     public static String getMetrics() {
-        long totalRequests = metrics.totalRequests.get();
-        long avgResponseTime = totalRequests > 0 ? metrics.totalResponseTime.get() / totalRequests : 0;
+        long[] totals = metrics.totals.snapshot();
+        LatencyHistogram.Snapshot latency = metrics.latency.snapshot();
 
         StringBuilder sb = new StringBuilder();
         sb.append("=== BENCHMARK METRICS ===\n");
-        sb.append("Total Requests: ").append(totalRequests).append("\n");
-        sb.append("Successful Requests: ").append(metrics.successfulRequests.get()).append("\n");
-        sb.append("Failed Requests: ").append(metrics.failedRequests.get()).append("\n");
-        sb.append("Average Response Time: ").append(avgResponseTime).append("ms\n");
-        sb.append("Total Response Time: ").append(metrics.totalResponseTime.get()).append("ms\n");
+        sb.append("Total Requests: ").append(totalRequests(totals)).append("\n");
+        sb.append("Successful Requests: ").append(totals[SUCCESSFUL]).append("\n");
+        sb.append("Failed Requests: ").append(totals[FAILED]).append("\n");
+        sb.append("Average Response Time: ").append(formatMillis(averageResponseNanos(totals))).append("ms\n");
+        sb.append("Total Response Time: ")
+                .append(formatMillis(totals[RESPONSE_TIME])).append("ms\n");
+        sb.append("\nLatency Percentiles:\n");
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            sb.append("  ").append(PERCENTILE_NAMES[i]).append(": ")
+                    .append(formatMillis(latency.getValueAtPercentile(PERCENTILES[i])))
+                    .append("ms\n");
+        }
+        sb.append("  max: ").append(formatMillis(latency.getMax())).append("ms\n");
         sb.append("\nStatus Code Distribution:\n");
 
         metrics.statusCodeCount
-                .forEach((code, count) -> sb.append("  ").append(code).append(": ").append(count.get()).append("\n"));
+                .forEach((code, count) -> sb.append("  ").append(code).append(": ").append(count.sum(0)).append("\n"));
 
         return sb.toString();
     }
 
     /**
-     * Get metrics as JSON format (for Grafana integration)
+     * Get all metrics as one model, with the request totals taken from a
+     * single consistent read. Times are in milliseconds, rates in percent.
      */
-    public static String getMetricsJSON() {
-        long totalRequests = metrics.totalRequests.get();
-        long avgResponseTime = totalRequests > 0 ? metrics.totalResponseTime.get() / totalRequests : 0;
-
-        StringBuilder json = new StringBuilder();
-        json.append("{\n");
-        json.append("  \"totalRequests\": ").append(totalRequests).append(",\n");
-        json.append("  \"successfulRequests\": ").append(metrics.successfulRequests.get()).append(",\n");
-        json.append("  \"failedRequests\": ").append(metrics.failedRequests.get()).append(",\n");
-        json.append("  \"averageResponseTime\": ").append(avgResponseTime).append(",\n");
-        json.append("  \"totalResponseTime\": ").append(metrics.totalResponseTime.get()).append(",\n");
-        json.append("  \"successRate\": ");
+    public static Map<String, Object> getMetricsModel() {
+        long[] totals = metrics.totals.snapshot();
 
-        if (totalRequests > 0) {
-            double successRate = (metrics.successfulRequests.get() * 100.0) / totalRequests;
-            json.append(String.format("%.2f", successRate));
-        } else {
-            json.append("0.00");
-        }
+        Map<String, Object> model = new LinkedHashMap<>();
+        model.put("totalRequests", totalRequests(totals));
+        model.put("successfulRequests", totals[SUCCESSFUL]);
+        model.put("failedRequests", totals[FAILED]);
+        model.put("averageResponseTime", toMillis(averageResponseNanos(totals)));
+        model.put("totalResponseTime", toMillis(totals[RESPONSE_TIME]));
+        model.put("successRate", successRate(totals));
 
-        json.append(",\n");
-        json.append("  \"statusCodeDistribution\": {\n");
-
-        List<Map.Entry<Integer, AtomicLong>> entries = new ArrayList<>(
-                metrics.statusCodeCount.entrySet());
-        for (int i = 0; i < entries.size(); i++) {
-            Map.Entry<Integer, AtomicLong> entry = entries.get(i);
-            json.append("    \"").append(entry.getKey()).append("\": ")
-                    .append(entry.getValue().get());
-            if (i < entries.size() - 1) {
-                json.append(",");
-            }
-            json.append("\n");
-        }
+        Map<String, Long> statusCodes = new TreeMap<>();
+        metrics.statusCodeCount.forEach((code, count) -> statusCodes.put(String.valueOf(code), count.sum(0)));
+        model.put("statusCodeDistribution", statusCodes);
 
-        json.append("  }\n");
-        json.append("}\n");
+        model.put("latency", getLatencyPercentiles());
+        model.put("rolling", getRollingMetrics());
+        model.put("endpoints", getEndpointLatencyPercentiles());
+        return model;
+    }
 
-        return json.toString();
+    /**
+     * Get metrics as JSON format (for Grafana integration), written with the
+     * application's configured mapper
+     */
+    public static String getMetricsJSON(final ObjectMapper objectMapper) {
+        try {
+            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(getMetricsModel());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Metrics model is not serializable", e);
+        }
     }
 
     /**
      * Reset all metrics
      */
     public static void resetMetrics() {
-        metrics.totalRequests.set(0);
-        metrics.totalResponseTime.set(0);
-        metrics.successfulRequests.set(0);
-        metrics.failedRequests.set(0);
+        metrics.totals.reset();
         metrics.statusCodeCount.clear();
+        metrics.latency.reset();
         metrics.endpointMetrics.clear();
+        metrics.rolling.reset();
+    }
+
+    /**
+     * Write the lifetime totals, status codes and histograms, to be added
+     * back with {@link #readSnapshot} after a restart. Rolling windows are
+     * not kept; they refill within their own length.
+     */
+    public static void writeSnapshot(final DataOutput out) throws IOException {
+        long[] totals = metrics.totals.snapshot();
+        out.writeInt(totals.length);
+        for (long total : totals) {
+            out.writeLong(total);
+        }
+        Map<Integer, Long> statusCodes = new TreeMap<>();
+        metrics.statusCodeCount.forEach((code, count) -> statusCodes.put(code, count.sum(0)));
+        out.writeInt(statusCodes.size());
+        for (Map.Entry<Integer, Long> entry : statusCodes.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        metrics.latency.snapshot().writeTo(out);
+        Map<String, LatencyHistogram> endpoints = new TreeMap<>(metrics.endpointMetrics);
+        out.writeInt(endpoints.size());
+        for (Map.Entry<String, LatencyHistogram> entry : endpoints.entrySet()) {
+            out.writeUTF(entry.getKey());
+            entry.getValue().snapshot().writeTo(out);
+        }
+    }
+
+    /**
+     * Add metrics written by {@link #writeSnapshot}
+     */
+    public static void readSnapshot(final DataInput in) throws IOException {
+        int fields = in.readInt();
+        for (int i = 0; i < fields; i++) {
+            long total = in.readLong();
+            if (i < metrics.totals.getFields()) {
+                metrics.totals.add(i, total);
+            }
+        }
+        int statusCodes = in.readInt();
+        for (int i = 0; i < statusCodes; i++) {
+            int code = in.readInt();
+            long count = in.readLong();
+            metrics.statusCodeCount.computeIfAbsent(code, k -> new StripedCounters(1)).add(0, count);
+        }
+        metrics.latency.addFrom(in);
+        int endpoints = in.readInt();
+        for (int i = 0; i < endpoints; i++) {
+            endpointHistogram(in.readUTF()).addFrom(in);
+        }
     }
 
     /**
      * Get total requests count
      */
     public static long getTotalRequests() {
-        return metrics.totalRequests.get();
+        return totalRequests(metrics.totals.snapshot());
     }
 
     /**
-     * Get average response time
+     * Get average response time in milliseconds
      */
-    public static long getAverageResponseTime() {
-        long totalRequests = metrics.totalRequests.get();
-        return totalRequests > 0 ? metrics.totalResponseTime.get() / totalRequests : 0;
+    public static double getAverageResponseTime() {
+        return toMillis(averageResponseNanos(metrics.totals.snapshot()));
+    }
+
+    private static long totalRequests(final long[] totals) {
+        return totals[SUCCESSFUL] + totals[FAILED];
+    }
+
+    private static double averageResponseNanos(final long[] totals) {
+        long totalRequests = totalRequests(totals);
+        return totalRequests > 0 ? (double) totals[RESPONSE_TIME] / totalRequests : 0.0;
+    }
+
+    private static double successRate(final long[] totals) {
+        long totalRequests = totalRequests(totals);
+        return totalRequests > 0 ? (totals[SUCCESSFUL] * 100.0) / totalRequests : 0.0;
+    }
+
+    /**
+     * Get overall latency percentiles and max in milliseconds
+     */
+    public static Map<String, Object> getLatencyPercentiles() {
+        return latencyMap(metrics.latency.snapshot());
+    }
+
+    /**
+     * Get latency percentiles and max in milliseconds for each tracked endpoint
+     */
+    public static Map<String, Map<String, Object>> getEndpointLatencyPercentiles() {
+        Map<String, Map<String, Object>> endpoints = new TreeMap<>();
+        metrics.endpointMetrics.forEach((endpoint, histogram) -> endpoints.put(endpoint, latencyMap(histogram.snapshot())));
+        return endpoints;
+    }
+
+    /**
+     * Get request rate, error rate (%) and latency percentiles in milliseconds
+     * over the last 1, 5 and 15 minutes
+     */
+    public static Map<String, Map<String, Object>> getRollingMetrics() {
+        Map<String, Map<String, Object>> windows = new LinkedHashMap<>();
+        for (int i = 0; i < ROLLING_WINDOWS.length; i++) {
+            RollingMetrics.Window window = metrics.rolling.window(ROLLING_WINDOWS[i]);
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("requests", window.getRequests());
+            values.put("requestsPerSecond", window.getRequestsPerSecond());
+            values.put("errorRate", window.getErrorRate() * 100.0);
+            for (int p = 0; p < PERCENTILES.length; p++) {
+                values.put(PERCENTILE_NAMES[p], toMillis(window.getValueAtPercentile(PERCENTILES[p])));
+            }
+            values.put("max", toMillis(window.getMax()));
+            windows.put(ROLLING_WINDOW_NAMES[i], values);
+        }
+        return windows;
+    }
+
+    private static Map<String, Object> latencyMap(final LatencyHistogram.Snapshot snapshot) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("count", snapshot.getCount());
+        latency.put("mean", toMillis(snapshot.getMean()));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            latency.put(PERCENTILE_NAMES[i], toMillis(snapshot.getValueAtPercentile(PERCENTILES[i])));
+        }
+        latency.put("max", toMillis(snapshot.getMax()));
+        return latency;
     }
 
     /**
      * Get successful requests count
      */
     public static long getSuccessfulRequests() {
-        return metrics.successfulRequests.get();
+        return metrics.totals.sum(SUCCESSFUL);
     }
 
     /**
      * Get failed requests count
      */
     public static long getFailedRequests() {
-        return metrics.failedRequests.get();
+        return metrics.totals.sum(FAILED);
     }
 
     /**
      * Get success rate as percentage
      */
     public static double getSuccessRate() {
-        long totalRequests = metrics.totalRequests.get();
-        return totalRequests > 0 ? (metrics.successfulRequests.get() * 100.0) / totalRequests : 0.0;
+        return successRate(metrics.totals.snapshot());
     }
 }
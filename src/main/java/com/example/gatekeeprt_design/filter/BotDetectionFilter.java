@@ -1,21 +1,31 @@
 package com.example.gatekeeprt_design.filter;
 
+import com.example.gatekeeprt_design.botdetect.BotSignatures;
+import com.example.gatekeeprt_design.botdetect.SignatureFileWatcher;
+import com.example.gatekeeprt_design.botdetect.VerdictCache;
+import com.example.gatekeeprt_design.events.SecurityEvent;
+import com.example.gatekeeprt_design.events.SecurityEvents;
+import com.example.gatekeeprt_design.gateway.GatewayPipeline;
+import com.example.gatekeeprt_design.gateway.GatewayStage;
+import com.example.gatekeeprt_design.gateway.PipelineStage;
+import com.example.gatekeeprt_design.gateway.RequestContext;
+import com.example.gatekeeprt_design.metrics.StripedCounters;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import java.io.IOException;
-import java.util.*;
-import java.util.regex.Pattern;
+import java.nio.file.Paths;
 
 //@Component
 @Order(2)
-public class BotDetectionFilter implements Filter {
+public class BotDetectionFilter implements Filter, PipelineStage {
 
     /**
      * HTTP status code returned when bot is detected.
@@ -23,33 +33,40 @@ public class BotDetectionFilter implements Filter {
     private static final int BOT_DETECTED_STATUS = 403;
 
     /**
-     * List of common bot User-Agent patterns
+     * Verdicts of recently seen User-Agents; most traffic comes from a few browsers
      */
-    private static final List<Pattern> BOT_PATTERNS = Arrays.asList(
-            Pattern.compile("bot", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("crawler", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("spider", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("scraper", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("scrapy", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("curl", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("wget", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("python", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("java(?!script)", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("perl", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("ruby", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("googlebot", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("bingbot", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("slurp", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("duckduckbot", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("baiduspider", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("yandexbot", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("facebookexternalhit", Pattern.CASE_INSENSITIVE),
-            Pattern.compile("twitterbot", Pattern.CASE_INSENSITIVE));
+    private static final VerdictCache VERDICT_CACHE = new VerdictCache(4096);
 
     /**
      * Counter for detected bots
      */
-    private static long botDetectionCount = 0;
+    private static final StripedCounters botDetectionCount = new StripedCounters(1);
+
+    /**
+     * Active rule set; replaced atomically when the rule file changes
+     */
+    private volatile BotSignatures signatures;
+
+    /**
+     * Watcher of the external rule file, or null when using the built-in rules
+     */
+    private final SignatureFileWatcher watcher;
+
+    public BotDetectionFilter() {
+        this.signatures = BotSignatures.loadDefaults();
+        this.watcher = null;
+    }
+
+    @Autowired
+    public BotDetectionFilter(@Value("${gateway.bot-detection.signatures-file:}") final String signaturesFile)
+            throws IOException {
+        if (signaturesFile == null || signaturesFile.isBlank()) {
+            this.signatures = BotSignatures.loadDefaults();
+            this.watcher = null;
+        } else {
+            this.watcher = new SignatureFileWatcher(Paths.get(signaturesFile), s -> this.signatures = s);
+        }
+    }
 
     @Override
     public void doFilter(final ServletRequest request,
@@ -57,49 +74,75 @@ public class BotDetectionFilter implements Filter {
             final FilterChain chain)
             throws IOException, ServletException {
 
-        HttpServletRequest httpRequest = (HttpServletRequest) request;
-        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        GatewayPipeline.runStage(this, null, request, response, chain);
+    }
 
-        if (isBot(httpRequest)) {
-            botDetectionCount++;
-            httpResponse.setStatus(BOT_DETECTED_STATUS);
-            httpResponse.getWriter().write("Bot detected and blocked\n");
-            return;
-        }
+    @Override
+    public GatewayStage getStage() {
+        return GatewayStage.BOT_DETECTION;
+    }
 
-        chain.doFilter(request, response);
+    @Override
+    public boolean onRequest(final RequestContext context) throws IOException {
+        if (isBot(context.getUserAgent())) {
+            botDetectionCount.increment(0);
+            SecurityEvents.publish(SecurityEvent.Type.BOT_BLOCKED, context.getClientId(), context.getPath(),
+                    context.getUserAgent());
+            HttpServletResponse response = context.getResponse();
+            response.setStatus(BOT_DETECTED_STATUS);
+            response.getWriter().write("Bot detected and blocked\n");
+            return false;
+        }
+        return true;
     }
 
     /**
-     * Check if the request is from a bot by analyzing User-Agent header
+     * Check if the request is from a bot by analyzing its User-Agent header
      */
-    private boolean isBot(final HttpServletRequest request) {
-        String userAgent = request.getHeader("User-Agent");
-
+    private boolean isBot(final String userAgent) {
         if (userAgent == null || userAgent.isEmpty()) {
             return true; // No User-Agent is suspicious
         }
 
-        for (Pattern pattern : BOT_PATTERNS) {
-            if (pattern.matcher(userAgent).find()) {
-                return true;
+        return VERDICT_CACHE.isBot(userAgent, signatures);
+    }
+
+    @Override
+    public void destroy() {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                // Nothing left to release
             }
         }
-
-        return false;
     }
 
     /**
      * Get the total number of bots detected
      */
     public static long getBotDetectionCount() {
-        return botDetectionCount;
+        return botDetectionCount.sum(0);
+    }
+
+    /**
+     * Get the User-Agent verdict cache, for hit/miss statistics
+     */
+    public static VerdictCache getVerdictCache() {
+        return VERDICT_CACHE;
+    }
+
+    /**
+     * Add detections counted before a restart
+     */
+    public static void addBotDetectionCount(final long count) {
+        botDetectionCount.add(0, count);
     }
 
     /**
      * Reset the bot detection counter
      */
     public static void resetBotDetectionCount() {
-        botDetectionCount = 0;
+        botDetectionCount.reset();
     }
 }
@@ -1,41 +1,84 @@
 package com.example.gatekeeprt_design.filter;
 
+import com.example.gatekeeprt_design.config.RateLimitProperties;
+import com.example.gatekeeprt_design.events.SecurityEvent;
+import com.example.gatekeeprt_design.events.SecurityEvents;
+import com.example.gatekeeprt_design.gateway.GatewayPipeline;
+import com.example.gatekeeprt_design.gateway.GatewayStage;
+import com.example.gatekeeprt_design.gateway.PipelineStage;
+import com.example.gatekeeprt_design.gateway.RequestContext;
+import com.example.gatekeeprt_design.ratelimit.ClientStateStore;
+import com.example.gatekeeprt_design.ratelimit.ClusterRateLimiter;
+import com.example.gatekeeprt_design.ratelimit.LimiterState;
+import com.example.gatekeeprt_design.ratelimit.RateLimitPolicy;
+import com.example.gatekeeprt_design.ratelimit.RoutePolicyTable;
+import com.example.gatekeeprt_design.ratelimit.SavedClientStates;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.LongFunction;
 
 //@Component
-public class RateLimitingFilter implements Filter {
+public class RateLimitingFilter implements Filter, PipelineStage {
 
     /**
-     * Maximum number of requests allowed per client within the time window.
+     * HTTP status code returned when rate limit is exceeded.
      */
-    private static final int MAX_REQUESTS = 100;
+    private static final int TOO_MANY_REQUESTS = 429;
 
     /**
-     * Time window in milliseconds for rate limiting.
+     * Compiled route policies deciding which limit applies to a request.
      */
-    private static final long TIME_WINDOW = 60_000L;
+    private final RoutePolicyTable policies;
 
     /**
-     * HTTP status code returned when rate limit is exceeded.
+     * Bounded store of the limiter state of each client, one slot per policy.
      */
-    private static final int TOO_MANY_REQUESTS = 429;
+    private final ClientStateStore<AtomicReferenceArray<LimiterState>> requestMap;
+
+    private final LongFunction<AtomicReferenceArray<LimiterState>> newClient;
 
     /**
-     * Map that stores timestamps of recent requests per client.
+     * Limiter shared with the other gateway instances, or null to limit per instance.
      */
-    private final Map<String, Queue<Long>> requestMap = new ConcurrentHashMap<>();
+    private final ClusterRateLimiter cluster;
+
+    /**
+     * State from before a restart, consulted for clients not seen since; null if none.
+     */
+    private volatile SavedClientStates savedStates;
+
+    public RateLimitingFilter() {
+        this(new RateLimitProperties());
+    }
+
+    @Autowired
+    public RateLimitingFilter(final RateLimitProperties properties) {
+        this(properties.toPolicyTable(), properties.getMaxClients(), properties.toClusterLimiter());
+    }
+
+    public RateLimitingFilter(final RoutePolicyTable policies, final int maxClients) {
+        this(policies, maxClients, null);
+    }
+
+    public RateLimitingFilter(final RoutePolicyTable policies, final int maxClients,
+            final ClusterRateLimiter cluster) {
+        this.policies = policies;
+        this.cluster = cluster;
+        int slots = policies.getPolicies().size();
+        this.newClient = now -> new AtomicReferenceArray<>(slots);
+        // A client idle for its longest window is indistinguishable from a new one
+        this.requestMap = new ClientStateStore<>(maxClients, policies.getLongestWindow(), TimeUnit.NANOSECONDS);
+    }
 
     @Override
     public final void doFilter(final ServletRequest request,
@@ -43,39 +86,86 @@ public class RateLimitingFilter implements Filter {
             final FilterChain chain)
             throws IOException, ServletException {
 
-        HttpServletRequest httpRequest = (HttpServletRequest) request;
-        HttpServletResponse httpResponse = (HttpServletResponse) response;
-
-        if (!isAllowed(getClientId(httpRequest))) {
-            httpResponse.setStatus(TOO_MANY_REQUESTS);
-            httpResponse.getWriter().write("Rate limit exceeded\n");
-            return;
-        }
+        GatewayPipeline.runStage(this, policies, request, response, chain);
+    }
 
-        chain.doFilter(request, response);
+    @Override
+    public GatewayStage getStage() {
+        return GatewayStage.RATE_LIMITING;
     }
 
-    private String getClientId(final HttpServletRequest request) {
-        String clientId = request.getHeader("X-Forwarded-For");
-        if (clientId == null || clientId.isEmpty()) {
-            clientId = request.getRemoteAddr();
+    @Override
+    public boolean onRequest(final RequestContext context) throws IOException {
+        RateLimitPolicy route = context.getRoute(policies);
+        if (!isAllowed(context.getClientId(), route)) {
+            SecurityEvents.publish(SecurityEvent.Type.RATE_LIMITED, context.getClientId(), context.getPath(),
+                    route.getPattern());
+            HttpServletResponse response = context.getResponse();
+            response.setStatus(TOO_MANY_REQUESTS);
+            response.getWriter().write("Rate limit exceeded\n");
+            return false;
         }
-        return clientId;
+        return true;
     }
 
-    private boolean isAllowed(final String clientId) {
-        long now = System.currentTimeMillis();
-        Queue<Long> requests = requestMap.computeIfAbsent(
-                clientId, k -> new LinkedList<>());
+    private boolean isAllowed(final String clientId, final RateLimitPolicy policy) {
+        if (cluster != null) {
+            return cluster.tryAcquire(clientId, policy);
+        }
+        long now = System.nanoTime();
+        AtomicReferenceArray<LimiterState> states = requestMap.get(clientId, now, newClient);
 
-        while (!requests.isEmpty() && requests.peek() < now - TIME_WINDOW) {
-            requests.poll();
+        int slot = policy.getId();
+        LimiterState state = states.get(slot);
+        if (state == null) {
+            SavedClientStates saved = savedStates;
+            LimiterState restored = saved != null ? saved.restore(clientId, policy) : null;
+            states.compareAndSet(slot, null, restored != null ? restored : policy.getLimiter().newState(now));
+            state = states.get(slot);
         }
+        return policy.getLimiter().tryAcquire(state, now);
+    }
+
+    /**
+     * Get the compiled route policies
+     */
+    public RoutePolicyTable getPolicies() {
+        return policies;
+    }
+
+    /**
+     * Get the client table, for occupancy and eviction statistics
+     */
+    public ClientStateStore<?> getClientStore() {
+        return requestMap;
+    }
+
+    /**
+     * Visit the limiter state of every tracked client, one slot per policy id
+     */
+    public void forEachClient(final BiConsumer<String, AtomicReferenceArray<LimiterState>> action) {
+        requestMap.forEach(action);
+    }
+
+    /**
+     * Set where state of clients not seen since a restart is looked up, or null
+     */
+    public void setSavedStates(final SavedClientStates savedStates) {
+        this.savedStates = savedStates;
+    }
 
-        if (requests.size() < MAX_REQUESTS) {
-            requests.offer(now);
-            return true;
+    /**
+     * Get the cluster-wide limiter, or null when limits are per instance
+     */
+    public ClusterRateLimiter getCluster() {
+        return cluster;
+    }
+
+    @Override
+    public void destroy() {
+        requestMap.close();
+        if (cluster != null) {
+            cluster.close();
         }
-        return false;
     }
 }
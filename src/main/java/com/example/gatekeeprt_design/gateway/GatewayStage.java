@@ -0,0 +1,53 @@
+package com.example.gatekeeprt_design.gateway;
+
+import com.example.gatekeeprt_design.filter.BehaviorScoringFilter;
+import com.example.gatekeeprt_design.filter.BenchmarkFilter;
+import com.example.gatekeeprt_design.filter.BotDetectionFilter;
+import com.example.gatekeeprt_design.filter.RateLimitingFilter;
+import jakarta.servlet.Filter;
+
+/**
+ * Protection and measurement stages of the gateway, each backed by a filter.
+ */
+public enum GatewayStage {
+
+    BENCHMARK("benchmark", BenchmarkFilter.class),
+    RATE_LIMITING("rate-limiting", RateLimitingFilter.class),
+    BOT_DETECTION("bot-detection", BotDetectionFilter.class),
+    BEHAVIOR_SCORING("behavior-scoring", BehaviorScoringFilter.class);
+
+    private final String id;
+    private final Class<? extends Filter> filterType;
+
+    GatewayStage(final String id, final Class<? extends Filter> filterType) {
+        this.id = id;
+        this.filterType = filterType;
+    }
+
+    /**
+     * Name used in the admin API, e.g. {@code rate-limiting}.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public Class<? extends Filter> getFilterType() {
+        return filterType;
+    }
+
+    int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Look up a stage by its admin API name.
+     */
+    public static GatewayStage fromId(final String id) {
+        for (GatewayStage stage : values()) {
+            if (stage.id.equals(id)) {
+                return stage;
+            }
+        }
+        throw new IllegalArgumentException("Unknown gateway stage: " + id);
+    }
+}
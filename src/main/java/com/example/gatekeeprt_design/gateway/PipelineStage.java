@@ -0,0 +1,24 @@
+package com.example.gatekeeprt_design.gateway;
+
+import java.io.IOException;
+
+/**
+ * One step of the {@link GatewayPipeline}.
+ */
+public interface PipelineStage {
+
+    GatewayStage getStage();
+
+    /**
+     * Inspect an incoming request. Return false to reject it, after writing
+     * the response; later stages and the application are then skipped.
+     */
+    boolean onRequest(RequestContext context) throws IOException;
+
+    /**
+     * Called once the response status is known, for every stage whose
+     * {@link #onRequest} ran, in reverse order.
+     */
+    default void onResponse(final RequestContext context, final int status) {
+    }
+}
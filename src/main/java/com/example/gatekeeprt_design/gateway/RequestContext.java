@@ -0,0 +1,117 @@
+package com.example.gatekeeprt_design.gateway;
+
+import com.example.gatekeeprt_design.ratelimit.RateLimitPolicy;
+import com.example.gatekeeprt_design.ratelimit.RoutePolicyTable;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * What the gateway stages need to know about a request, worked out once when
+ * it enters the pipeline: client id, User-Agent, method, path and the
+ * matching route policy. Stages may also leave per-request state for their
+ * own response callback.
+ */
+public final class RequestContext {
+
+    private static final int STAGE_COUNT = GatewayStage.values().length;
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final long startNanos;
+    private final String clientId;
+    private final String userAgent;
+    private final String method;
+    private final String path;
+    private final RoutePolicyTable routes;
+    private final RateLimitPolicy route;
+
+    private Object[] stageState;
+
+    /**
+     * @param routes route table to match the request against, or null when
+     *               no stage needs a route
+     */
+    public RequestContext(final HttpServletRequest request, final HttpServletResponse response,
+            final RoutePolicyTable routes) {
+        this.request = request;
+        this.response = response;
+        this.startNanos = System.nanoTime();
+        this.clientId = clientIdOf(request);
+        this.userAgent = request.getHeader("User-Agent");
+        this.method = request.getMethod();
+        this.path = request.getRequestURI();
+        this.routes = routes;
+        this.route = routes != null ? routes.match(method, path) : null;
+    }
+
+    /**
+     * Client id of a request: the X-Forwarded-For header, else the remote address.
+     */
+    public static String clientIdOf(final HttpServletRequest request) {
+        String clientId = request.getHeader("X-Forwarded-For");
+        if (clientId == null || clientId.isEmpty()) {
+            clientId = request.getRemoteAddr();
+        }
+        return clientId;
+    }
+
+    public HttpServletRequest getRequest() {
+        return request;
+    }
+
+    public HttpServletResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * {@link System#nanoTime()} when the request entered the gateway.
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * The User-Agent header, or null when absent.
+     */
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * The policy of {@code table} matching this request; free when it is
+     * the table the context was built with.
+     */
+    public RateLimitPolicy getRoute(final RoutePolicyTable table) {
+        return table == routes ? route : table.match(method, path);
+    }
+
+    /**
+     * Id of the precomputed route policy, or -1 when no route table was given.
+     */
+    public int getRouteId() {
+        return route != null ? route.getId() : -1;
+    }
+
+    public Object getStageState(final GatewayStage stage) {
+        return stageState != null ? stageState[stage.ordinal()] : null;
+    }
+
+    public void setStageState(final GatewayStage stage, final Object state) {
+        if (stageState == null) {
+            stageState = new Object[STAGE_COUNT];
+        }
+        stageState[stage.ordinal()] = state;
+    }
+}
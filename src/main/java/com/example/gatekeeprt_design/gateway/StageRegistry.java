@@ -0,0 +1,131 @@
+package com.example.gatekeeprt_design.gateway;
+
+import jakarta.servlet.Filter;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Which gateway stages are installed and which are switched on.
+ *
+ * <p>Installed stages are resolved once, when the application context is
+ * refreshed, by looking up the filter bean of every {@link GatewayStage} and
+ * the stages of any {@link GatewayPipeline}. Stages can then be switched off
+ * and on again at runtime. Both facts live in one atomic int (installed bits
+ * in the low half, switched-off bits in the high half), so every read is a
+ * single volatile load and never touches the bean factory. The resolved
+ * filter beans are kept as well, for callers that need their statistics,
+ * by name: the bean name of a standalone filter, or the pipeline's bean name
+ * and the stage id, e.g. {@code gatewayPipeline.rate-limiting}, for a
+ * pipeline stage.
+ */
+@Component
+public class StageRegistry implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final int SWITCHED_OFF_SHIFT = 16;
+
+    private static final AtomicInteger state = new AtomicInteger(0);
+
+    private static volatile Map<GatewayStage, Map<String, Filter>> filters = Map.of();
+
+    @Override
+    public void onApplicationEvent(final ContextRefreshedEvent event) {
+        ApplicationContext ctx = event.getApplicationContext();
+        Map<GatewayStage, Map<String, Filter>> resolved = new EnumMap<>(GatewayStage.class);
+        for (GatewayStage stage : GatewayStage.values()) {
+            resolved.put(stage, new LinkedHashMap<>(ctx.getBeansOfType(stage.getFilterType(), true, false)));
+        }
+        for (Map.Entry<String, GatewayPipeline> pipeline
+                : ctx.getBeansOfType(GatewayPipeline.class, true, false).entrySet()) {
+            for (PipelineStage stage : pipeline.getValue().getStages()) {
+                if (stage instanceof Filter filter) {
+                    resolved.get(stage.getStage()).put(pipeline.getKey() + "." + stage.getStage().getId(), filter);
+                }
+            }
+        }
+        int installed = 0;
+        for (Map.Entry<GatewayStage, Map<String, Filter>> entry : resolved.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                installed |= entry.getKey().bit();
+            }
+            entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+        }
+        filters = Collections.unmodifiableMap(resolved);
+        int installedBits = installed;
+        state.updateAndGet(s -> (s & ~((1 << SWITCHED_OFF_SHIFT) - 1)) | installedBits);
+    }
+
+    /**
+     * Filter beans of a stage found at the last context refresh.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Filter> List<T> getFilters(final GatewayStage stage) {
+        return (List<T>) List.copyOf(filters.getOrDefault(stage, Map.of()).values());
+    }
+
+    /**
+     * Filter beans of a stage found at the last context refresh, by name.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Filter> Map<String, T> getNamedFilters(final GatewayStage stage) {
+        return (Map<String, T>) filters.getOrDefault(stage, Map.of());
+    }
+
+    /**
+     * Whether the stage's filter is registered in the application context.
+     */
+    public static boolean isInstalled(final GatewayStage stage) {
+        return (state.get() & stage.bit()) != 0;
+    }
+
+    /**
+     * Whether the stage has been switched off at runtime. Filters consult
+     * this on every request and pass the request straight on when it is set.
+     */
+    public static boolean isSwitchedOff(final GatewayStage stage) {
+        return (state.get() & (stage.bit() << SWITCHED_OFF_SHIFT)) != 0;
+    }
+
+    /**
+     * Whether the stage is installed and switched on.
+     */
+    public static boolean isEnabled(final GatewayStage stage) {
+        int s = state.get();
+        return (s & stage.bit()) != 0 && (s & (stage.bit() << SWITCHED_OFF_SHIFT)) == 0;
+    }
+
+    /**
+     * Switch a stage on or off at runtime; returns whether it was switched on before.
+     */
+    public static boolean setSwitchedOn(final GatewayStage stage, final boolean on) {
+        int offBit = stage.bit() << SWITCHED_OFF_SHIFT;
+        int previous = state.getAndUpdate(s -> on ? s & ~offBit : s | offBit);
+        return (previous & offBit) == 0;
+    }
+
+    /**
+     * State of every stage, keyed by stage id.
+     */
+    public static Map<String, Map<String, Object>> describe() {
+        int s = state.get();
+        Map<String, Map<String, Object>> stages = new LinkedHashMap<>();
+        for (GatewayStage stage : GatewayStage.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            boolean installed = (s & stage.bit()) != 0;
+            boolean switchedOn = (s & (stage.bit() << SWITCHED_OFF_SHIFT)) == 0;
+            entry.put("installed", installed);
+            entry.put("switchedOn", switchedOn);
+            entry.put("enabled", installed && switchedOn);
+            stages.put(stage.getId(), entry);
+        }
+        return stages;
+    }
+}
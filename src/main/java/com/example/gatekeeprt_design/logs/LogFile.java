@@ -0,0 +1,533 @@
+package com.example.gatekeeprt_design.logs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Read-only, memory-mapped view of a text log that may still be growing.
+ *
+ * <p>The file is mapped in fixed-size segments, so files beyond 2GB work and
+ * nothing is copied onto the heap except the lines of the page being served.
+ * A sparse line index records the byte offset of every
+ * {@value #DEFAULT_INDEX_INTERVAL}th line; finding line N is one array lookup
+ * plus a scan over fewer than that many lines, whatever the file size. The
+ * last N lines are found the same way from the total line count.
+ *
+ * <p>{@link #refresh()} extends the index over bytes appended since the last
+ * call instead of rescanning the file. A file that got shorter, or whose
+ * first bytes changed (truncated in place and written past its old size
+ * again, as copytruncate rotation does), is indexed again from the start.
+ * Readers always see a consistent index: each refresh publishes a new
+ * immutable view, and a reader that finds another refresh in progress keeps
+ * using the previous one rather than waiting. A read that touches a mapped
+ * page the file no longer has fails with an {@link UncheckedIOException};
+ * the next refresh maps what is left.
+ */
+public final class LogFile implements AutoCloseable {
+
+    static final int DEFAULT_INDEX_INTERVAL = 1024;
+
+    /**
+     * Mapped segments of 1GB.
+     */
+    static final int DEFAULT_SEGMENT_BITS = 30;
+
+    /**
+     * Leading bytes compared on every refresh to notice a rewritten file.
+     */
+    static final int HEAD_BYTES = 256;
+
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int indexInterval;
+    private final int segmentBits;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Index index;
+
+    /**
+     * Times the file was found truncated or rewritten; written under {@code refreshing} only.
+     */
+    private volatile int rewrites;
+
+    public static LogFile open(final Path path) throws IOException {
+        return new LogFile(path, DEFAULT_INDEX_INTERVAL, DEFAULT_SEGMENT_BITS);
+    }
+
+    LogFile(final Path path, final int indexInterval, final int segmentBits) throws IOException {
+        if (indexInterval <= 0) {
+            throw new IllegalArgumentException("indexInterval must be positive");
+        }
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.indexInterval = indexInterval;
+        this.segmentBits = segmentBits;
+        this.index = Index.empty();
+        refresh();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Index any bytes appended since the last refresh.
+     */
+    public void refresh() throws IOException {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Index current = index;
+            long size = channel.size();
+            if (size < current.size || !startsWith(current.head)) {
+                rewrites++;
+                index = extend(Index.empty(), size);
+            } else if (size != current.size) {
+                index = extend(current, size);
+            }
+        } catch (InternalError e) {
+            // Truncated again while being indexed; the next refresh starts over
+            rewrites++;
+            index = Index.empty();
+            throw new IOException(path + " changed while being indexed", e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Number of times the file was found truncated or rewritten and indexed
+     * again from the start; offsets taken before a change no longer apply.
+     */
+    public int getRewriteCount() {
+        return rewrites;
+    }
+
+    /**
+     * The first bytes of the file as of the last refresh, at most
+     * {@link #HEAD_BYTES}; {@link #startsWith} tells whether a later or
+     * reopened view still has the same content.
+     */
+    byte[] getHead() {
+        return index.head;
+    }
+
+    boolean startsWith(final byte[] head) throws IOException {
+        return head.length == 0 || Arrays.equals(head, readHead(head.length));
+    }
+
+    /**
+     * Up to {@code length} bytes from the start of the file, read without
+     * the mapping so a shorter file cannot fault.
+     */
+    private byte[] readHead(final int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+            // Positional reads until full or end of file
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private Index extend(final Index base, final long size) throws IOException {
+        MappedByteBuffer[] segments = map(base.segments, size);
+        long[] marks = base.marks;
+        int markCount = base.markCount;
+        long lines = base.lines;
+        long completeLength = base.completeLength;
+
+        byte[] head = base.head.length < HEAD_BYTES && size > base.head.length
+                ? readHead((int) Math.min(size, HEAD_BYTES)) : base.head;
+
+        long pos = base.size;
+        while (pos < size) {
+            MappedByteBuffer segment = segments[(int) (pos >>> segmentBits)];
+            long segmentStart = pos & -(1L << segmentBits);
+            int end = segment.limit();
+            int i = (int) (pos - segmentStart);
+            while (i < end) {
+                // Skip eight bytes at a time; only words holding a newline are looked at bytewise
+                if (i + Long.BYTES <= end && !hasNewline(segment.getLong(i))) {
+                    i += Long.BYTES;
+                    continue;
+                }
+                for (int stop = Math.min(i + Long.BYTES, end); i < stop; i++) {
+                    if (segment.get(i) == '\n') {
+                        lines++;
+                        completeLength = segmentStart + i + 1;
+                        if (lines % indexInterval == 0) {
+                            if (markCount == marks.length) {
+                                marks = Arrays.copyOf(marks, markCount * 2);
+                            }
+                            marks[markCount++] = completeLength;
+                        }
+                    }
+                }
+            }
+            pos = segmentStart + end;
+        }
+        return new Index(size, lines, completeLength, marks, markCount, segments, head);
+    }
+
+    /**
+     * Whether any of the eight bytes of {@code word} is a newline.
+     */
+    static boolean hasNewline(final long word) {
+        long x = word ^ NEWLINES;
+        return ((x - LOW_BITS) & ~x & HIGH_BITS) != 0;
+    }
+
+    /**
+     * Segments covering {@code size} bytes, reusing those already mapped in full.
+     */
+    private MappedByteBuffer[] map(final MappedByteBuffer[] previous, final long size) throws IOException {
+        long segmentSize = 1L << segmentBits;
+        int count = (int) ((size + segmentSize - 1) >>> segmentBits);
+        MappedByteBuffer[] segments = Arrays.copyOf(previous, count);
+        for (int i = 0; i < count; i++) {
+            long start = (long) i << segmentBits;
+            long length = Math.min(segmentSize, size - start);
+            if (segments[i] == null || segments[i].capacity() != length) {
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Size in bytes as of the last refresh.
+     */
+    public long getSize() {
+        return index.size;
+    }
+
+    /**
+     * Number of lines as of the last refresh, counting a final line without
+     * a trailing newline.
+     */
+    public long getLineCount() {
+        return index.lineCount();
+    }
+
+    /**
+     * Length of the file up to and including its last newline; where a
+     * follower should start reading to see only lines written from now on.
+     */
+    public long getCompleteLength() {
+        return index.completeLength;
+    }
+
+    /**
+     * Up to {@code maxLines} lines starting at 0-based {@code firstLine},
+     * stopping early once {@code maxBytes} have been read.
+     */
+    public Page lines(final long firstLine, final int maxLines, final int maxBytes) {
+        Index ix = index;
+        long first = Math.max(0, Math.min(firstLine, ix.lineCount()));
+        try {
+            return read(ix, first, lineStart(ix, first), maxLines, maxBytes, false);
+        } catch (InternalError e) {
+            throw truncated(e);
+        }
+    }
+
+    /**
+     * The last {@code lines} lines, at most {@code maxBytes} of them.
+     */
+    public Page tail(final int lines, final int maxBytes) {
+        return lines(index.lineCount() - lines, lines, maxBytes);
+    }
+
+    /**
+     * Whole lines from byte {@code offset} on, at most {@code maxBytes} of
+     * them; an offset inside a line starts at the next one. With
+     * {@code completeOnly}, a last line still missing its newline is left out,
+     * so it is not returned before it has been fully written.
+     */
+    public Page range(final long offset, final int maxBytes, final boolean completeOnly) {
+        Index ix = index;
+        try {
+            long start = alignToLine(ix, Math.max(0, Math.min(offset, ix.size)));
+            long firstLine = lineAt(ix, start);
+            return read(ix, firstLine, start, Integer.MAX_VALUE, maxBytes, completeOnly);
+        } catch (InternalError e) {
+            throw truncated(e);
+        }
+    }
+
+    /**
+     * Call {@code visitor} with every line that starts in [from, to), with
+     * {@code from} aligned as in {@link #range}, until it returns false.
+     * Lines longer than {@code maxLineBytes} are cut. Splitting a file at
+     * arbitrary offsets and scanning the parts visits each line exactly once.
+     */
+    public void scan(final long from, final long to, final int maxLineBytes, final LineVisitor visitor) {
+        Index ix = index;
+        try {
+            long pos = alignToLine(ix, Math.max(0, Math.min(from, ix.size)));
+            long end = Math.min(to, ix.size);
+            long line = lineAt(ix, pos);
+            while (pos < end) {
+                long newline = ix.nextNewline(pos, ix.size, segmentBits);
+                long lineEnd = newline < 0 ? ix.size : newline;
+                String text = ix.decode(pos, (int) Math.min(lineEnd - pos, maxLineBytes), segmentBits);
+                if (!visitor.visit(line++, text)) {
+                    return;
+                }
+                pos = newline < 0 ? ix.size : newline + 1;
+            }
+        } catch (InternalError e) {
+            throw truncated(e);
+        }
+    }
+
+    /**
+     * What touching a mapped page past the end of a truncated file raises.
+     */
+    private UncheckedIOException truncated(final InternalError e) {
+        return new UncheckedIOException(new IOException(path + " was truncated while being read", e));
+    }
+
+    private long alignToLine(final Index ix, final long offset) {
+        if (offset == 0 || ix.byteAt(offset - 1, segmentBits) == '\n') {
+            return offset;
+        }
+        long newline = ix.nextNewline(offset, ix.size, segmentBits);
+        return newline < 0 ? ix.size : newline + 1;
+    }
+
+    private Page read(final Index ix, final long firstLine, final long start, final int maxLines,
+            final int maxBytes, final boolean completeOnly) {
+        long end = completeOnly ? ix.completeLength : ix.size;
+        List<String> lines = new ArrayList<>();
+        long pos = start;
+        long budget = maxBytes;
+        while (pos < end && lines.size() < maxLines) {
+            long newline = ix.nextNewline(pos, end, segmentBits);
+            long lineEnd = newline < 0 ? end : newline;
+            long next = newline < 0 ? end : newline + 1;
+            long length = lineEnd - pos;
+            if (length > budget) {
+                if (!lines.isEmpty()) {
+                    break;
+                }
+                // A single line longer than the page: show its head and move past it
+                length = budget;
+            }
+            lines.add(ix.decode(pos, (int) length, segmentBits));
+            budget -= next - pos;
+            pos = next;
+            if (budget <= 0) {
+                break;
+            }
+        }
+        return new Page(firstLine, lines, start, pos, ix.lineCount(), ix.size);
+    }
+
+    /**
+     * Byte offset where 0-based {@code line} starts.
+     */
+    private long lineStart(final Index ix, final long line) {
+        int mark = (int) Math.min(line / indexInterval, ix.markCount - 1);
+        long pos = ix.marks[mark];
+        for (long skip = line - (long) mark * indexInterval; skip > 0; skip--) {
+            long newline = ix.nextNewline(pos, ix.size, segmentBits);
+            if (newline < 0) {
+                return ix.size;
+            }
+            pos = newline + 1;
+        }
+        return pos;
+    }
+
+    /**
+     * 0-based number of the line starting at {@code offset}, a line start.
+     */
+    private long lineAt(final Index ix, final long offset) {
+        int mark = Arrays.binarySearch(ix.marks, 0, ix.markCount, offset);
+        if (mark < 0) {
+            mark = -mark - 2;
+        }
+        long line = (long) mark * indexInterval;
+        long pos = ix.marks[mark];
+        while (pos < offset) {
+            long newline = ix.nextNewline(pos, offset, segmentBits);
+            if (newline < 0) {
+                break;
+            }
+            line++;
+            pos = newline + 1;
+        }
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Mapped segments stay readable until collected, so readers in flight are unaffected
+        channel.close();
+    }
+
+    /**
+     * Immutable view of the indexed part of the file. The marks array is
+     * shared with later views, which only ever append past this view's count.
+     */
+    private static final class Index {
+
+        final long size;
+        final long lines;
+        final long completeLength;
+        final long[] marks;
+        final int markCount;
+        final MappedByteBuffer[] segments;
+
+        /**
+         * The first {@link #HEAD_BYTES} bytes, or the whole file if shorter.
+         */
+        final byte[] head;
+
+        Index(final long size, final long lines, final long completeLength, final long[] marks,
+                final int markCount, final MappedByteBuffer[] segments, final byte[] head) {
+            this.size = size;
+            this.lines = lines;
+            this.completeLength = completeLength;
+            this.marks = marks;
+            this.markCount = markCount;
+            this.segments = segments;
+            this.head = head;
+        }
+
+        static Index empty() {
+            return new Index(0, 0, 0, new long[16], 1, new MappedByteBuffer[0], new byte[0]);
+        }
+
+        long lineCount() {
+            return size > completeLength ? lines + 1 : lines;
+        }
+
+        byte byteAt(final long pos, final int segmentBits) {
+            return segments[(int) (pos >>> segmentBits)].get((int) (pos & ((1L << segmentBits) - 1)));
+        }
+
+        /**
+         * Offset of the first newline in [from, to), or -1.
+         */
+        long nextNewline(final long from, final long to, final int segmentBits) {
+            long pos = from;
+            while (pos < to) {
+                MappedByteBuffer segment = segments[(int) (pos >>> segmentBits)];
+                long segmentStart = pos & -(1L << segmentBits);
+                int end = (int) Math.min(segment.limit(), to - segmentStart);
+                int i = (int) (pos - segmentStart);
+                while (i + Long.BYTES <= end && !hasNewline(segment.getLong(i))) {
+                    i += Long.BYTES;
+                }
+                for (; i < end; i++) {
+                    if (segment.get(i) == '\n') {
+                        return segmentStart + i;
+                    }
+                }
+                pos = segmentStart + end;
+            }
+            return -1;
+        }
+
+        String decode(final long from, final int length, final int segmentBits) {
+            byte[] bytes = new byte[length];
+            int copied = 0;
+            while (copied < length) {
+                long pos = from + copied;
+                MappedByteBuffer segment = segments[(int) (pos >>> segmentBits)];
+                int offset = (int) (pos & ((1L << segmentBits) - 1));
+                int n = Math.min(length - copied, segment.limit() - offset);
+                segment.get(offset, bytes, copied, n);
+                copied += n;
+            }
+            int len = length > 0 && bytes[length - 1] == '\r' ? length - 1 : length;
+            return new String(bytes, 0, len, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Receives lines from {@link #scan}.
+     */
+    @FunctionalInterface
+    public interface LineVisitor {
+
+        /**
+         * @param line 0-based line number
+         * @return false to stop the scan
+         */
+        boolean visit(long line, String text);
+    }
+
+    /**
+     * A run of consecutive lines and where it sits in the file.
+     */
+    public static final class Page {
+
+        private final long firstLine;
+        private final List<String> lines;
+        private final long startOffset;
+        private final long endOffset;
+        private final long totalLines;
+        private final long fileSize;
+
+        Page(final long firstLine, final List<String> lines, final long startOffset, final long endOffset,
+                final long totalLines, final long fileSize) {
+            this.firstLine = firstLine;
+            this.lines = List.copyOf(lines);
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.totalLines = totalLines;
+            this.fileSize = fileSize;
+        }
+
+        /**
+         * 0-based number of the first line of the page.
+         */
+        public long getFirstLine() {
+            return firstLine;
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+
+        public String getText() {
+            return String.join("\n", lines);
+        }
+
+        public long getStartOffset() {
+            return startOffset;
+        }
+
+        /**
+         * Byte offset where the next page starts.
+         */
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        public long getTotalLines() {
+            return totalLines;
+        }
+
+        public long getFileSize() {
+            return fileSize;
+        }
+    }
+}
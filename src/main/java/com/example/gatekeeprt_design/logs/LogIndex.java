@@ -0,0 +1,296 @@
+package com.example.gatekeeprt_design.logs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Inverted index from token to line numbers for one log file, extended as
+ * lines are appended.
+ *
+ * <p>Tokens are maximal runs of letters, digits and {@code . _ @ -}, lower
+ * cased, so IPs ({@code 192.168.1.10}), user names, e-mail addresses and log
+ * levels are single tokens. Each token's postings are the ascending line
+ * numbers it occurs on, stored as varint-encoded gaps in a growable byte
+ * array: a token seen on consecutive lines costs one byte per line.
+ *
+ * <p>One thread extends the index; any number of threads may query it.
+ * Postings written by an {@link #add} batch become visible to queries
+ * together when {@link #publish} is called.
+ */
+final class LogIndex {
+
+    /**
+     * Longer tokens (hashes, payloads) are not indexed; queries for them scan.
+     */
+    static final int MAX_TOKEN_LENGTH = 64;
+
+    private final int maxTokens;
+    private final Map<String, Postings> postings = new ConcurrentHashMap<>();
+    private final List<Postings> dirty = new ArrayList<>();
+
+    /**
+     * Byte offset and line number up to which lines have been published.
+     */
+    private volatile long indexedOffset;
+    private volatile int indexedLines;
+
+    /**
+     * Set once the token limit was hit; tokens first seen after that are
+     * missing from the index, so queries for unknown tokens must scan.
+     */
+    private volatile boolean saturated;
+
+    LogIndex(final int maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    /**
+     * Index one line; lines must be added in order.
+     */
+    void add(final int line, final String text) {
+        forEachToken(text, token -> {
+            if (token.length() > MAX_TOKEN_LENGTH) {
+                return;
+            }
+            Postings p = postings.get(token);
+            if (p == null) {
+                if (postings.size() >= maxTokens) {
+                    saturated = true;
+                    return;
+                }
+                p = new Postings();
+                postings.put(token, p);
+            }
+            if (p.append(line)) {
+                dirty.add(p);
+            }
+        });
+    }
+
+    /**
+     * Make lines added so far visible to queries.
+     */
+    void publish(final long offset, final int lines) {
+        for (Postings p : dirty) {
+            p.publish();
+        }
+        dirty.clear();
+        indexedOffset = offset;
+        indexedLines = lines;
+    }
+
+    long getIndexedOffset() {
+        return indexedOffset;
+    }
+
+    int getIndexedLines() {
+        return indexedLines;
+    }
+
+    int getTokenCount() {
+        return postings.size();
+    }
+
+    /**
+     * Lines containing all {@code tokens}, ascending, or null when the index
+     * cannot tell because a token is not indexed.
+     */
+    int[] lookup(final List<String> tokens) {
+        return lookup(tokens, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The first {@code limit} lines containing all {@code tokens}. Postings
+     * are decoded only as far as needed to find them, rarest token first.
+     */
+    int[] lookup(final List<String> tokens, final int limit) {
+        Cursor[] cursors = new Cursor[tokens.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            String token = tokens.get(i);
+            Postings p = token.length() <= MAX_TOKEN_LENGTH ? postings.get(token) : null;
+            if (p == null) {
+                return saturated || token.length() > MAX_TOKEN_LENGTH ? null : new int[0];
+            }
+            cursors[i] = p.cursor();
+        }
+        if (cursors.length == 0) {
+            return new int[0];
+        }
+        Arrays.sort(cursors, (a, b) -> Integer.compare(a.count, b.count));
+        int[] out = new int[Math.min(limit, cursors[0].count)];
+        int n = 0;
+        candidates:
+        for (int line; n < out.length && (line = cursors[0].next()) >= 0;) {
+            for (int i = 1; i < cursors.length; i++) {
+                int other = cursors[i].skipTo(line);
+                if (other < 0) {
+                    break candidates;
+                }
+                if (other != line) {
+                    continue candidates;
+                }
+            }
+            out[n++] = line;
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Call {@code action} with each token of {@code text}, lower cased.
+     */
+    static void forEachToken(final String text, final Consumer<String> action) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !isTokenChar(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && isTokenChar(text.charAt(i))) {
+                i++;
+            }
+            int end = i;
+            // Sentence punctuation and dashes at the edges are not part of the token
+            while (start < end && isEdgePunctuation(text.charAt(start))) {
+                start++;
+            }
+            while (end > start && isEdgePunctuation(text.charAt(end - 1))) {
+                end--;
+            }
+            if (end > start) {
+                action.accept(text.substring(start, end).toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    /**
+     * Tokens of a query, in order, without duplicates.
+     */
+    static List<String> tokens(final String text) {
+        List<String> tokens = new ArrayList<>();
+        forEachToken(text, token -> {
+            if (!tokens.contains(token)) {
+                tokens.add(token);
+            }
+        });
+        return tokens;
+    }
+
+    private static boolean isTokenChar(final char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '@' || c == '-';
+    }
+
+    private static boolean isEdgePunctuation(final char c) {
+        return c == '.' || c == '-';
+    }
+
+    /**
+     * Ascending line numbers of one token as varint-encoded gaps.
+     */
+    private static final class Postings {
+
+        private byte[] data = new byte[4];
+        private int size;
+        private int count;
+        private int last = -1;
+        private boolean changed;
+
+        private volatile byte[] publishedData = data;
+        private volatile int publishedSize;
+        private volatile int publishedCount;
+
+        /**
+         * Returns true if this is the first change since the last publish.
+         */
+        boolean append(final int line) {
+            if (line == last) {
+                return false;
+            }
+            boolean first = !changed;
+            changed = true;
+            int gap = count == 0 ? line : line - last;
+            if (size + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + 5));
+            }
+            while ((gap & ~0x7F) != 0) {
+                data[size++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            data[size++] = (byte) gap;
+            count++;
+            last = line;
+            return first;
+        }
+
+        void publish() {
+            changed = false;
+            publishedData = data;
+            publishedCount = count;
+            publishedSize = size;
+        }
+
+        Cursor cursor() {
+            // Size first: the array read afterwards is at least as new
+            int size = publishedSize;
+            int count = publishedCount;
+            return new Cursor(publishedData, size, count);
+        }
+    }
+
+    /**
+     * Reads one published postings list in order.
+     */
+    private static final class Cursor {
+
+        final byte[] data;
+        final int size;
+        final int count;
+        private int pos;
+        private int read;
+        private int line;
+
+        Cursor(final byte[] data, final int size, final int count) {
+            this.data = data;
+            this.size = size;
+            this.count = count;
+        }
+
+        /**
+         * The next line, or -1 at the end.
+         */
+        int next() {
+            if (read >= count || pos >= size) {
+                return -1;
+            }
+            int gap = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = data[pos++];
+                gap |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            line = read++ == 0 ? gap : line + gap;
+            return line;
+        }
+
+        /**
+         * The first line at or after {@code target}, or -1 if there is none.
+         */
+        int skipTo(final int target) {
+            if (read > 0 && line >= target) {
+                return line;
+            }
+            int next;
+            while ((next = next()) >= 0 && next < target) {
+                // Decode past lines other tokens already ruled out
+            }
+            return next;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.gatekeeprt_design.logs;
+
+import com.example.gatekeeprt_design.config.LogViewerProperties;
+import com.example.gatekeeprt_design.monitoring.SseSenders;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Serves log files through a bounded set of open {@link LogFile}s, so paging
+ * through a log reuses its mapping and line index instead of reading the
+ * file again. A file replaced on disk (rotated) is noticed by its file key
+ * and reopened.
+ *
+ * <p>Also streams lines appended to a log to followers over Server-Sent
+ * Events: one thread polls the followed files, extends their index over the
+ * new bytes only and queues for each follower the complete lines past its
+ * offset. A bounded set of sender threads (see {@link SseSenders}) writes
+ * the queued events, so a slow client only delays its own; one that falls
+ * {@value #BUFFERED_EVENTS} events behind is disconnected. A log truncated in place, even if it has grown back past
+ * the follower's offset, is followed again from its first line; the same
+ * file merely reopened after eviction is followed on from where it was.
+ * Each event's id is the byte offset it ends at, so a client reconnecting
+ * with {@code Last-Event-ID} resumes without repeating lines.
+ */
+@Component
+public class LogReader {
+
+    private static final Logger log = LoggerFactory.getLogger(LogReader.class);
+
+    /**
+     * Idle follow ticks between keep-alive comments, which is also how
+     * closed connections are noticed.
+     */
+    private static final int KEEP_ALIVE_TICKS = 20;
+
+    /**
+     * Events queued per follower before it counts as stalled.
+     */
+    static final int BUFFERED_EVENTS = 16;
+
+    private final ObjectMapper objectMapper;
+    private final int maxPageBytes;
+    private final int maxOpenFiles;
+    private final int maxFollowers;
+    private final Map<Path, OpenFile> open = new ConcurrentHashMap<>();
+    private final List<Follower> followers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService executor;
+    private final ExecutorService senders;
+
+    public LogReader(final ObjectMapper objectMapper, final LogViewerProperties properties) {
+        this(objectMapper, properties, false);
+    }
+
+    @Autowired
+    public LogReader(final ObjectMapper objectMapper, final LogViewerProperties properties,
+            @Value("${spring.threads.virtual.enabled:false}") final boolean virtualThreads) {
+        this.objectMapper = objectMapper;
+        this.maxPageBytes = properties.getMaxPageBytes();
+        this.maxOpenFiles = properties.getMaxOpenFiles();
+        this.maxFollowers = properties.getMaxFollowers();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "log-follow");
+            t.setDaemon(true);
+            return t;
+        });
+        this.senders = SseSenders.create("log-follow-send", properties.getFollowSenders(), virtualThreads);
+        long interval = properties.getFollowInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The log at {@code path}, indexed up to its current end.
+     */
+    public LogFile open(final Path path) throws IOException {
+        return openEntry(path).file;
+    }
+
+    private OpenFile openEntry(final Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        Object fileKey = Files.readAttributes(key, BasicFileAttributes.class).fileKey();
+        while (true) {
+            OpenFile entry = open.get(key);
+            if (entry == null || !Objects.equals(entry.fileKey, fileKey)) {
+                OpenFile fresh = new OpenFile(LogFile.open(key), fileKey);
+                boolean installed = entry == null ? open.putIfAbsent(key, fresh) == null
+                        : open.replace(key, entry, fresh);
+                if (!installed) {
+                    fresh.file.close();
+                    continue;
+                }
+                if (entry != null) {
+                    closeQuietly(entry.file);
+                }
+                evictBeyondLimit(key);
+                entry = fresh;
+            }
+            try {
+                entry.file.refresh();
+                return entry;
+            } catch (ClosedChannelException e) {
+                // Replaced or evicted meanwhile; look it up again
+            }
+        }
+    }
+
+    private void evictBeyondLimit(final Path keep) {
+        for (Path key : open.keySet()) {
+            if (open.size() <= maxOpenFiles) {
+                return;
+            }
+            OpenFile evicted = key.equals(keep) ? null : open.remove(key);
+            if (evicted != null) {
+                closeQuietly(evicted.file);
+            }
+        }
+    }
+
+    /**
+     * One page of lines, 1-based {@code firstLine}.
+     */
+    public LogFile.Page page(final Path path, final long firstLine, final int lines) throws IOException {
+        return read(path, file -> file.lines(Math.max(0, firstLine - 1), lines, maxPageBytes));
+    }
+
+    /**
+     * The last {@code lines} lines.
+     */
+    public LogFile.Page tail(final Path path, final int lines) throws IOException {
+        return read(path, file -> file.tail(lines, maxPageBytes));
+    }
+
+    private LogFile.Page read(final Path path, final Function<LogFile, LogFile.Page> reader) throws IOException {
+        LogFile file = open(path);
+        try {
+            return reader.apply(file);
+        } catch (UncheckedIOException e) {
+            // Truncated under the mapping; the refresh maps what is left
+            file.refresh();
+            return reader.apply(file);
+        }
+    }
+
+    /**
+     * Stream lines appended to the log after byte {@code offset}, or after
+     * its current end when the offset is negative.
+     */
+    public SseEmitter follow(final Path path, final long offset) throws IOException {
+        return follow(path, offset, new SseEmitter(0L));
+    }
+
+    SseEmitter follow(final Path path, final long offset, final SseEmitter emitter) throws IOException {
+        if (followers.size() >= maxFollowers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many log followers");
+        }
+        OpenFile entry = openEntry(path);
+        LogFile file = entry.file;
+        long start = offset < 0 || offset > file.getSize() ? file.getCompleteLength() : offset;
+        Follower follower = new Follower(emitter, file, entry.fileKey, start, file.getRewriteCount());
+        emitter.onCompletion(() -> followers.remove(follower));
+        emitter.onTimeout(() -> followers.remove(follower));
+        emitter.onError(e -> followers.remove(follower));
+        followers.add(follower);
+        return emitter;
+    }
+
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    private void tick() {
+        for (Follower follower : followers) {
+            try {
+                poll(follower);
+            } catch (NoSuchFileException e) {
+                // Rotated away; picked up again once the new file appears
+            } catch (IOException | RuntimeException | InternalError e) {
+                // A failed follower must not cancel the schedule for the others
+                log.debug("Could not follow {}", follower.file.getPath(), e);
+            }
+        }
+    }
+
+    private void poll(final Follower follower) throws IOException {
+        OpenFile entry = openEntry(follower.file.getPath());
+        LogFile file = entry.file;
+        if (file != follower.file && Objects.equals(entry.fileKey, follower.fileKey)) {
+            // Evicted and reopened: same file, so the offset still applies
+            follower.file = file;
+            follower.rewrites = file.getRewriteCount();
+        }
+        if (file != follower.file || file.getRewriteCount() != follower.rewrites
+                || follower.offset > file.getSize()) {
+            // Replaced or truncated: the new content starts from the top
+            follower.file = file;
+            follower.fileKey = entry.fileKey;
+            follower.rewrites = file.getRewriteCount();
+            follower.offset = 0;
+        }
+        LogFile.Page page;
+        try {
+            page = file.range(follower.offset, maxPageBytes, true);
+        } catch (UncheckedIOException e) {
+            // Truncated since the refresh; remap now, start over next tick
+            file.refresh();
+            return;
+        }
+        if (page.getLines().isEmpty()) {
+            if (++follower.idleTicks >= KEEP_ALIVE_TICKS) {
+                follower.idleTicks = 0;
+                follower.offer(SseEmitter.event().comment(""));
+            }
+            return;
+        }
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("firstLine", page.getFirstLine() + 1);
+        event.put("offset", page.getEndOffset());
+        event.put("lines", page.getLines());
+        follower.offset = page.getEndOffset();
+        follower.idleTicks = 0;
+        follower.offer(SseEmitter.event().id(Long.toString(page.getEndOffset())).name("lines")
+                .data(objectMapper.writeValueAsBytes(event), MediaType.APPLICATION_JSON));
+    }
+
+    private static void closeQuietly(final LogFile file) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+        senders.shutdownNow();
+        for (Follower follower : followers) {
+            follower.emitter.complete();
+        }
+        followers.clear();
+        for (OpenFile entry : open.values()) {
+            closeQuietly(entry.file);
+        }
+        open.clear();
+    }
+
+    private record OpenFile(LogFile file, Object fileKey) {
+    }
+
+    /**
+     * One follower: its position, only touched on the follow thread, and the
+     * events queued for it, written in order by one sender task at a time.
+     */
+    private final class Follower {
+
+        final SseEmitter emitter;
+        LogFile file;
+        Object fileKey;
+        long offset;
+        int rewrites;
+        int idleTicks;
+
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ArrayBlockingQueue<>(BUFFERED_EVENTS);
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Follower(final SseEmitter emitter, final LogFile file, final Object fileKey, final long offset,
+                final int rewrites) {
+            this.emitter = emitter;
+            this.file = file;
+            this.fileKey = fileKey;
+            this.offset = offset;
+            this.rewrites = rewrites;
+        }
+
+        void offer(final SseEmitter.SseEventBuilder event) {
+            if (!pending.offer(event)) {
+                followers.remove(this);
+                log.debug("Disconnecting log follower {} events behind", BUFFERED_EVENTS);
+                // complete() waits for a write in progress, so it must not run here
+                senders.execute(emitter::complete);
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while ((event = pending.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // Client went away; the container completes the emitter
+                        followers.remove(this);
+                        pending.clear();
+                        return;
+                    }
+                }
+                sending.set(false);
+                // An event queued after the last poll but before the flag was cleared
+            } while (!pending.isEmpty() && sending.compareAndSet(false, true));
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.gatekeeprt_design.logs;
+
+import com.example.gatekeeprt_design.config.LogViewerProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Searches the log directory. A background thread keeps a {@link LogIndex}
+ * per log, extended over appended lines only, so token queries (an IP, a
+ * user name, a log level) are answered from postings instead of reading the
+ * files. Bytes the index has not reached yet, logs too large to index and
+ * substring queries are scanned instead, in parallel over fixed-size chunks.
+ */
+@Component
+public class LogSearch {
+
+    private static final Logger log = LoggerFactory.getLogger(LogSearch.class);
+
+    /**
+     * Bytes indexed between publishes, and bytes per parallel scan task.
+     */
+    private static final long INDEX_BATCH_BYTES = 4L * 1024 * 1024;
+    private static final long SCAN_CHUNK_BYTES = 8L * 1024 * 1024;
+
+    /**
+     * Longer lines are matched and returned cut to this length.
+     */
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+
+    private final LogReader reader;
+    private final Path directory;
+    private final long maxIndexedBytes;
+    private final int maxIndexedTokens;
+    private final int maxResults;
+    private final Map<Path, Indexed> indexes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    public LogSearch(final LogReader reader, final LogViewerProperties properties) {
+        this.reader = reader;
+        this.directory = Paths.get(properties.getDirectory()).toAbsolutePath().normalize();
+        this.maxIndexedBytes = properties.getMaxIndexedBytes();
+        this.maxIndexedTokens = properties.getMaxIndexedTokens();
+        this.maxResults = properties.getMaxSearchResults();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "log-indexer");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = properties.getIndexInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::indexAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lines of any log containing every token of {@code query}, or containing
+     * {@code query} as a case-insensitive substring when {@code substring}.
+     */
+    public Result search(final String query, final boolean substring) throws IOException {
+        long start = System.nanoTime();
+        List<String> tokens = LogIndex.tokens(query);
+        boolean byToken = !substring && !tokens.isEmpty();
+        String needle = query.toLowerCase(Locale.ROOT);
+        Predicate<String> matcher = byToken ? text -> containsTokens(text, tokens)
+                : text -> text.toLowerCase(Locale.ROOT).contains(needle);
+
+        List<Hit> hits = new ArrayList<>();
+        List<Chunk> chunks = new ArrayList<>();
+        int indexedFiles = 0;
+        for (Path path : listLogs()) {
+            LogFile file;
+            try {
+                file = reader.open(path);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            String name = directory.relativize(path).toString();
+            long scanFrom = 0;
+            Indexed indexed = byToken ? indexes.get(path) : null;
+            if (indexed != null && indexed.matches(path, file)) {
+                // Offset before lookup: lines published in between are found twice, not missed
+                long offset = indexed.index.getIndexedOffset();
+                // One past the limit, so a truncated result is still reported as such
+                int[] lines = indexed.index.lookup(tokens, maxResults + 1);
+                if (lines != null && offset <= file.getSize()) {
+                    indexedFiles++;
+                    for (int i = 0; i < lines.length && i < maxResults; i++) {
+                        List<String> text = file.lines(lines[i], 1, MAX_LINE_BYTES).getLines();
+                        if (!text.isEmpty()) {
+                            hits.add(new Hit(name, lines[i] + 1L, text.get(0)));
+                        }
+                    }
+                    scanFrom = offset;
+                }
+            }
+            for (long from = scanFrom; from < file.getSize(); from += SCAN_CHUNK_BYTES) {
+                chunks.add(new Chunk(name, file, from, Math.min(file.getSize(), from + SCAN_CHUNK_BYTES)));
+            }
+        }
+
+        long scannedBytes = chunks.stream().mapToLong(c -> c.to - c.from).sum();
+        List<Hit> scanned = (chunks.size() > 1 ? chunks.parallelStream() : chunks.stream())
+                .flatMap(chunk -> scan(chunk, matcher).stream())
+                .toList();
+        hits.addAll(scanned);
+
+        Set<Hit> seen = new HashSet<>();
+        List<Hit> merged = hits.stream()
+                .filter(seen::add)
+                .sorted(Comparator.comparing(Hit::file).thenComparingLong(Hit::line))
+                .toList();
+        boolean truncated = merged.size() > maxResults;
+        return new Result(query, byToken ? "token" : "substring",
+                truncated ? merged.subList(0, maxResults) : merged, truncated,
+                indexedFiles, scannedBytes, (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    private List<Hit> scan(final Chunk chunk, final Predicate<String> matcher) {
+        List<Hit> hits = new ArrayList<>();
+        chunk.file.scan(chunk.from, chunk.to, MAX_LINE_BYTES, (line, text) -> {
+            if (matcher.test(text)) {
+                hits.add(new Hit(chunk.name, line + 1, text));
+            }
+            return hits.size() <= maxResults;
+        });
+        return hits;
+    }
+
+    private static boolean containsTokens(final String text, final List<String> tokens) {
+        // Cheap substring check first; most lines fail it and are never tokenized
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (String token : tokens) {
+            if (!lower.contains(token)) {
+                return false;
+            }
+        }
+        Set<String> found = new HashSet<>();
+        LogIndex.forEachToken(text, token -> {
+            if (tokens.contains(token)) {
+                found.add(token);
+            }
+        });
+        return found.size() == tokens.size();
+    }
+
+    /**
+     * Bring every log's index up to its current end.
+     */
+    void indexAll() {
+        try {
+            List<Path> logs = listLogs();
+            indexes.keySet().retainAll(logs);
+            for (Path path : logs) {
+                try {
+                    index(path);
+                } catch (NoSuchFileException e) {
+                    indexes.remove(path);
+                } catch (IOException | UncheckedIOException e) {
+                    log.debug("Could not index {}", path, e);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Log indexing failed", e);
+        }
+    }
+
+    private void index(final Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        if (attributes.size() > maxIndexedBytes) {
+            indexes.remove(path);
+            return;
+        }
+        LogFile file = reader.open(path);
+        Indexed indexed = indexes.get(path);
+        LogIndex index = indexed != null && indexed.isCurrent(attributes.fileKey(), file) ? indexed.index
+                // New, rotated or truncated (even if grown back since): start over
+                : new LogIndex(maxIndexedTokens);
+        indexes.put(path, new Indexed(attributes.fileKey(), file, file.getRewriteCount(), file.getHead(), index));
+        long end = file.getCompleteLength();
+        int[] next = { index.getIndexedLines() };
+        for (long from = index.getIndexedOffset(); from < end;) {
+            long batchEnd = Math.min(end, from + INDEX_BATCH_BYTES);
+            file.scan(from, batchEnd, MAX_LINE_BYTES, (line, text) -> {
+                if (line >= Integer.MAX_VALUE) {
+                    return false;
+                }
+                index.add((int) line, text);
+                next[0] = (int) line + 1;
+                return true;
+            });
+            index.publish(batchEnd, next[0]);
+            from = batchEnd;
+        }
+    }
+
+    private List<Path> listLogs() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    /**
+     * Logs currently indexed and their distinct token counts.
+     */
+    public Map<String, Integer> getIndexedTokenCounts() {
+        Map<String, Integer> counts = new ConcurrentHashMap<>();
+        indexes.forEach((path, indexed) -> counts.put(directory.relativize(path).toString(),
+                indexed.index.getTokenCount()));
+        return counts;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * One matching line, 1-based.
+     */
+    public record Hit(String file, long line, String text) {
+    }
+
+    /**
+     * Matching lines ordered by file and line, at most the configured limit.
+     */
+    public record Result(String query, String mode, List<Hit> hits, boolean truncated,
+            int indexedFiles, long scannedBytes, double tookMillis) {
+    }
+
+    private record Chunk(String name, LogFile file, long from, long to) {
+    }
+
+    /**
+     * An index and the file it was built from: its key, and the open view's
+     * rewrite count and first bytes, to notice a copy-truncate that keeps the
+     * key whether or not the view was reopened since.
+     */
+    private record Indexed(Object fileKey, LogFile file, int rewrites, byte[] head, LogIndex index) {
+
+        boolean isCurrent(final Object currentKey, final LogFile current) throws IOException {
+            if (!Objects.equals(fileKey, currentKey) || current.getSize() < index.getIndexedOffset()) {
+                return false;
+            }
+            return current == file ? current.getRewriteCount() == rewrites : current.startsWith(head);
+        }
+
+        boolean matches(final Path path, final LogFile current) throws IOException {
+            return isCurrent(Files.readAttributes(path, BasicFileAttributes.class).fileKey(), current);
+        }
+    }
+}
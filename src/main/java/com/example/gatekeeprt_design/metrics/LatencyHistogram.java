@@ -0,0 +1,187 @@
+package com.example.gatekeeprt_design.metrics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-memory, log-linear latency histogram in the style of HdrHistogram.
+ * Values are nanoseconds. Each power of two is split into 32 linear
+ * sub-buckets, so any recorded value is reported within about 3% of its true
+ * value, from 1ns up to {@link #MAX_TRACKABLE} (longer values are clamped).
+ * Recording is a single atomic increment; no locks, no allocation.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Largest power-of-two shift tracked; 2^(36+6) ns is a bit over an hour.
+     */
+    private static final int MAX_SHIFT = 36;
+
+    /**
+     * Largest value tracked exactly by the buckets, in nanoseconds.
+     */
+    public static final long MAX_TRACKABLE = (2L * SUB_BUCKETS << MAX_SHIFT) - 1;
+
+    private static final int BUCKETS = (MAX_SHIFT + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalNanos = new AtomicLong(0);
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * Record one latency sample.
+     */
+    public void record(final long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_TRACKABLE));
+        counts.incrementAndGet(bucketOf(value));
+        totalNanos.addAndGet(value);
+
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Copy the current distribution for percentile queries.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, totalNanos.get(), max.get());
+    }
+
+    /**
+     * Add samples written by {@link Snapshot#writeTo}.
+     */
+    public void addFrom(final DataInput in) throws IOException {
+        int buckets = in.readInt();
+        for (int i = 0; i < buckets; i++) {
+            int bucket = in.readUnsignedShort();
+            long count = in.readLong();
+            if (bucket < BUCKETS) {
+                counts.addAndGet(bucket, count);
+            }
+        }
+        totalNanos.addAndGet(in.readLong());
+        long value = in.readLong();
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        totalNanos.set(0);
+        max.set(0);
+    }
+
+    static int bucketOf(final long value) {
+        return bucketOf(value, SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Largest value that falls into a bucket.
+     */
+    static long highestValueOf(final int bucket) {
+        return highestValueOf(bucket, SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Log-linear bucket of a value with {@code 2^subBucketBits} linear
+     * sub-buckets per power of two.
+     */
+    static int bucketOf(final long value, final int subBucketBits) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(value | 1);
+        int shift = Math.max(0, magnitude - subBucketBits);
+        return (shift << subBucketBits) + (int) (value >>> shift);
+    }
+
+    static long highestValueOf(final int bucket, final int subBucketBits) {
+        int shift = Math.max(0, (bucket >>> subBucketBits) - 1);
+        long mantissa = bucket - ((long) shift << subBucketBits);
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * Point-in-time copy of a histogram.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long max;
+
+        Snapshot(final long[] counts, final long count, final long totalNanos, final long max) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count > 0 ? (double) totalNanos / count : 0;
+        }
+
+        /**
+         * Write the non-empty buckets, total and max, for {@link LatencyHistogram#addFrom}.
+         */
+        public void writeTo(final DataOutput out) throws IOException {
+            int buckets = 0;
+            for (long c : counts) {
+                if (c != 0) {
+                    buckets++;
+                }
+            }
+            out.writeInt(buckets);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    out.writeShort(i);
+                    out.writeLong(counts[i]);
+                }
+            }
+            out.writeLong(totalNanos);
+            out.writeLong(max);
+        }
+
+        /**
+         * Value at or below which {@code percentile} percent of samples fall.
+         */
+        public long getValueAtPercentile(final double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(highestValueOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.gatekeeprt_design.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Request rate, error rate and latency distribution over the last few
+ * minutes, kept in a ring of per-second buckets. The ring covers
+ * {@link #MAX_WINDOW_SECONDS}; a bucket is reused once its second has fallen
+ * out of the ring, so memory stays fixed however long the gateway runs.
+ *
+ * <p>Each bucket holds a coarse log-linear latency histogram (8 sub-buckets
+ * per power of two, so percentiles are within about 12% of the true value)
+ * plus an error count; the request count is the histogram total. Recording is
+ * one or two atomic increments. Reading a window merges its buckets.
+ */
+public final class RollingMetrics {
+
+    /**
+     * Longest window that can be queried, in seconds.
+     */
+    public static final int MAX_WINDOW_SECONDS = 15 * 60;
+
+    /**
+     * One extra bucket for the second in progress.
+     */
+    private static final int SLOTS = MAX_WINDOW_SECONDS + 1;
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * Latencies are bucketed in microseconds; 2^(23+4) us is a bit over two minutes.
+     */
+    private static final int MAX_SHIFT = 23;
+
+    private static final long MAX_TRACKABLE_MICROS = (2L << SUB_BUCKET_BITS << MAX_SHIFT) - 1;
+
+    private static final int LATENCY_BUCKETS = (MAX_SHIFT + 2) << SUB_BUCKET_BITS;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    /**
+     * Stamp of a bucket that is being cleared for a new second.
+     */
+    private static final long CLEARING = Long.MIN_VALUE + 1;
+
+    private final LongSupplier nanoClock;
+
+    /**
+     * Second each bucket currently holds.
+     */
+    private final AtomicLongArray seconds = new AtomicLongArray(SLOTS);
+    private final AtomicIntegerArray errors = new AtomicIntegerArray(SLOTS);
+    private final AtomicIntegerArray latency = new AtomicIntegerArray(SLOTS * LATENCY_BUCKETS);
+
+    public RollingMetrics() {
+        this(System::nanoTime);
+    }
+
+    public RollingMetrics(final LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        reset();
+    }
+
+    /**
+     * Record one finished request.
+     */
+    public void record(final long latencyNanos, final boolean error) {
+        long second = currentSecond();
+        int slot = slotOf(second);
+        if (!claim(slot, second)) {
+            return;
+        }
+        long micros = Math.max(0, Math.min(latencyNanos / 1_000, MAX_TRACKABLE_MICROS));
+        latency.incrementAndGet(slot * LATENCY_BUCKETS + LatencyHistogram.bucketOf(micros, SUB_BUCKET_BITS));
+        if (error) {
+            errors.incrementAndGet(slot);
+        }
+    }
+
+    /**
+     * Aggregate of the last {@code windowSeconds} completed seconds; the
+     * current, partial second is left out so rates are not understated.
+     */
+    public Window window(final int windowSeconds) {
+        if (windowSeconds <= 0 || windowSeconds > MAX_WINDOW_SECONDS) {
+            throw new IllegalArgumentException("window must be between 1 and " + MAX_WINDOW_SECONDS + "s");
+        }
+        long current = currentSecond();
+        long[] counts = new long[LATENCY_BUCKETS];
+        int[] bucket = new int[LATENCY_BUCKETS];
+        long requests = 0;
+        long errorCount = 0;
+        for (long second = current - windowSeconds; second < current; second++) {
+            int slot = slotOf(second);
+            if (seconds.get(slot) != second) {
+                continue;
+            }
+            int base = slot * LATENCY_BUCKETS;
+            for (int i = 0; i < LATENCY_BUCKETS; i++) {
+                bucket[i] = latency.get(base + i);
+            }
+            int bucketErrors = errors.get(slot);
+            // Skip a bucket that was recycled while being read
+            if (seconds.get(slot) != second) {
+                continue;
+            }
+            for (int i = 0; i < LATENCY_BUCKETS; i++) {
+                counts[i] += bucket[i];
+                requests += bucket[i];
+            }
+            errorCount += bucketErrors;
+        }
+        return new Window(windowSeconds, counts, requests, errorCount);
+    }
+
+    /**
+     * Forget all recorded seconds.
+     */
+    public void reset() {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            seconds.set(slot, EMPTY);
+        }
+    }
+
+    /**
+     * Make sure a bucket holds {@code second}, clearing it if it still holds
+     * an older one. Returns false if the sample should be dropped because the
+     * bucket already moved on (the caller was stalled for a whole ring) or is
+     * being cleared by another thread at this instant.
+     */
+    private boolean claim(final int slot, final long second) {
+        long held = seconds.get(slot);
+        if (held == second) {
+            return true;
+        }
+        if (held == CLEARING || held > second || !seconds.compareAndSet(slot, held, CLEARING)) {
+            return seconds.get(slot) == second;
+        }
+        errors.set(slot, 0);
+        int base = slot * LATENCY_BUCKETS;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            latency.set(base + i, 0);
+        }
+        seconds.set(slot, second);
+        return true;
+    }
+
+    private long currentSecond() {
+        return Math.floorDiv(nanoClock.getAsLong(), TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static int slotOf(final long second) {
+        return (int) Math.floorMod(second, (long) SLOTS);
+    }
+
+    /**
+     * Merged view of a window of seconds.
+     */
+    public static final class Window {
+
+        private final int seconds;
+        private final long[] counts;
+        private final long requests;
+        private final long errors;
+
+        Window(final int seconds, final long[] counts, final long requests, final long errors) {
+            this.seconds = seconds;
+            this.counts = counts;
+            this.requests = requests;
+            this.errors = errors;
+        }
+
+        public int getSeconds() {
+            return seconds;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getRequestsPerSecond() {
+            return (double) requests / seconds;
+        }
+
+        /**
+         * Share of requests in the window that failed, in [0, 1].
+         */
+        public double getErrorRate() {
+            return requests > 0 ? (double) errors / requests : 0.0;
+        }
+
+        /**
+         * Latency in nanoseconds at or below which {@code percentile} percent of requests fall.
+         */
+        public long getValueAtPercentile(final double percentile) {
+            if (requests == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * requests));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return LatencyHistogram.highestValueOf(i, SUB_BUCKET_BITS) * 1_000;
+                }
+            }
+            return getMax();
+        }
+
+        /**
+         * Upper bound of the slowest request in the window, in nanoseconds.
+         */
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return LatencyHistogram.highestValueOf(i, SUB_BUCKET_BITS) * 1_000;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.gatekeeprt_design.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed group of counters spread over per-thread stripes, in the spirit of
+ * {@link java.util.concurrent.atomic.LongAdder}. Threads update a stripe of
+ * their own, each padded to separate cache lines, so concurrent updates do
+ * not bounce a shared line between cores.
+ *
+ * <p>Writers never wait: a single-counter update is one {@code getAndAdd},
+ * and {@link #add(int, long, int, long)} also counts itself as started and
+ * finished in its stripe. A {@link #snapshot()} reads each stripe between
+ * the two and retries the stripe, and only that stripe, while an update is
+ * in flight in it, so paired counters (requests and their total time, hits
+ * and misses) always agree with each other. Snapshots are consistent per
+ * update, not a single point in time across stripes, and never go
+ * backwards.
+ */
+public final class StripedCounters {
+
+    /**
+     * Longs per padding unit; stripes start at multiples of 128 bytes, which
+     * also keeps adjacent-line prefetching from coupling neighbours.
+     */
+    private static final int PAD = 16;
+
+    private static final int MAX_STRIPES = 64;
+
+    /**
+     * Leading cells of every stripe: paired updates started and finished.
+     */
+    private static final int STARTED = 0;
+    private static final int FINISHED = 1;
+    private static final int HEAD = 2;
+
+    private final int fields;
+    private final int stride;
+    private final int stripeMask;
+
+    /**
+     * Stripe {@code s} occupies {@code HEAD + fields} cells from
+     * {@code (s + 1) * stride}; the first stride is left unused as padding
+     * before the first real stripe.
+     */
+    private final AtomicLongArray cells;
+
+    public StripedCounters(final int fields) {
+        this(fields, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    StripedCounters(final int fields, final int stripes) {
+        if (fields <= 0) {
+            throw new IllegalArgumentException("fields must be positive");
+        }
+        int count = Integer.highestOneBit(Math.max(1, Math.min(stripes, MAX_STRIPES)));
+        if (count < Math.min(stripes, MAX_STRIPES)) {
+            count <<= 1;
+        }
+        this.fields = fields;
+        this.stride = (HEAD + fields + PAD - 1) / PAD * PAD;
+        this.stripeMask = count - 1;
+        this.cells = new AtomicLongArray((count + 1) * stride);
+    }
+
+    public int getFields() {
+        return fields;
+    }
+
+    public void increment(final int field) {
+        add(field, 1);
+    }
+
+    public void add(final int field, final long delta) {
+        checkField(field);
+        cells.getAndAdd(stripe() + HEAD + field, delta);
+    }
+
+    /**
+     * Update two counters together: a snapshot sees both deltas or neither.
+     */
+    public void add(final int field, final long delta, final int otherField, final long otherDelta) {
+        checkField(field);
+        checkField(otherField);
+        int base = stripe();
+        cells.getAndIncrement(base + STARTED);
+        cells.getAndAdd(base + HEAD + field, delta);
+        cells.getAndAdd(base + HEAD + otherField, otherDelta);
+        cells.getAndIncrement(base + FINISHED);
+    }
+
+    /**
+     * Current value of a single counter.
+     */
+    public long sum(final int field) {
+        checkField(field);
+        long sum = 0;
+        for (int base = stride; base < cells.length(); base += stride) {
+            sum += cells.get(base + HEAD + field);
+        }
+        return sum;
+    }
+
+    /**
+     * Totals of all counters, each stripe read with no paired update half
+     * applied.
+     */
+    public long[] snapshot() {
+        long[] totals = new long[fields];
+        long[] stripe = new long[fields];
+        for (int base = stride; base < cells.length(); base += stride) {
+            read(base, stripe);
+            for (int i = 0; i < fields; i++) {
+                totals[i] += stripe[i];
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Zero all counters. What a consistent read of each stripe found is
+     * subtracted from it, so updates racing with the reset are kept whole
+     * rather than cleared halfway.
+     */
+    public void reset() {
+        long[] stripe = new long[fields];
+        for (int base = stride; base < cells.length(); base += stride) {
+            read(base, stripe);
+            for (int i = 0; i < fields; i++) {
+                if (stripe[i] != 0) {
+                    cells.getAndAdd(base + HEAD + i, -stripe[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the counters of one stripe at a moment no paired update was in
+     * flight in it: every update finished before the read started has
+     * started no new one by the time it ends.
+     */
+    private void read(final int base, final long[] into) {
+        while (true) {
+            long finished = cells.get(base + FINISHED);
+            for (int i = 0; i < fields; i++) {
+                into[i] = cells.get(base + HEAD + i);
+            }
+            if (cells.get(base + STARTED) == finished) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * First cell of the stripe this thread hashes to.
+     */
+    private int stripe() {
+        return ((probe() & stripeMask) + 1) * stride;
+    }
+
+    private void checkField(final int field) {
+        if (field < 0 || field >= fields) {
+            throw new IndexOutOfBoundsException("field " + field + " out of " + fields);
+        }
+    }
+
+    /**
+     * Spread thread ids over the stripes; virtual threads get distinct ids too.
+     */
+    private static int probe() {
+        long id = Thread.currentThread().threadId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.gatekeeprt_design.monitoring;
+
+import com.example.gatekeeprt_design.filter.BenchmarkFilter;
+import com.example.gatekeeprt_design.filter.BotDetectionFilter;
+import com.example.gatekeeprt_design.gateway.GatewayPipeline;
+
+import java.util.Map;
+
+/**
+ * Assembles the dashboard metrics model that {@link MetricsSnapshotPublisher}
+ * captures for {@code /api/metrics} and {@link MetricsStream}.
+ */
+public final class GatewayMetrics {
+
+    private GatewayMetrics() {
+    }
+
+    /**
+     * Collect current benchmark, bot detection and pipeline metrics
+     */
+    public static Map<String, Object> collect() {
+        Map<String, Object> metrics = BenchmarkFilter.getMetricsModel();
+
+        // Add bot detection count
+        metrics.put("botsDetected", BotDetectionFilter.getBotDetectionCount());
+
+        // Add per-stage pipeline timings
+        metrics.put("pipeline", GatewayPipeline.getStageStats());
+
+        return metrics;
+    }
+}
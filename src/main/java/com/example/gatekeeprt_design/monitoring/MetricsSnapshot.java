@@ -0,0 +1,95 @@
+package com.example.gatekeeprt_design.monitoring;
+
+import com.example.gatekeeprt_design.filter.BenchmarkFilter;
+import com.example.gatekeeprt_design.security.SecurityGateway;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable, point-in-time view of the gateway metrics: the model, its JSON
+ * and plain-text renderings as bytes, and the attributes of the dashboard
+ * pages. Read endpoints write the shared byte arrays as they are, so serving
+ * a snapshot costs no serialization.
+ */
+public final class MetricsSnapshot {
+
+    private final long capturedAt;
+    private final Map<String, Object> model;
+    private final byte[] json;
+    private final byte[] text;
+    private final Map<String, Object> pageAttributes;
+
+    private MetricsSnapshot(final long capturedAt, final Map<String, Object> model, final byte[] json,
+            final byte[] text, final Map<String, Object> pageAttributes) {
+        this.capturedAt = capturedAt;
+        this.model = model;
+        this.json = json;
+        this.text = text;
+        this.pageAttributes = pageAttributes;
+    }
+
+    /**
+     * Collect and render the current metrics.
+     */
+    public static MetricsSnapshot capture(final ObjectMapper objectMapper) throws JsonProcessingException {
+        Map<String, Object> model = GatewayMetrics.collect();
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("rateLimitingEnabled", SecurityGateway.isRateLimitingEnabled());
+        page.put("botDetectionEnabled", SecurityGateway.isBotDetectionEnabled());
+        page.put("benchmarkEnabled", SecurityGateway.isBenchmarkEnabled());
+        page.put("botDetectionCount", model.get("botsDetected"));
+        page.put("totalRequests", model.get("totalRequests"));
+        page.put("averageResponseTime", model.get("averageResponseTime"));
+
+        return new MetricsSnapshot(System.currentTimeMillis(), freeze(model),
+                objectMapper.writeValueAsBytes(model),
+                BenchmarkFilter.getMetrics().getBytes(StandardCharsets.UTF_8),
+                Collections.unmodifiableMap(page));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> freeze(final Map<String, ?> map) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        map.forEach((key, value) -> copy.put(key,
+                value instanceof Map<?, ?> nested ? freeze((Map<String, ?>) nested) : value));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Wall-clock time the snapshot was taken, in epoch milliseconds.
+     */
+    public long getCapturedAt() {
+        return capturedAt;
+    }
+
+    public Map<String, Object> getModel() {
+        return model;
+    }
+
+    /**
+     * The model as UTF-8 JSON. Shared by every reader; must not be modified.
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * The plain-text metrics report as UTF-8. Shared by every reader; must not be modified.
+     */
+    public byte[] getText() {
+        return text;
+    }
+
+    /**
+     * Model attributes of the dashboard pages.
+     */
+    public Map<String, Object> getPageAttributes() {
+        return pageAttributes;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.gatekeeprt_design.monitoring;
+
+import com.example.gatekeeprt_design.config.MetricsProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Recomputes the {@link MetricsSnapshot} at a fixed interval on one
+ * background thread and publishes it through a volatile reference. Readers
+ * never collect or serialize anything; they see the latest snapshot, at most
+ * one interval old.
+ */
+@Component
+public class MetricsSnapshotPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsSnapshotPublisher.class);
+
+    /**
+     * Longest a caller of {@link #refresh()} waits for the new snapshot.
+     */
+    private static final long REFRESH_TIMEOUT_MILLIS = 2_000;
+
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService executor;
+
+    private volatile MetricsSnapshot current;
+
+    public MetricsSnapshotPublisher(final ObjectMapper objectMapper, final MetricsProperties properties) {
+        this.objectMapper = objectMapper;
+        this.current = capture();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = properties.getSnapshotInterval().toMillis();
+        executor.scheduleAtFixedRate(this::publish, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The latest snapshot.
+     */
+    public MetricsSnapshot get() {
+        return current;
+    }
+
+    /**
+     * Publish a new snapshot now, e.g. after counters were reset, and wait for it.
+     */
+    public MetricsSnapshot refresh() {
+        try {
+            executor.submit(this::publish).get(REFRESH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Metrics snapshot refresh did not complete", e);
+        }
+        return current;
+    }
+
+    private void publish() {
+        try {
+            current = capture();
+        } catch (RuntimeException e) {
+            // Keep serving the previous snapshot; a failed tick must not cancel the schedule
+            log.warn("Could not capture metrics snapshot", e);
+        }
+    }
+
+    private MetricsSnapshot capture() {
+        try {
+            return MetricsSnapshot.capture(objectMapper);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.gatekeeprt_design.monitoring;
+
+import com.example.gatekeeprt_design.config.MetricsProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes dashboard metrics to every open dashboard over Server-Sent Events.
+ * One thread takes the latest {@link MetricsSnapshot} per tick, diffs it
+ * against the previous one and queues the same pre-built event for all
+ * subscribers, so the cost of a tick does not grow with the number of
+ * dashboards, and dashboards no longer poll through the filter chain.
+ *
+ * <p>Socket writes happen on a bounded set of sender threads (see
+ * {@link SseSenders}), at most one per subscriber at a time, so a slow
+ * client only delays its own events. Each subscriber
+ * buffers {@value #BUFFERED_EVENTS} events; a client that falls that far
+ * behind is disconnected rather than sent a delta chain with gaps, and its
+ * browser reconnects to a fresh snapshot.
+ *
+ * <p>A new subscriber first receives a {@code snapshot} event with the full
+ * model; each later tick sends a {@code delta} event holding only the values
+ * that changed, nested maps included, with removed keys set to null. Ticks
+ * without changes send a comment line as a keep-alive, which is also how
+ * closed connections are noticed and dropped.
+ */
+@Component
+public class MetricsStream {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsStream.class);
+
+    private static final Set<DataWithMediaType> KEEP_ALIVE = SseEmitter.event().comment("").build();
+
+    /**
+     * Events queued per subscriber before it counts as stalled.
+     */
+    static final int BUFFERED_EVENTS = 16;
+
+    private final ObjectMapper objectMapper;
+    private final MetricsSnapshotPublisher snapshots;
+    private final int maxSubscribers;
+    private final ScheduledExecutorService executor;
+    private final ExecutorService senders;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Snapshot the next delta is computed against; only touched on the stream thread.
+     */
+    private MetricsSnapshot last;
+
+    public MetricsStream(final ObjectMapper objectMapper, final MetricsSnapshotPublisher snapshots,
+            final MetricsProperties properties) {
+        this(objectMapper, snapshots, properties, false);
+    }
+
+    @Autowired
+    public MetricsStream(final ObjectMapper objectMapper, final MetricsSnapshotPublisher snapshots,
+            final MetricsProperties properties,
+            @Value("${spring.threads.virtual.enabled:false}") final boolean virtualThreads) {
+        this.objectMapper = objectMapper;
+        this.snapshots = snapshots;
+        this.maxSubscribers = properties.getMaxStreamSubscribers();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-stream");
+            t.setDaemon(true);
+            return t;
+        });
+        this.senders = SseSenders.create("metrics-stream-send", properties.getStreamSenders(), virtualThreads);
+        long interval = properties.getStreamInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Register a dashboard; its first event is a full snapshot.
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(0L));
+    }
+
+    SseEmitter subscribe(final SseEmitter emitter) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many metrics subscribers");
+        }
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        // Joining on the stream thread puts the snapshot ahead of every delta
+        executor.execute(() -> {
+            subscribers.add(subscriber);
+            sendSnapshot(subscriber);
+        });
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void sendSnapshot(final Subscriber subscriber) {
+        try {
+            if (last == null) {
+                last = snapshots.get();
+            }
+            subscriber.offer(SseEmitter.event().name("snapshot")
+                    .data(last.getJson(), MediaType.APPLICATION_JSON).build());
+        } catch (RuntimeException e) {
+            log.warn("Could not send metrics snapshot", e);
+        }
+    }
+
+    private void tick() {
+        try {
+            if (subscribers.isEmpty()) {
+                // Nobody is listening; the next subscriber starts from a fresh snapshot
+                last = null;
+                return;
+            }
+            MetricsSnapshot current = snapshots.get();
+            Map<Object, Object> delta = current == last ? Map.of()
+                    : last == null ? new LinkedHashMap<>(current.getModel())
+                    : diff(last.getModel(), current.getModel());
+            last = current;
+
+            Set<DataWithMediaType> event = delta.isEmpty() ? KEEP_ALIVE
+                    : SseEmitter.event().name("delta")
+                            .data(objectMapper.writeValueAsBytes(delta), MediaType.APPLICATION_JSON).build();
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Metrics stream tick failed", e);
+        }
+    }
+
+    /**
+     * A dashboard connection and the events queued for it. Events are
+     * queued by the stream thread and written, in order, by one sender
+     * task at a time.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Queue<Set<DataWithMediaType>> pending = new ArrayBlockingQueue<>(BUFFERED_EVENTS);
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(final SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(final Set<DataWithMediaType> event) {
+            if (!pending.offer(event)) {
+                subscribers.remove(this);
+                log.debug("Disconnecting metrics subscriber {} events behind", BUFFERED_EVENTS);
+                // complete() waits for a write in progress, so it must not run here
+                senders.execute(emitter::complete);
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Set<DataWithMediaType> event;
+                while ((event = pending.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // Client went away; the container completes the emitter
+                        subscribers.remove(this);
+                        pending.clear();
+                        return;
+                    }
+                }
+                sending.set(false);
+                // An event queued after the last poll but before the flag was cleared
+            } while (!pending.isEmpty() && sending.compareAndSet(false, true));
+        }
+    }
+
+    /**
+     * Entries of {@code current} that differ from {@code previous}, recursing
+     * into nested maps; keys no longer present map to null.
+     */
+    static Map<Object, Object> diff(final Map<?, ?> previous, final Map<?, ?> current) {
+        Map<Object, Object> delta = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : current.entrySet()) {
+            Object before = previous.get(entry.getKey());
+            Object after = entry.getValue();
+            if (Objects.equals(before, after) && (after != null || previous.containsKey(entry.getKey()))) {
+                continue;
+            }
+            if (before instanceof Map<?, ?> beforeMap && after instanceof Map<?, ?> afterMap) {
+                delta.put(entry.getKey(), diff(beforeMap, afterMap));
+            } else {
+                delta.put(entry.getKey(), after);
+            }
+        }
+        for (Object key : previous.keySet()) {
+            if (!current.containsKey(key)) {
+                delta.put(key, null);
+            }
+        }
+        return delta;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.gatekeeprt_design.monitoring;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors for the socket writes of Server-Sent Event streams.
+ *
+ * <p>A write to a stalled client blocks its thread until the connection
+ * times out. With virtual threads enabled that costs a few hundred bytes per
+ * stalled client; otherwise a fixed number of platform threads is shared by
+ * all clients, and each client's own bounded queue decides when it is
+ * disconnected.
+ */
+public final class SseSenders {
+
+    private SseSenders() {
+    }
+
+    /**
+     * A sender executor whose threads are named {@code name}.
+     *
+     * @param threads platform threads, when not using virtual threads
+     */
+    public static ExecutorService create(final String name, final int threads, final boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name).factory());
+        }
+        return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import com.example.gatekeeprt_design.metrics.StripedCounters;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.LongFunction;
+
+/**
+ * Bounded map of per-client state.
+ * Idle clients expire after a TTL and are removed by a background sweeper
+ * thread; when the table is full a new client evicts the least recently seen
+ * of a small random sample of entries. Request threads never wait on a lock.
+ *
+ * <p>The cap is exact: a new client first reserves room with a CAS on the
+ * entry count, evicting if there is none. Every entry also sits in a random
+ * slot of an array twice the capacity, so a uniform sample of entries is a
+ * few random array reads rather than a walk over the map.
+ */
+public class ClientStateStore<V> implements AutoCloseable {
+
+    /**
+     * Number of entries inspected to pick an eviction victim when full.
+     */
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+
+    /**
+     * Most slots read while sampling; the slot array is at most half full,
+     * so this nearly always finds a full sample.
+     */
+    private static final int EVICTION_MAX_PROBES = 64;
+
+    /**
+     * Last-access timestamps are only rewritten when older than this,
+     * so hot clients do not write to their entry on every request.
+     */
+    private static final long ACCESS_GRANULARITY = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final class Entry<V> {
+        final String key;
+        final V value;
+        volatile long lastAccess;
+        int slot;
+
+        Entry(final String key, final V value, final long now) {
+            this.key = key;
+            this.value = value;
+            this.lastAccess = now;
+        }
+    }
+
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Entries by random slot, for sampling; never more than half full.
+     */
+    private final AtomicReferenceArray<Entry<V>> slots;
+
+    /**
+     * Entries present plus room reserved by inserts in progress; never above maxEntries.
+     */
+    private final AtomicInteger count = new AtomicInteger();
+    private final int maxEntries;
+    private final long idleTtl;
+    private final ScheduledExecutorService sweeper;
+
+    private static final int EXPIRED = 0;
+    private static final int EVICTED = 1;
+
+    private final StripedCounters removals = new StripedCounters(2);
+
+    public ClientStateStore(final int maxEntries, final long idleTtl, final TimeUnit unit) {
+        if (maxEntries <= 0 || idleTtl <= 0) {
+            throw new IllegalArgumentException("maxEntries and idleTtl must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.idleTtl = unit.toNanos(idleTtl);
+        this.slots = new AtomicReferenceArray<>(Math.max(2, maxEntries * 2));
+
+        long sweepPeriod = Math.max(TimeUnit.SECONDS.toNanos(1), this.idleTtl / 2);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "client-state-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.sweeper.scheduleWithFixedDelay(() -> sweep(System.nanoTime()),
+                sweepPeriod, sweepPeriod, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the state of a client, creating it with {@code factory} if absent.
+     */
+    public V get(final String key, final long now, final LongFunction<V> factory) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            reserve(now);
+            Entry<V> created = new Entry<>(key, factory.apply(now), now);
+            entry = entries.computeIfAbsent(key, k -> {
+                claimSlot(created);
+                return created;
+            });
+            if (entry != created) {
+                // Another thread added the client first
+                count.decrementAndGet();
+            }
+        } else if (now - entry.lastAccess > ACCESS_GRANULARITY) {
+            entry.lastAccess = now;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Remove every entry idle for longer than the TTL.
+     */
+    public void sweep(final long now) {
+        for (Map.Entry<String, Entry<V>> e : entries.entrySet()) {
+            Entry<V> entry = e.getValue();
+            if (now - entry.lastAccess > idleTtl && remove(entry)) {
+                removals.increment(EXPIRED);
+            }
+        }
+    }
+
+    /**
+     * Take room for one new entry, evicting while the store is full.
+     */
+    private void reserve(final long now) {
+        while (true) {
+            int c = count.get();
+            if (c < maxEntries) {
+                if (count.compareAndSet(c, c + 1)) {
+                    return;
+                }
+            } else {
+                evictOne(now);
+            }
+        }
+    }
+
+    /**
+     * Put a new entry in a free slot. One exists: occupied slots never
+     * outnumber the entry count, which is at most half the slots.
+     */
+    private void claimSlot(final Entry<V> entry) {
+        int length = slots.length();
+        int i = ThreadLocalRandom.current().nextInt(length);
+        while (!slots.compareAndSet(i, null, entry)) {
+            i = i + 1 == length ? 0 : i + 1;
+        }
+        entry.slot = i;
+    }
+
+    private boolean remove(final Entry<V> entry) {
+        if (!entries.remove(entry.key, entry)) {
+            return false;
+        }
+        slots.compareAndSet(entry.slot, entry, null);
+        count.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Make room for a new client by dropping the least recently seen entry
+     * of a small random sample. Bounded work, so a full table never stalls a request.
+     */
+    private void evictOne(final long now) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Entry<V> victim = null;
+        int sampled = 0;
+        for (int i = 0; i < EVICTION_MAX_PROBES && sampled < EVICTION_SAMPLE_SIZE; i++) {
+            Entry<V> candidate = slots.get(random.nextInt(slots.length()));
+            if (candidate == null) {
+                continue;
+            }
+            sampled++;
+            if (victim == null || candidate.lastAccess - victim.lastAccess < 0) {
+                victim = candidate;
+            }
+        }
+        if (victim != null && remove(victim)) {
+            if (now - victim.lastAccess > idleTtl) {
+                removals.increment(EXPIRED);
+            } else {
+                removals.increment(EVICTED);
+            }
+        }
+    }
+
+    /**
+     * Visit every entry; weakly consistent, never blocks request threads.
+     */
+    public void forEach(final BiConsumer<String, V> action) {
+        entries.forEach((key, entry) -> action.accept(key, entry.value));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Number of entries removed because they were idle longer than the TTL.
+     */
+    public long getExpiredCount() {
+        return removals.sum(EXPIRED);
+    }
+
+    /**
+     * Number of still-active entries dropped because the store was full.
+     */
+    public long getEvictedCount() {
+        return removals.sum(EVICTED);
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+}
@@ -0,0 +1,482 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limits shared by several gateway instances.
+ *
+ * <p>Every node decides locally, like {@link SlidingWindowRateLimiter}, but
+ * counts what the other nodes admitted for the same client and policy as
+ * well. Windows are aligned to the wall clock so all nodes agree on them.
+ * A background thread sends, every interval, the counts of each client and
+ * policy that changed since the last round to every peer over UDP, and
+ * merges what the peers sent. Nodes send their own totals rather than
+ * increments, so lost, duplicated or reordered datagrams are harmless: a
+ * receiver keeps the largest count per node and window.
+ *
+ * <p>Only configured peers are listened to: datagrams from any other source
+ * address, or without a valid HMAC-SHA256 tag over the secret all nodes
+ * share, are dropped unread. Each round reads a bounded number of datagrams,
+ * so a flood cannot keep the thread from sending; the excess is left to the
+ * socket buffer and dropped by the kernel when it is full.
+ *
+ * <p>A client can exceed the limit by what the other nodes admitted for it
+ * within one interval (plus network delay) that has not arrived yet.
+ * Counts of a node not heard from are simply missing, so a partitioned node
+ * falls back to enforcing the limit on its own traffic.
+ */
+public class ClusterRateLimiter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterRateLimiter.class);
+
+    private static final int MAGIC = 0x474B524C;
+    private static final int MAX_DATAGRAM = 1400;
+    private static final int HEADER_BYTES = 4 + 8 + 2;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_BYTES = 32;
+
+    /**
+     * Most datagrams read per round.
+     */
+    private static final int MAX_RECEIVES_PER_ROUND = 256;
+
+    /**
+     * Longest client id gossiped; longer ids are limited per node only.
+     */
+    private static final int MAX_CLIENT_ID_BYTES = 255;
+    private static final int MAX_COUNT = SlidingWindowRateLimiter.MAX_LIMIT;
+
+    private final int[] limits;
+    private final long[] windows;
+    private final long nodeId = ThreadLocalRandom.current().nextLong();
+    private final ClientStateStore<AtomicReferenceArray<Usage>> usage;
+    private final LongFunction<AtomicReferenceArray<Usage>> newClient;
+    private final Queue<Usage> dirty = new ConcurrentLinkedQueue<>();
+    private final Set<InetSocketAddress> peers = ConcurrentHashMap.newKeySet();
+    private final int maxPeers;
+
+    /**
+     * Node id and last time heard from (nanoTime) per remote slot; only
+     * touched on the gossip thread.
+     */
+    private final long[] peerIds;
+    private final long[] peerSeen;
+    private final long peerExpiry;
+    private int peerCount;
+
+    private final DatagramChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocate(MAX_DATAGRAM);
+    private final ByteBuffer in = ByteBuffer.allocate(MAX_DATAGRAM);
+    private final byte[] tag = new byte[MAC_BYTES];
+    private final byte[] receivedTag = new byte[MAC_BYTES];
+
+    /**
+     * Only used on the gossip thread.
+     */
+    private final Mac mac;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Wall clock in nanoseconds since the epoch; windows are aligned to it
+     * so every node agrees on which window a request falls in.
+     */
+    private final LongSupplier wallClock;
+
+    private volatile long sentDatagrams;
+    private volatile long receivedDatagrams;
+    private volatile long rejectedDatagrams;
+
+    /**
+     * @param limits requests per window of each policy, indexed by policy id
+     * @param windows window of each policy in nanoseconds, indexed by policy id
+     * @param bindAddress local address and UDP port to listen on, port 0 for any
+     * @param secret key of the HMAC every datagram carries, the same on all nodes
+     * @param maxPeers most other nodes whose counts are tracked
+     */
+    public ClusterRateLimiter(final int[] limits, final long[] windows, final int maxClients,
+            final InetSocketAddress bindAddress, final byte[] secret, final int maxPeers, final long interval,
+            final TimeUnit unit) throws IOException {
+        this(limits, windows, maxClients, bindAddress, secret, maxPeers, interval, unit,
+                () -> TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()));
+    }
+
+    ClusterRateLimiter(final int[] limits, final long[] windows, final int maxClients,
+            final InetSocketAddress bindAddress, final byte[] secret, final int maxPeers, final long interval,
+            final TimeUnit unit, final LongSupplier wallClock) throws IOException {
+        if (limits.length != windows.length) {
+            throw new IllegalArgumentException("One limit and one window per policy");
+        }
+        if (secret == null || secret.length == 0) {
+            throw new IllegalArgumentException("A shared secret is required");
+        }
+        long longest = 0;
+        for (int i = 0; i < limits.length; i++) {
+            if (limits[i] <= 0 || limits[i] > MAX_COUNT || windows[i] <= 0) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_COUNT
+                        + " and window positive");
+            }
+            longest = Math.max(longest, windows[i]);
+        }
+        this.limits = limits.clone();
+        this.windows = windows.clone();
+        this.maxPeers = maxPeers;
+        this.wallClock = wallClock;
+        this.peerIds = new long[maxPeers];
+        this.peerSeen = new long[maxPeers];
+        // Two windows of silence and every count a peer sent is out of the window
+        this.peerExpiry = 2 * longest;
+        int slots = limits.length;
+        this.newClient = now -> new AtomicReferenceArray<>(slots);
+        this.usage = new ClientStateStore<>(maxClients, longest, TimeUnit.NANOSECONDS);
+        try {
+            this.mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+        }
+
+        this.channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.bind(bindAddress);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rate-limit-gossip");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::gossip, interval, interval, unit);
+    }
+
+    /**
+     * Add a node to send counts to and accept counts from. This node's own
+     * address is ignored, so every node can be given the same list.
+     */
+    public void addPeer(final InetSocketAddress peer) throws IOException {
+        if (peer.isUnresolved()) {
+            throw new IOException("Cannot resolve rate limit peer " + peer.getHostString());
+        }
+        if (!isSelf(peer)) {
+            peers.add(peer);
+        }
+    }
+
+    private boolean isSelf(final InetSocketAddress peer) throws IOException {
+        InetSocketAddress local = (InetSocketAddress) channel.getLocalAddress();
+        if (peer.getPort() != local.getPort()) {
+            return false;
+        }
+        if (local.getAddress().isAnyLocalAddress()) {
+            // Listening on every interface: any address of this host is this node
+            return peer.getAddress().isAnyLocalAddress() || peer.getAddress().isLoopbackAddress()
+                    || NetworkInterface.getByInetAddress(peer.getAddress()) != null;
+        }
+        return peer.getAddress().equals(local.getAddress());
+    }
+
+    /**
+     * Try to take one permit for {@code clientId} under {@code policy},
+     * counting what every node of the cluster admitted.
+     */
+    public boolean tryAcquire(final String clientId, final RateLimitPolicy policy) {
+        int id = policy.getId();
+        Usage u = usage(clientId, id, System.nanoTime());
+        long wall = wallClock.getAsLong();
+        long window = windows[id];
+        int index = (int) Math.floorDiv(wall, window);
+        long elapsed = Math.floorMod(wall, window);
+
+        long remotePrevious = 0;
+        long remoteCurrent = 0;
+        for (int p = 0; p < u.remote.length(); p++) {
+            long packed = u.remote.get(p);
+            remotePrevious += count(packed, index - 1);
+            remoteCurrent += count(packed, index);
+        }
+
+        while (true) {
+            long packed = u.local.get();
+            // Never roll back a window another thread already moved to with a fresher clock;
+            // indexes wrap, so they are compared by their distance modulo 2^32
+            int stored = (int) (packed >>> 32);
+            int target = packed == 0 || index - stored >= 0 ? index : stored;
+            long previous = count(packed, target - 1);
+            long current = count(packed, target);
+
+            long weighted = (previous + remotePrevious) * (window - elapsed) / window;
+            if (weighted + current + remoteCurrent >= limits[id]) {
+                return false;
+            }
+            if (u.local.compareAndSet(packed, pack(target, previous, Math.min(current + 1, MAX_COUNT)))) {
+                if (DIRTY.compareAndSet(u, 0, 1)) {
+                    dirty.add(u);
+                }
+                return true;
+            }
+        }
+    }
+
+    private Usage usage(final String clientId, final int policy, final long now) {
+        AtomicReferenceArray<Usage> slots = usage.get(clientId, now, newClient);
+        Usage u = slots.get(policy);
+        if (u == null) {
+            slots.compareAndSet(policy, null, new Usage(clientId, policy, maxPeers));
+            u = slots.get(policy);
+        }
+        return u;
+    }
+
+    /**
+     * Count a packed word holds for window {@code index}: its current count,
+     * its previous count when it is one window ahead, or nothing.
+     */
+    private static long count(final long packed, final int index) {
+        int stored = (int) (packed >>> 32);
+        if (stored == index) {
+            return packed & 0xFFFF;
+        }
+        if (stored - 1 == index) {
+            return (packed >>> 16) & 0xFFFF;
+        }
+        return 0;
+    }
+
+    private static long pack(final int index, final long previous, final long current) {
+        return ((long) index << 32) | (previous << 16) | current;
+    }
+
+    private void gossip() {
+        try {
+            receive();
+            send();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Rate limit gossip failed", e);
+        }
+    }
+
+    private void send() throws IOException {
+        out.clear().position(HEADER_BYTES);
+        int entries = 0;
+        for (Usage u; (u = dirty.poll()) != null;) {
+            // Clear first: an update racing with this read marks it again
+            u.dirty = 0;
+            long packed = u.local.get();
+            byte[] client = u.clientId.getBytes(StandardCharsets.UTF_8);
+            if (client.length > MAX_CLIENT_ID_BYTES) {
+                continue;
+            }
+            if (out.remaining() < 2 + 8 + 1 + client.length + MAC_BYTES) {
+                flush(entries);
+                out.clear().position(HEADER_BYTES);
+                entries = 0;
+            }
+            out.putShort((short) u.policy).putLong(packed).put((byte) client.length).put(client);
+            entries++;
+        }
+        if (entries > 0) {
+            flush(entries);
+        }
+    }
+
+    private void flush(final int entries) throws IOException {
+        out.putInt(0, MAGIC).putLong(4, nodeId).putShort(12, (short) entries);
+        mac.update(out.array(), 0, out.position());
+        try {
+            mac.doFinal(tag, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        out.put(tag);
+        out.flip();
+        for (InetSocketAddress peer : peers) {
+            channel.send(out.duplicate(), peer);
+        }
+        sentDatagrams++;
+    }
+
+    private void receive() throws IOException {
+        long now = System.nanoTime();
+        SocketAddress source;
+        for (int n = 0; n < MAX_RECEIVES_PER_ROUND && (source = channel.receive(in.clear())) != null; n++) {
+            in.flip();
+            if (!peers.contains(source) || !authentic(in)) {
+                rejectedDatagrams++;
+                continue;
+            }
+            in.limit(in.limit() - MAC_BYTES);
+            if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+                continue;
+            }
+            long sender = in.getLong();
+            int slot = sender == nodeId ? -1 : peerSlot(sender, now);
+            if (slot < 0) {
+                continue;
+            }
+            receivedDatagrams++;
+            int entries = in.getShort();
+            for (int i = 0; i < entries && in.remaining() >= 2 + 8 + 1; i++) {
+                int policy = in.getShort();
+                long packed = in.getLong();
+                int length = in.get() & 0xFF;
+                if (in.remaining() < length) {
+                    break;
+                }
+                String clientId = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+                if (policy >= 0 && policy < limits.length) {
+                    merge(usage(clientId, policy, now).remote, slot, packed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the datagram in {@code buffer} ends with the tag of its
+     * content under the shared secret.
+     */
+    private boolean authentic(final ByteBuffer buffer) {
+        int length = buffer.remaining() - MAC_BYTES;
+        if (length < 0) {
+            return false;
+        }
+        mac.update(buffer.array(), 0, length);
+        try {
+            mac.doFinal(tag, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        System.arraycopy(buffer.array(), length, receivedTag, 0, MAC_BYTES);
+        return MessageDigest.isEqual(tag, receivedTag);
+    }
+
+    /**
+     * Keep the newest window, and the larger counts within the same window.
+     */
+    private static void merge(final AtomicLongArray remote, final int slot, final long incoming) {
+        while (true) {
+            long existing = remote.get(slot);
+            int stored = (int) (existing >>> 32);
+            int index = (int) (incoming >>> 32);
+            long merged;
+            if (existing == 0 || index - stored > 0) {
+                merged = incoming;
+            } else if (index == stored) {
+                merged = pack(index, Math.max((existing >>> 16) & 0xFFFF, (incoming >>> 16) & 0xFFFF),
+                        Math.max(existing & 0xFFFF, incoming & 0xFFFF));
+            } else {
+                return;
+            }
+            if (merged == existing || remote.compareAndSet(slot, existing, merged)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Slot of a peer, taking a free one or the one of a node silent long
+     * enough that none of its counts still matter; -1 when all are in use.
+     */
+    private int peerSlot(final long sender, final long now) {
+        for (int i = 0; i < peerCount; i++) {
+            if (peerIds[i] == sender) {
+                peerSeen[i] = now;
+                return i;
+            }
+        }
+        int slot = -1;
+        if (peerCount < maxPeers) {
+            slot = peerCount++;
+        } else {
+            for (int i = 0; i < peerCount; i++) {
+                if (now - peerSeen[i] > peerExpiry) {
+                    slot = i;
+                    break;
+                }
+            }
+            if (slot < 0) {
+                return -1;
+            }
+        }
+        peerIds[slot] = sender;
+        peerSeen[slot] = now;
+        return slot;
+    }
+
+    public int getLocalPort() throws IOException {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Gossip counters, for the dashboard.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("peers", peers.size());
+        stats.put("sentDatagrams", sentDatagrams);
+        stats.put("receivedDatagrams", receivedDatagrams);
+        stats.put("rejectedDatagrams", rejectedDatagrams);
+        stats.put("trackedClients", usage.size());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        usage.close();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Usage> DIRTY = AtomicIntegerFieldUpdater
+            .newUpdater(Usage.class, "dirty");
+
+    /**
+     * Counts of one client under one policy: this node's own, as a sliding
+     * window word (index, previous, current), and the last word received from
+     * each peer slot.
+     */
+    private static final class Usage {
+
+        final String clientId;
+        final int policy;
+        final LimiterState local = new LimiterState(0);
+        final AtomicLongArray remote;
+        volatile int dirty;
+
+        Usage(final String clientId, final int policy, final int peers) {
+            this.clientId = clientId;
+            this.policy = policy;
+            this.remote = new AtomicLongArray(peers);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generic Cell Rate Algorithm.
+ * The state word is the theoretical arrival time (TAT) of the next request;
+ * a request is admitted while TAT stays within the burst tolerance of now.
+ */
+public class GcraRateLimiter implements RateLimiter {
+
+    /**
+     * Nanoseconds between two requests at the sustained rate.
+     */
+    private final long emissionInterval;
+
+    /**
+     * How far TAT may run ahead of now, i.e. (burst - 1) emission intervals.
+     */
+    private final long tolerance;
+
+    public GcraRateLimiter(final int limit, final long period, final TimeUnit unit) {
+        this(limit, limit, period, unit);
+    }
+
+    public GcraRateLimiter(final int limit, final int burst, final long period, final TimeUnit unit) {
+        if (limit <= 0 || burst <= 0 || period <= 0) {
+            throw new IllegalArgumentException("limit, burst and period must be positive");
+        }
+        this.emissionInterval = Math.max(1L, unit.toNanos(period) / limit);
+        this.tolerance = (burst - 1) * emissionInterval;
+    }
+
+    @Override
+    public LimiterState newState(final long nowNanos) {
+        return new LimiterState(nowNanos);
+    }
+
+    @Override
+    public boolean tryAcquire(final LimiterState state, final long nowNanos) {
+        while (true) {
+            long tat = state.get();
+            long base = tat - nowNanos > 0 ? tat : nowNanos;
+            if (base - nowNanos > tolerance) {
+                return false;
+            }
+            if (state.compareAndSet(tat, base + emissionInterval)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Per-client limiter state: a single primitive word updated with CAS.
+ * What the word means is up to the {@link RateLimiter} that created it.
+ */
+public final class LimiterState {
+
+    private static final AtomicLongFieldUpdater<LimiterState> VALUE = AtomicLongFieldUpdater
+            .newUpdater(LimiterState.class, "value");
+
+    private volatile long value;
+
+    public LimiterState(final long initialValue) {
+        this.value = initialValue;
+    }
+
+    public long get() {
+        return value;
+    }
+
+    public void set(final long newValue) {
+        value = newValue;
+    }
+
+    public boolean compareAndSet(final long expected, final long newValue) {
+        return VALUE.compareAndSet(this, expected, newValue);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiting algorithms selectable from configuration.
+ */
+public enum RateLimitAlgorithm {
+
+    GCRA {
+        @Override
+        public RateLimiter create(final int limit, final Duration window) {
+            return new GcraRateLimiter(limit, window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    },
+
+    TOKEN_BUCKET {
+        @Override
+        public RateLimiter create(final int limit, final Duration window) {
+            return new TokenBucketRateLimiter(limit, limit, window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    },
+
+    SLIDING_WINDOW {
+        @Override
+        public RateLimiter create(final int limit, final Duration window) {
+            return new SlidingWindowRateLimiter(limit, window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    };
+
+    /**
+     * Build a limiter admitting {@code limit} requests per {@code window}.
+     */
+    public abstract RateLimiter create(int limit, Duration window);
+}
@@ -0,0 +1,88 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * A rate limit applied to requests matching a path pattern and a set of
+ * HTTP methods. Each policy of a {@link RoutePolicyTable} has a dense id so
+ * per-client state can be kept in an array slot instead of a map.
+ */
+public final class RateLimitPolicy {
+
+    private static final String[] METHODS = {
+            "GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS", "TRACE" };
+
+    /**
+     * Method mask matching every HTTP method.
+     */
+    public static final int ANY_METHOD = -1;
+
+    private final int id;
+    private final String pattern;
+    private final int methodMask;
+    private final RateLimiter limiter;
+    private final long window;
+
+    RateLimitPolicy(final int id, final String pattern, final int methodMask,
+            final RateLimiter limiter, final long windowNanos) {
+        this.id = id;
+        this.pattern = pattern;
+        this.methodMask = methodMask;
+        this.limiter = limiter;
+        this.window = windowNanos;
+    }
+
+    /**
+     * Bit for an HTTP method name, or 0 for an unknown method.
+     */
+    public static int methodBit(final String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Mask for a list of method names; an empty list means any method.
+     */
+    public static int methodMask(final Collection<String> methods) {
+        if (methods == null || methods.isEmpty()) {
+            return ANY_METHOD;
+        }
+        int mask = 0;
+        for (String method : methods) {
+            int bit = methodBit(method.trim().toUpperCase(Locale.ROOT));
+            if (bit == 0) {
+                throw new IllegalArgumentException("Unknown HTTP method: " + method);
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    boolean accepts(final int methodBit) {
+        return methodMask == ANY_METHOD || (methodMask & methodBit) != 0;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public RateLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Window of the policy in nanoseconds.
+     */
+    public long getWindow() {
+        return window;
+    }
+}
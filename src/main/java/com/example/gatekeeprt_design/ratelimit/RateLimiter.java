@@ -0,0 +1,28 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+/**
+ * Pluggable rate limiting algorithm.
+ * Implementations are stateless and thread-safe; all per-client state lives
+ * in a {@link LimiterState} so a decision is O(1) and allocation-free.
+ */
+public interface RateLimiter {
+
+    /**
+     * Create the state for a client seen for the first time.
+     */
+    LimiterState newState(long nowNanos);
+
+    /**
+     * Try to take one permit for the client owning {@code state}.
+     */
+    boolean tryAcquire(LimiterState state, long nowNanos);
+
+    /**
+     * Translate a state word to a clock reading {@code shiftNanos} more at
+     * the same instant, e.g. the {@code System.nanoTime} of a restarted JVM.
+     * The default suits words holding an instant.
+     */
+    default long rebase(final long state, final long shiftNanos) {
+        return state + shiftNanos;
+    }
+}
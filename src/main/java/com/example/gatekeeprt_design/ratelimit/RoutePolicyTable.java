@@ -0,0 +1,171 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Precompiled mapping from request path and method to a {@link RateLimitPolicy}.
+ * Patterns are either an exact path ({@code /upload}) or a path followed by
+ * {@code /**}, which matches that path and everything below it. They are
+ * compiled into a character trie, so matching walks the request URI once and
+ * costs the same whether the table holds one policy or hundreds.
+ * Precedence: exact match, then the longest matching prefix, then the default.
+ */
+public final class RoutePolicyTable {
+
+    private static final String SUBTREE_SUFFIX = "/**";
+
+    private static final RateLimitPolicy[] NO_POLICIES = new RateLimitPolicy[0];
+
+    private static final class Node {
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        RateLimitPolicy[] exact = NO_POLICIES;
+        RateLimitPolicy[] subtree = NO_POLICIES;
+
+        Node child(final char c) {
+            char[] l = labels;
+            for (int i = 0; i < l.length; i++) {
+                if (l[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(final char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            Node node = new Node();
+            labels = Arrays.copyOf(labels, labels.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            labels[labels.length - 1] = c;
+            children[children.length - 1] = node;
+            return node;
+        }
+    }
+
+    private final Node root;
+    private final RateLimitPolicy defaultPolicy;
+    private final List<RateLimitPolicy> policies;
+    private final long longestWindow;
+
+    private RoutePolicyTable(final Node root, final List<RateLimitPolicy> policies) {
+        this.root = root;
+        this.policies = List.copyOf(policies);
+        this.defaultPolicy = policies.get(0);
+        long longest = 0;
+        for (RateLimitPolicy policy : policies) {
+            longest = Math.max(longest, policy.getWindow());
+        }
+        this.longestWindow = longest;
+    }
+
+    public static Builder builder(final RateLimiter defaultLimiter, final long defaultWindowNanos) {
+        return new Builder(defaultLimiter, defaultWindowNanos);
+    }
+
+    /**
+     * Find the policy governing a request. Never returns null.
+     */
+    public RateLimitPolicy match(final String method, final String path) {
+        int methodBit = RateLimitPolicy.methodBit(method);
+        RateLimitPolicy best = defaultPolicy;
+        Node node = root;
+        int length = path.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = path.charAt(i);
+            if (c == '/') {
+                best = pick(node.subtree, methodBit, best);
+            }
+            node = node.child(c);
+            if (node == null) {
+                return best;
+            }
+        }
+
+        best = pick(node.subtree, methodBit, best);
+        return pick(node.exact, methodBit, best);
+    }
+
+    private static RateLimitPolicy pick(final RateLimitPolicy[] candidates, final int methodBit,
+            final RateLimitPolicy fallback) {
+        for (RateLimitPolicy policy : candidates) {
+            if (policy.accepts(methodBit)) {
+                return policy;
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * All policies, indexed by id; id 0 is the default policy.
+     */
+    public List<RateLimitPolicy> getPolicies() {
+        return policies;
+    }
+
+    /**
+     * Longest window of any policy, in nanoseconds.
+     */
+    public long getLongestWindow() {
+        return longestWindow;
+    }
+
+    public static final class Builder {
+
+        private final Node root = new Node();
+        private final List<RateLimitPolicy> policies = new ArrayList<>();
+
+        private Builder(final RateLimiter defaultLimiter, final long defaultWindowNanos) {
+            policies.add(new RateLimitPolicy(0, SUBTREE_SUFFIX, RateLimitPolicy.ANY_METHOD,
+                    defaultLimiter, defaultWindowNanos));
+        }
+
+        /**
+         * Add a policy; when two policies share a pattern, the first added wins
+         * for the methods they have in common.
+         */
+        public Builder add(final String pattern, final Collection<String> methods,
+                final RateLimiter limiter, final long windowNanos) {
+            if (pattern == null || !pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Path pattern must start with '/': " + pattern);
+            }
+            boolean subtree = pattern.endsWith(SUBTREE_SUFFIX);
+            String path = subtree ? pattern.substring(0, pattern.length() - SUBTREE_SUFFIX.length()) : pattern;
+            if (path.indexOf('*') >= 0) {
+                throw new IllegalArgumentException("Only a trailing /** wildcard is supported: " + pattern);
+            }
+
+            RateLimitPolicy policy = new RateLimitPolicy(policies.size(), pattern,
+                    RateLimitPolicy.methodMask(methods), limiter, windowNanos);
+            policies.add(policy);
+
+            Node node = root;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.addChild(path.charAt(i));
+            }
+            if (subtree) {
+                node.subtree = append(node.subtree, policy);
+            } else {
+                node.exact = append(node.exact, policy);
+            }
+            return this;
+        }
+
+        public RoutePolicyTable build() {
+            return new RoutePolicyTable(root, policies);
+        }
+
+        private static RateLimitPolicy[] append(final RateLimitPolicy[] array, final RateLimitPolicy policy) {
+            RateLimitPolicy[] copy = Arrays.copyOf(array, array.length + 1);
+            copy[array.length] = policy;
+            return copy;
+        }
+    }
+}
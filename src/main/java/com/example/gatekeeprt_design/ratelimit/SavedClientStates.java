@@ -0,0 +1,15 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+/**
+ * Limiter state saved before a restart, looked up the first time a client
+ * is seen again.
+ */
+@FunctionalInterface
+public interface SavedClientStates {
+
+    /**
+     * The saved state of {@code clientId} under {@code policy}, on this
+     * process's clock, or null if there is none.
+     */
+    LimiterState restore(String clientId, RateLimitPolicy policy);
+}
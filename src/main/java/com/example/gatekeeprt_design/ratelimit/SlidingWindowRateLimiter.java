@@ -0,0 +1,103 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Approximate sliding window counter.
+ * Keeps the request count of the current and the previous fixed window and
+ * weights the previous one by how much of it still overlaps the sliding
+ * window ending now. The state word packs the current window index modulo
+ * 2^32 (high 32 bits), the previous count (16 bits) and the current count
+ * (16 bits). Indexes are only ever subtracted, modulo 2^32, so they may wrap
+ * freely whatever the magnitude of {@code nanoTime}; a state idle for 2^31
+ * windows would be misread, which the idle TTL of the client store rules out.
+ */
+public class SlidingWindowRateLimiter implements RateLimiter {
+
+    /**
+     * Largest limit that fits in a 16-bit counter.
+     */
+    public static final int MAX_LIMIT = 0xFFFF;
+
+    /**
+     * Longest window for which {@code previous * remaining} cannot overflow.
+     */
+    private static final long MAX_WINDOW_NANOS = Long.MAX_VALUE / MAX_LIMIT;
+
+    private final int limit;
+    private final long window;
+
+    public SlidingWindowRateLimiter(final int limit, final long window, final TimeUnit unit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (window <= 0 || unit.toNanos(window) > MAX_WINDOW_NANOS) {
+            throw new IllegalArgumentException("window must be positive and at most "
+                    + TimeUnit.NANOSECONDS.toHours(MAX_WINDOW_NANOS) + " hours");
+        }
+        this.limit = limit;
+        this.window = unit.toNanos(window);
+    }
+
+    @Override
+    public LimiterState newState(final long nowNanos) {
+        return new LimiterState(pack(windowIndex(nowNanos), 0, 0));
+    }
+
+    @Override
+    public boolean tryAcquire(final LimiterState state, final long nowNanos) {
+        long index = windowIndex(nowNanos);
+        long elapsed = Math.floorMod(nowNanos, window);
+
+        while (true) {
+            long packed = state.get();
+            long stored = packed >>> 32;
+            // Signed distance between the two indexes modulo 2^32
+            int shift = (int) (index - stored);
+            long target = index;
+            if (shift < 0) {
+                // Another thread already rolled the window with a fresher clock
+                shift = 0;
+                target = stored;
+            }
+            long previous;
+            long current;
+            if (shift == 0) {
+                previous = (packed >>> 16) & 0xFFFF;
+                current = packed & 0xFFFF;
+            } else if (shift == 1) {
+                previous = packed & 0xFFFF;
+                current = 0;
+            } else {
+                previous = 0;
+                current = 0;
+            }
+
+            long weighted = previous * (window - elapsed) / window;
+            if (weighted + current >= limit) {
+                return false;
+            }
+            if (state.compareAndSet(packed, pack(target, previous, current + 1))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves the window index by the shift rounded to whole windows; the
+     * counts stay with the nearest window.
+     */
+    @Override
+    public long rebase(final long state, final long shiftNanos) {
+        long index = (state >>> 32) + Math.floorDiv(shiftNanos + window / 2, window);
+        return pack(index, (state >>> 16) & 0xFFFF, state & 0xFFFF);
+    }
+
+    private long windowIndex(final long nowNanos) {
+        return Math.floorDiv(nowNanos, window);
+    }
+
+    private static long pack(final long index, final long previous, final long current) {
+        return (index << 32) | (previous << 16) | current;
+    }
+}
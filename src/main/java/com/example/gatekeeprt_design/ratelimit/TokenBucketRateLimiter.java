@@ -0,0 +1,52 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket with a fixed capacity refilled at a constant rate.
+ * Instead of storing a token count and a refill timestamp, the state word is
+ * the instant at which the bucket was (or will be) empty; the current token
+ * count is {@code (now - emptyAt) / refillInterval}, capped at the capacity.
+ * Refill and take therefore collapse into a single CAS.
+ */
+public class TokenBucketRateLimiter implements RateLimiter {
+
+    /**
+     * Nanoseconds needed to refill one token.
+     */
+    private final long refillInterval;
+
+    /**
+     * Nanoseconds needed to refill the whole bucket.
+     */
+    private final long fillTime;
+
+    public TokenBucketRateLimiter(final int capacity, final int refillTokens,
+            final long refillPeriod, final TimeUnit unit) {
+        if (capacity <= 0 || refillTokens <= 0 || refillPeriod <= 0) {
+            throw new IllegalArgumentException("capacity and refill rate must be positive");
+        }
+        this.refillInterval = Math.max(1L, unit.toNanos(refillPeriod) / refillTokens);
+        this.fillTime = capacity * refillInterval;
+    }
+
+    @Override
+    public LimiterState newState(final long nowNanos) {
+        return new LimiterState(nowNanos - fillTime);
+    }
+
+    @Override
+    public boolean tryAcquire(final LimiterState state, final long nowNanos) {
+        while (true) {
+            long emptyAt = state.get();
+            long full = nowNanos - fillTime;
+            long base = emptyAt - full < 0 ? full : emptyAt;
+            if (nowNanos - base < refillInterval) {
+                return false;
+            }
+            if (state.compareAndSet(emptyAt, base + refillInterval)) {
+                return true;
+            }
+        }
+    }
+}
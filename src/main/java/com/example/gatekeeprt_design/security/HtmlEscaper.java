@@ -0,0 +1,89 @@
+package com.example.gatekeeprt_design.security;
+
+import java.io.IOException;
+
+/**
+ * Escapes {@code & < > " '} for HTML text and attribute values.
+ *
+ * <p>Input without any of them is returned as is, without allocating.
+ * Otherwise the output length is counted from the first special character on
+ * and the result is built in one exactly sized array. {@link #escape(CharSequence,
+ * Appendable)} writes the unchanged runs and the entities straight to the
+ * destination instead.
+ */
+public final class HtmlEscaper {
+
+    private HtmlEscaper() {
+    }
+
+    /**
+     * {@code input} escaped, or {@code input} itself if nothing needs escaping.
+     */
+    public static String escape(final String input) {
+        int length = input.length();
+        int first = 0;
+        while (first < length && replacement(input.charAt(first)) == null) {
+            first++;
+        }
+        if (first == length) {
+            return input;
+        }
+        int size = length;
+        for (int i = first; i < length; i++) {
+            String entity = replacement(input.charAt(i));
+            if (entity != null) {
+                size += entity.length() - 1;
+            }
+        }
+        char[] out = new char[size];
+        input.getChars(0, first, out, 0);
+        int n = first;
+        for (int i = first; i < length; i++) {
+            char c = input.charAt(i);
+            String entity = replacement(c);
+            if (entity == null) {
+                out[n++] = c;
+            } else {
+                entity.getChars(0, entity.length(), out, n);
+                n += entity.length();
+            }
+        }
+        return new String(out);
+    }
+
+    /**
+     * Write {@code input} escaped to {@code out}.
+     */
+    public static void escape(final CharSequence input, final Appendable out) throws IOException {
+        int length = input.length();
+        int run = 0;
+        for (int i = 0; i < length; i++) {
+            String entity = replacement(input.charAt(i));
+            if (entity != null) {
+                if (run < i) {
+                    out.append(input, run, i);
+                }
+                out.append(entity);
+                run = i + 1;
+            }
+        }
+        if (run < length) {
+            out.append(input, run, length);
+        }
+    }
+
+    private static String replacement(final char c) {
+        // Everything above '>' is left alone, so most characters take one comparison
+        if (c > '>') {
+            return null;
+        }
+        return switch (c) {
+            case '&' -> "&amp;";
+            case '<' -> "&lt;";
+            case '>' -> "&gt;";
+            case '"' -> "&quot;";
+            case '\'' -> "&#39;";
+            default -> null;
+        };
+    }
+}
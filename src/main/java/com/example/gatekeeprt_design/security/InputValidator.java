@@ -1,31 +1,150 @@
 package com.example.gatekeeprt_design.security;
 
 import org.springframework.stereotype.Component;
-import java.util.regex.Pattern;
 
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Format checks for registration fields. Each check is one scan over the
+ * characters with no allocation, accepting exactly what these patterns
+ * match:
+ * <pre>
+ * email     ^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$
+ * username  ^[A-Za-z0-9_]{3,20}$
+ * password  ^(?=.*[A-Za-z])(?=.*\d)[A-Za-z\d@$!%*#?&]{8,}$
+ * </pre>
+ */
 //@Component
 public class InputValidator {
 
-    private static final Pattern EMAIL_PATTERN = Pattern.compile(
-            "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
-    private static final Pattern USERNAME_PATTERN = Pattern.compile(
-            "^[A-Za-z0-9_]{3,20}$");
-    private static final Pattern PASSWORD_PATTERN = Pattern.compile(
-            "^(?=.*[A-Za-z])(?=.*\\d)[A-Za-z\\d@$!%*#?&]{8,}$");
+    /**
+     * Batches at least this large are validated in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
 
     public boolean isValidEmail(String email) {
-        return email != null && EMAIL_PATTERN.matcher(email).matches();
+        if (email == null) {
+            return false;
+        }
+        int at = email.indexOf('@');
+        if (at <= 0 || at == email.length() - 1) {
+            return false;
+        }
+        for (int i = 0; i < at; i++) {
+            char c = email.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '+' && c != '_' && c != '.' && c != '-') {
+                return false;
+            }
+        }
+        for (int i = at + 1; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '.' && c != '-') {
+                return false;
+            }
+        }
+        return true;
     }
 
     public boolean isValidUsername(String username) {
-        return username != null && USERNAME_PATTERN.matcher(username).matches();
+        if (username == null || username.length() < 3 || username.length() > 20) {
+            return false;
+        }
+        for (int i = 0; i < username.length(); i++) {
+            char c = username.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '_') {
+                return false;
+            }
+        }
+        return true;
     }
 
     public boolean isValidPassword(String password) {
-        return password != null && PASSWORD_PATTERN.matcher(password).matches();
+        if (password == null || password.length() < 8) {
+            return false;
+        }
+        boolean letter = false;
+        boolean digit = false;
+        for (int i = 0; i < password.length(); i++) {
+            char c = password.charAt(i);
+            if (isAsciiLetter(c)) {
+                letter = true;
+            } else if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (c != '@' && c != '$' && c != '!' && c != '%' && c != '*' && c != '#' && c != '?' && c != '&') {
+                return false;
+            }
+        }
+        return letter && digit;
     }
 
     public boolean isValidFilePath(String filename) {
         return filename != null && !filename.contains("..") && !filename.contains("/");
     }
+
+    /**
+     * Validate many registrations, in parallel for large batches. A null
+     * record fails on every field.
+     *
+     * @return the invalid records, in input order, with the fields that failed
+     */
+    public List<Failure> validateAll(List<Registration> registrations) {
+        IntStream indexes = IntStream.range(0, registrations.size());
+        if (registrations.size() >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        return indexes.mapToObj(i -> validate(i, registrations.get(i)))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private Failure validate(int index, Registration registration) {
+        if (registration == null) {
+            return new Failure(index, EnumSet.allOf(Field.class));
+        }
+        boolean username = isValidUsername(registration.username());
+        boolean email = isValidEmail(registration.email());
+        boolean password = isValidPassword(registration.password());
+        if (username && email && password) {
+            return null;
+        }
+        Set<Field> fields = EnumSet.noneOf(Field.class);
+        if (!username) {
+            fields.add(Field.USERNAME);
+        }
+        if (!email) {
+            fields.add(Field.EMAIL);
+        }
+        if (!password) {
+            fields.add(Field.PASSWORD);
+        }
+        return new Failure(index, fields);
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    public enum Field {
+        USERNAME, EMAIL, PASSWORD
+    }
+
+    /**
+     * One record of a bulk registration or import.
+     */
+    public record Registration(String username, String email, String password) {
+    }
+
+    /**
+     * The fields of the record at {@code index} that did not validate.
+     */
+    public record Failure(int index, Set<Field> fields) {
+    }
 }
@@ -0,0 +1,222 @@
+package com.example.gatekeeprt_design.security;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Resolves file names against a base directory to real paths, rejecting
+ * anything that resolves outside of it, and remembers the result so a name
+ * asked for again costs one {@code lstat} instead of two {@code toRealPath}
+ * syscall chains.
+ *
+ * <p>Each base directory's real path is resolved once and the directory is
+ * watched: any entry created or deleted in it (a rotated log, a symlink put
+ * in place of a file) drops everything cached for that directory. Watch
+ * events arrive late, so a hit is only trusted while the name is still not a
+ * symlink and still has the file key it was resolved with; otherwise it is
+ * resolved again. Only plain names of regular direct children are cached,
+ * since changes further down are not watched; other names are resolved
+ * every time.
+ *
+ * <p>One instance is shared by the application, as it owns a watch thread.
+ */
+@Component
+public class ResolvedPathCache implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ResolvedPathCache.class);
+
+    private static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private final int maxEntries;
+    private final Map<String, Base> bases = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Base> watched = new ConcurrentHashMap<>();
+    private final WatchService watchService;
+    private final ExecutorService executor;
+
+    public ResolvedPathCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ResolvedPathCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+        WatchService service = null;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("Cannot watch directories, resolved paths will not be cached", e);
+        }
+        this.watchService = service;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "path-cache-watch");
+            t.setDaemon(true);
+            return t;
+        });
+        if (service != null) {
+            executor.execute(this::watch);
+        }
+    }
+
+    /**
+     * Real path of {@code filename} under {@code baseDir}.
+     *
+     * @throws SecurityException if it resolves outside {@code baseDir}
+     * @throws IOException if it does not exist
+     */
+    public String resolve(final String filename, final String baseDir) throws IOException {
+        Base base = base(baseDir);
+        Entry cached = base.paths.get(filename);
+        if (cached != null) {
+            if (cached.isCurrent(base.realPath.resolve(filename))) {
+                return cached.realPath;
+            }
+            base.paths.remove(filename, cached);
+        }
+        long generation = base.generation;
+        Path requested = base.realPath.resolve(filename).toRealPath();
+        if (!requested.startsWith(base.realPath)) {
+            throw new SecurityException("Path traversal detected");
+        }
+        String result = requested.toString();
+        if (base.key != null && isPlainName(filename) && base.realPath.equals(requested.getParent())
+                && requested.getFileName().toString().equals(filename)
+                && base.paths.size() < maxEntries) {
+            Object fileKey = fileKey(requested);
+            if (fileKey != null) {
+                Entry entry = new Entry(result, fileKey);
+                base.paths.put(filename, entry);
+                if (base.generation != generation) {
+                    // The directory changed while resolving; the result may be stale
+                    base.paths.remove(filename, entry);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Identity of the file at {@code path} itself, or null if it is a
+     * symlink, is gone or the file system has no file keys.
+     */
+    private static Object fileKey(final Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS);
+            return attributes.isSymbolicLink() ? null : attributes.fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Base base(final String baseDir) throws IOException {
+        Base base = bases.get(baseDir);
+        if (base != null && (base.key == null || base.key.isValid())) {
+            return base;
+        }
+        Path realPath = Paths.get(baseDir).toRealPath();
+        WatchKey key = null;
+        if (watchService != null) {
+            try {
+                key = realPath.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (IOException | ClosedWatchServiceException e) {
+                log.debug("Cannot watch {}", realPath, e);
+            }
+        }
+        // Registering a directory again (under another name) returns the same key
+        Base fresh = key != null ? watched.computeIfAbsent(key, k -> new Base(realPath, k))
+                : new Base(realPath, null);
+        bases.put(baseDir, fresh);
+        return fresh;
+    }
+
+    private static boolean isPlainName(final String filename) {
+        return filename.indexOf('/') < 0 && filename.indexOf('\\') < 0;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                key.pollEvents();
+                Base base = watched.get(key);
+                if (base != null) {
+                    base.invalidate();
+                }
+                if (!key.reset()) {
+                    // Directory gone or renamed: resolve the base again next time
+                    watched.remove(key);
+                    bases.values().removeIf(b -> b == base);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Number of names cached across all base directories.
+     */
+    public int size() {
+        return watched.values().stream().mapToInt(base -> base.paths.size()).sum();
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+        bases.clear();
+        watched.clear();
+    }
+
+    private static final class Base {
+
+        final Path realPath;
+        final WatchKey key;
+        final Map<String, Entry> paths = new ConcurrentHashMap<>();
+        volatile long generation;
+
+        Base(final Path realPath, final WatchKey key) {
+            this.realPath = realPath;
+            this.key = key;
+        }
+
+        void invalidate() {
+            generation++;
+            paths.clear();
+        }
+    }
+
+    private record Entry(String realPath, Object fileKey) {
+
+        boolean isCurrent(final Path path) {
+            return fileKey.equals(ResolvedPathCache.fileKey(path));
+        }
+    }
+}
@@ -1,50 +1,59 @@
 package com.example.gatekeeprt_design.security;
 
+import org.owasp.html.PolicyFactory;
+import org.owasp.html.Sanitizers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import com.example.gatekeeprt_design.filter.BotDetectionFilter;
 import com.example.gatekeeprt_design.filter.BenchmarkFilter;
 import com.example.gatekeeprt_design.filter.RateLimitingFilter;
-import com.example.gatekeeprt_design.util.ApplicationContextProvider;
-import org.springframework.context.ApplicationContext;
+import com.example.gatekeeprt_design.gateway.GatewayStage;
+import com.example.gatekeeprt_design.gateway.StageRegistry;
+import com.example.gatekeeprt_design.ratelimit.ClientStateStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 //@Component
 public class SecurityGateway {
 
+    /**
+     * Markup kept by {@link #sanitizeRichText}: inline formatting, paragraphs,
+     * lists, headings and http(s)/mailto links.
+     */
+    private static final PolicyFactory RICH_TEXT_POLICY = Sanitizers.FORMATTING
+            .and(Sanitizers.BLOCKS)
+            .and(Sanitizers.LINKS);
+
     @Autowired(required = false)
     private InputValidator validator;
 
-    private static ApplicationContext getContext() {
-        return ApplicationContextProvider.getApplicationContext();
-    }
+    @Autowired(required = false)
+    private ResolvedPathCache pathCache;
 
     /**
      * Check if Rate Limiting filter is enabled
      */
     public static boolean isRateLimitingEnabled() {
-        ApplicationContext ctx = getContext();
-        return ctx != null && ctx.containsBeanDefinition("rateLimitingFilter")
-                || ctx != null && ctx.getBeansOfType(RateLimitingFilter.class).size() > 0;
+        return StageRegistry.isEnabled(GatewayStage.RATE_LIMITING);
     }
 
     /**
      * Check if Bot Detection filter is enabled
      */
     public static boolean isBotDetectionEnabled() {
-        ApplicationContext ctx = getContext();
-        return ctx != null && ctx.containsBeanDefinition("botDetectionFilter")
-                || ctx != null && ctx.getBeansOfType(BotDetectionFilter.class).size() > 0;
+        return StageRegistry.isEnabled(GatewayStage.BOT_DETECTION);
     }
 
     /**
      * Check if Benchmark filter is enabled
      */
     public static boolean isBenchmarkEnabled() {
-        ApplicationContext ctx = getContext();
-        return ctx != null && ctx.containsBeanDefinition("benchmarkFilter")
-                || ctx != null && ctx.getBeansOfType(BenchmarkFilter.class).size() > 0;
+        return StageRegistry.isEnabled(GatewayStage.BENCHMARK);
     }
 
     /**
@@ -64,8 +73,26 @@ public class SecurityGateway {
     /**
      * Get benchmark metrics as JSON
      */
-    public static String getBenchmarkMetricsJSON() {
-        return BenchmarkFilter.getMetricsJSON();
+    public static String getBenchmarkMetricsJSON(final ObjectMapper objectMapper) {
+        return BenchmarkFilter.getMetricsJSON(objectMapper);
+    }
+
+    /**
+     * Get occupancy and eviction counters of the rate limiter client table
+     */
+    public static Map<String, Object> getRateLimiterStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (RateLimitingFilter filter : StageRegistry.<RateLimitingFilter>getFilters(GatewayStage.RATE_LIMITING)) {
+            ClientStateStore<?> store = filter.getClientStore();
+            stats.put("trackedClients", store.size());
+            stats.put("maxClients", store.getMaxEntries());
+            stats.put("expiredClients", store.getExpiredCount());
+            stats.put("evictedClients", store.getEvictedCount());
+            if (filter.getCluster() != null) {
+                stats.put("cluster", filter.getCluster().getStats());
+            }
+        }
+        return stats;
     }
 
     public boolean validateLogin(String username, String password) {
@@ -86,11 +113,26 @@ public class SecurityGateway {
     public String sanitizeXSS(String input) {
         if (input == null)
             return "";
-        return input.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&#39;");
+        return HtmlEscaper.escape(input);
+    }
+
+    /**
+     * Escape {@code input} straight into {@code out}, e.g. a response writer
+     */
+    public void sanitizeXSS(CharSequence input, Appendable out) throws IOException {
+        if (input != null) {
+            HtmlEscaper.escape(input, out);
+        }
+    }
+
+    /**
+     * Sanitize HTML from rich-text fields: safe formatting is kept, scripts,
+     * event handlers and other markup are dropped
+     */
+    public String sanitizeRichText(String html) {
+        if (html == null)
+            return "";
+        return RICH_TEXT_POLICY.sanitize(html);
     }
 
     public String validateFilePath(String filename, String baseDir) throws SecurityException {
@@ -99,6 +141,9 @@ public class SecurityGateway {
         }
 
         try {
+            if (pathCache != null) {
+                return pathCache.resolve(filename, baseDir);
+            }
             Path base = Paths.get(baseDir).toRealPath();
             Path requested = base.resolve(filename).toRealPath();
 
@@ -131,6 +176,10 @@ public class SecurityGateway {
         return validator.isValidUsername(username);
     }
 
+    public List<InputValidator.Failure> validateRegistrations(List<InputValidator.Registration> registrations) {
+        return validator.validateAll(registrations);
+    }
+
     public String addCSPHeaders() {
         return "default-src 'self'; script-src 'self'; style-src 'self' 'unsafe-inline';";
     }
@@ -0,0 +1,337 @@
+package com.example.gatekeeprt_design.snapshot;
+
+import com.example.gatekeeprt_design.config.SnapshotProperties;
+import com.example.gatekeeprt_design.filter.BenchmarkFilter;
+import com.example.gatekeeprt_design.filter.BotDetectionFilter;
+import com.example.gatekeeprt_design.filter.RateLimitingFilter;
+import com.example.gatekeeprt_design.gateway.GatewayStage;
+import com.example.gatekeeprt_design.gateway.StageRegistry;
+import com.example.gatekeeprt_design.ratelimit.LimiterState;
+import com.example.gatekeeprt_design.ratelimit.RateLimitPolicy;
+import com.example.gatekeeprt_design.ratelimit.SavedClientStates;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saves rate limiter state, the bot detection count and the benchmark
+ * metrics to a {@link StateSnapshot} at a fixed interval and on shutdown,
+ * and brings them back on startup.
+ *
+ * <p>Metrics are small and added back right away. Limiter state is not
+ * loaded: each rate limiting filter is handed a lookup into the mapped
+ * snapshot and a client's saved state is read, and shifted to this
+ * process's clock, the first time the client is seen again. Startup time
+ * therefore does not grow with the number of saved clients. Saved state is
+ * dropped once every window it could still count against has passed, and
+ * per policy when the policy's path, window or algorithm changed.
+ */
+@Component
+public class SnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+
+    private final SnapshotProperties properties;
+    private final Path path;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Lookups into the snapshot read at startup, by filter name; entries are
+     * removed once expired.
+     */
+    private final Map<String, Saved> saved = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the snapshot was read; until then it must not be overwritten.
+     */
+    private volatile boolean started;
+
+    private final AtomicLong restoredClients = new AtomicLong();
+    private volatile long lastWriteMillis;
+    private volatile long lastWriteTookMillis;
+    private volatile int lastWriteClients;
+
+    public SnapshotService(final SnapshotProperties properties) {
+        this.properties = properties;
+        this.path = Paths.get(properties.getFile());
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "state-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        restore(rateLimitingFilters());
+        started = true;
+        long interval = properties.getInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        try {
+            write(rateLimitingFilters());
+        } catch (IOException | RuntimeException e) {
+            // Keep the previous snapshot; a failed tick must not cancel the schedule
+            log.warn("Could not write state snapshot to {}", path, e);
+        }
+    }
+
+    private static Map<String, RateLimitingFilter> rateLimitingFilters() {
+        return StageRegistry.getNamedFilters(GatewayStage.RATE_LIMITING);
+    }
+
+    /**
+     * Add back the saved metrics and hand each filter a lookup into its saved
+     * clients. Filters are matched to saved limiters by name, so adding,
+     * removing or reordering filters does not hand one filter's clients to
+     * another.
+     */
+    void restore(final Map<String, RateLimitingFilter> filters) {
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        StateSnapshot snapshot;
+        try {
+            snapshot = StateSnapshot.open(path);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot.getMetrics()));
+            BotDetectionFilter.addBotDetectionCount(in.readLong());
+            BenchmarkFilter.readSnapshot(in);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable state snapshot {}", path, e);
+            return;
+        }
+        long now = System.nanoTime();
+        long elapsed = TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - snapshot.getWallMillis()));
+        // The snapshot was taken `elapsed` ago; its nanoTime reading then is this clock's `now - elapsed`
+        long shift = now - elapsed - snapshot.getNanoTime();
+        int clients = 0;
+        for (StateSnapshot.Limiter limiter : snapshot.getLimiters()) {
+            RateLimitingFilter filter = filters.get(limiter.getName());
+            if (filter == null) {
+                continue;
+            }
+            // A sliding window still counts the previous window, so state matters for two
+            long expiresAt = now - elapsed + 2 * filter.getPolicies().getLongestWindow();
+            if (expiresAt - now > 0) {
+                Saved lookup = new Saved(limiter, filter.getPolicies().getPolicies(), shift, expiresAt);
+                saved.put(limiter.getName(), lookup);
+                filter.setSavedStates(lookup);
+                clients += limiter.size();
+            }
+        }
+        log.info("Restored state snapshot {} taken {} ms ago, {} clients to rehydrate on demand",
+                path, TimeUnit.NANOSECONDS.toMillis(elapsed), clients);
+    }
+
+    /**
+     * Write a snapshot of the current state to a temporary file and move it
+     * over the previous one. Saved clients not seen since startup are carried
+     * over until they expire.
+     */
+    void write(final Map<String, RateLimitingFilter> filters) throws IOException {
+        long begin = System.nanoTime();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream metrics = new DataOutputStream(bytes);
+        metrics.writeLong(BotDetectionFilter.getBotDetectionCount());
+        BenchmarkFilter.writeSnapshot(metrics);
+        metrics.flush();
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = parent.resolve(path.getFileName() + ".tmp");
+        int clients = 0;
+        long wallMillis = System.currentTimeMillis();
+        long now = System.nanoTime();
+        try (StateSnapshot.Writer writer = new StateSnapshot.Writer(tmp, wallMillis, now, bytes.toByteArray(),
+                filters.size())) {
+            for (Map.Entry<String, RateLimitingFilter> entry : filters.entrySet()) {
+                RateLimitingFilter filter = entry.getValue();
+                Saved lookup = saved.get(entry.getKey());
+                if (lookup != null && lookup.isExpired(now)) {
+                    filter.setSavedStates(null);
+                    saved.remove(entry.getKey());
+                    lookup = null;
+                }
+                clients += write(writer, entry.getKey(), filter, lookup);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lastWriteMillis = wallMillis;
+        lastWriteClients = clients;
+        lastWriteTookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+    }
+
+    private static int write(final StateSnapshot.Writer writer, final String name, final RateLimitingFilter filter,
+            final Saved lookup) throws IOException {
+        List<RateLimitPolicy> policies = filter.getPolicies().getPolicies();
+        int slots = Math.min(policies.size(), 64);
+        int[] fingerprints = new int[slots];
+        for (int i = 0; i < slots; i++) {
+            fingerprints[i] = fingerprint(policies.get(i));
+        }
+        writer.beginLimiter(name, fingerprints);
+        long[] words = new long[slots];
+        Set<String> live = lookup != null ? new HashSet<>() : null;
+        int[] count = {0};
+        filter.forEachClient((clientId, states) -> {
+            long mask = 0;
+            for (int slot = 0; slot < slots && slot < states.length(); slot++) {
+                LimiterState state = states.get(slot);
+                if (state != null) {
+                    words[slot] = state.get();
+                    mask |= 1L << slot;
+                }
+            }
+            add(writer, clientId, mask, words);
+            if (live != null) {
+                live.add(clientId);
+            }
+            count[0]++;
+        });
+        if (lookup != null) {
+            lookup.limiter.forEach(record -> {
+                if (live.contains(record.clientId())) {
+                    return;
+                }
+                long mask = 0;
+                for (int slot = 0; slot < slots; slot++) {
+                    if (record.has(slot) && lookup.matches(slot)) {
+                        words[slot] = policies.get(slot).getLimiter().rebase(record.words()[slot], lookup.shift);
+                        mask |= 1L << slot;
+                    }
+                }
+                add(writer, record.clientId(), mask, words);
+                count[0]++;
+            });
+        }
+        writer.endLimiter();
+        return count[0];
+    }
+
+    private static void add(final StateSnapshot.Writer writer, final String clientId, final long mask,
+            final long[] words) {
+        try {
+            writer.add(clientId, mask, words);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Identifies what a policy's saved state means: saved state is only
+     * restored into a policy with the same path, window and algorithm.
+     */
+    static int fingerprint(final RateLimitPolicy policy) {
+        return Objects.hash(policy.getPattern(), policy.getWindow(), policy.getLimiter().getClass().getName());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("file", path.toString());
+        stats.put("lastWriteMillis", lastWriteMillis);
+        stats.put("lastWriteTookMillis", lastWriteTookMillis);
+        stats.put("lastWriteClients", lastWriteClients);
+        stats.put("restoredClients", restoredClients.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (started) {
+            tick();
+        }
+    }
+
+    /**
+     * Saved clients of one filter, looked up on first sight.
+     */
+    private final class Saved implements SavedClientStates {
+
+        final StateSnapshot.Limiter limiter;
+        final long shift;
+        private final long expiresAt;
+        private final boolean[] matches;
+
+        Saved(final StateSnapshot.Limiter limiter, final List<RateLimitPolicy> policies, final long shift,
+                final long expiresAt) {
+            this.limiter = limiter;
+            this.shift = shift;
+            this.expiresAt = expiresAt;
+            int[] fingerprints = limiter.getFingerprints();
+            this.matches = new boolean[Math.min(policies.size(), fingerprints.length)];
+            for (int i = 0; i < matches.length; i++) {
+                matches[i] = fingerprints[i] == fingerprint(policies.get(i));
+            }
+        }
+
+        boolean matches(final int slot) {
+            return slot < matches.length && matches[slot];
+        }
+
+        boolean isExpired(final long nowNanos) {
+            return nowNanos - expiresAt >= 0;
+        }
+
+        @Override
+        public LimiterState restore(final String clientId, final RateLimitPolicy policy) {
+            int slot = policy.getId();
+            if (!matches(slot) || isExpired(System.nanoTime())) {
+                return null;
+            }
+            StateSnapshot.Record record;
+            try {
+                record = limiter.find(clientId);
+            } catch (RuntimeException e) {
+                // Damaged since it was opened; a client that cannot be read was not saved
+                log.debug("Cannot read saved state of {}", clientId, e);
+                return null;
+            }
+            if (record == null || !record.has(slot)) {
+                return null;
+            }
+            restoredClients.incrementAndGet();
+            return new LimiterState(policy.getLimiter().rebase(record.words()[slot], shift));
+        }
+    }
+}
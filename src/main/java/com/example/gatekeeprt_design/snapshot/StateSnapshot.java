@@ -0,0 +1,413 @@
+package com.example.gatekeeprt_design.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Gateway state saved to one file and read back through a read-only memory
+ * mapping. Layout, big-endian:
+ *
+ * <pre>
+ * header   int magic, int version, long wall-clock millis, long nanoTime,
+ *          int metrics length, int limiter count
+ * metrics  opaque bytes
+ * limiter  short name length, UTF-8 name, int policy count, int fingerprint per policy,
+ *          int record count, int table capacity, long table offset,
+ *          records: short key length, UTF-8 key, long slot mask, long per set slot
+ *          table: long record offset per bucket (0 = empty), linear probing
+ * </pre>
+ *
+ * <p>Opening reads the header, the metrics and each limiter's section header
+ * only, so it costs the same however many clients were saved; a client's
+ * record is found by probing its table when the client is first seen again.
+ * Section headers are checked against the file when it is opened, and
+ * record offsets when they are followed, so a damaged file reads as having
+ * fewer clients rather than failing lookups.
+ */
+public final class StateSnapshot {
+
+    private static final int MAGIC = 0x474B5353;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4;
+
+    /**
+     * Longer client ids are not saved.
+     */
+    static final int MAX_KEY_BYTES = 1024;
+
+    /**
+     * Smallest record: key length and slot mask.
+     */
+    private static final int MIN_RECORD_BYTES = 2 + 8;
+
+    private final MappedByteBuffer buffer;
+    private final long wallMillis;
+    private final long nanoTime;
+    private final byte[] metrics;
+    private final List<Limiter> limiters;
+
+    private StateSnapshot(final MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a gateway state snapshot");
+        }
+        this.wallMillis = buffer.getLong(8);
+        this.nanoTime = buffer.getLong(16);
+        this.metrics = new byte[buffer.getInt(24)];
+        buffer.get(HEADER_BYTES, metrics);
+        int count = buffer.getInt(28);
+        List<Limiter> sections = new ArrayList<>(count);
+        int position = HEADER_BYTES + metrics.length;
+        for (int i = 0; i < count; i++) {
+            Limiter limiter = new Limiter(position);
+            sections.add(limiter);
+            position = limiter.end;
+        }
+        this.limiters = List.copyOf(sections);
+    }
+
+    /**
+     * Map the snapshot at {@code path}.
+     *
+     * @throws IOException if it cannot be read or is not a snapshot
+     */
+    public static StateSnapshot open(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large: " + channel.size());
+            }
+            try {
+                return new StateSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("Truncated snapshot", e);
+            }
+        }
+    }
+
+    /**
+     * Wall clock when the snapshot was taken, in milliseconds since the epoch.
+     */
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    /**
+     * {@code System.nanoTime} of the writing process when the snapshot was taken.
+     */
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    public byte[] getMetrics() {
+        return metrics.clone();
+    }
+
+    public List<Limiter> getLimiters() {
+        return limiters;
+    }
+
+    private static int hash(final String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * The saved clients of one rate limiter.
+     */
+    public final class Limiter {
+
+        private final String name;
+        private final int[] fingerprints;
+        private final int records;
+        private final int capacity;
+        private final int tableOffset;
+        private final int recordsOffset;
+        private final int end;
+
+        private Limiter(final int offset) throws IOException {
+            byte[] nameBytes = new byte[buffer.getShort(offset) & 0xFFFF];
+            buffer.get(offset + 2, nameBytes);
+            name = new String(nameBytes, StandardCharsets.UTF_8);
+            int start = offset + 2 + nameBytes.length;
+            int policies = buffer.getInt(start);
+            if (policies < 0 || policies > 64) {
+                throw new IOException("Corrupt snapshot section " + name + ": " + policies + " policies");
+            }
+            fingerprints = new int[policies];
+            for (int i = 0; i < policies; i++) {
+                fingerprints[i] = buffer.getInt(start + 4 + 4 * i);
+            }
+            int position = start + 4 + 4 * policies;
+            records = buffer.getInt(position);
+            capacity = buffer.getInt(position + 4);
+            long table = buffer.getLong(position + 8);
+            recordsOffset = position + 16;
+            // Probing needs a power-of-two table with at least one empty bucket
+            boolean tableFits = capacity >= 0 && Integer.bitCount(capacity) <= 1
+                    && records >= 0 && (capacity == 0 ? records == 0 : records < capacity)
+                    && table >= recordsOffset && table + 8L * capacity <= buffer.capacity();
+            if (!tableFits || table - recordsOffset < (long) MIN_RECORD_BYTES * records) {
+                throw new IOException("Corrupt snapshot section " + name);
+            }
+            tableOffset = (int) table;
+            end = tableOffset + 8 * capacity;
+        }
+
+        /**
+         * Name of the filter the limiter belonged to.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Fingerprint of the policy each slot belonged to.
+         */
+        public int[] getFingerprints() {
+            return fingerprints.clone();
+        }
+
+        public int size() {
+            return records;
+        }
+
+        /**
+         * The record of {@code clientId}, or null if it was not saved.
+         */
+        public Record find(final String clientId) {
+            if (capacity == 0) {
+                return null;
+            }
+            byte[] key = clientId.getBytes(StandardCharsets.UTF_8);
+            int i = hash(clientId) & (capacity - 1);
+            for (int probes = 0; probes < capacity; probes++, i = (i + 1) & (capacity - 1)) {
+                long record = buffer.getLong(tableOffset + 8 * i);
+                if (record == 0) {
+                    return null;
+                }
+                if (record >= recordsOffset && record <= tableOffset - MIN_RECORD_BYTES
+                        && keyEquals((int) record, key)) {
+                    return read((int) record, clientId);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Visit every record in file order.
+         */
+        public void forEach(final Consumer<Record> action) {
+            int position = recordsOffset;
+            for (int i = 0; i < records; i++) {
+                if (position > tableOffset - MIN_RECORD_BYTES) {
+                    return;
+                }
+                int length = buffer.getShort(position) & 0xFFFF;
+                if (position + MIN_RECORD_BYTES + length > tableOffset) {
+                    return;
+                }
+                byte[] key = new byte[length];
+                buffer.get(position + 2, key);
+                Record record = read(position, new String(key, StandardCharsets.UTF_8));
+                if (record == null) {
+                    return;
+                }
+                action.accept(record);
+                position += 2 + length + 8 + 8 * Long.bitCount(record.mask());
+            }
+        }
+
+        private boolean keyEquals(final int record, final byte[] key) {
+            if ((buffer.getShort(record) & 0xFFFF) != key.length
+                    || record + MIN_RECORD_BYTES + key.length > tableOffset) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (buffer.get(record + 2 + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * The record at {@code record}, whose key fits before the table, or
+         * null if its words do not.
+         */
+        private Record read(final int record, final String clientId) {
+            int position = record + 2 + (buffer.getShort(record) & 0xFFFF);
+            long mask = buffer.getLong(position);
+            if (position + 8 + 8L * Long.bitCount(mask) > tableOffset) {
+                return null;
+            }
+            long[] words = new long[fingerprints.length];
+            position += 8;
+            for (int slot = 0; slot < words.length; slot++) {
+                if ((mask & (1L << slot)) != 0) {
+                    words[slot] = buffer.getLong(position);
+                    position += 8;
+                }
+            }
+            return new Record(clientId, mask, words);
+        }
+    }
+
+    /**
+     * Saved limiter state words of one client, by policy slot; {@code mask}
+     * has a bit set for every slot that had state.
+     */
+    public record Record(String clientId, long mask, long[] words) {
+
+        public boolean has(final int slot) {
+            return slot < 64 && (mask & (1L << slot)) != 0;
+        }
+    }
+
+    /**
+     * Writes a snapshot sequentially: the header, then each limiter's
+     * records, each followed by its table.
+     */
+    public static final class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+        private long written;
+
+        private long sectionCounts;
+        private int policies;
+        private int records;
+        private long[] offsets = new long[1024];
+        private int[] hashes = new int[1024];
+
+        public Writer(final Path path, final long wallMillis, final long nanoTime, final byte[] metrics,
+                final int limiters) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            out.putInt(MAGIC).putInt(VERSION).putLong(wallMillis).putLong(nanoTime)
+                    .putInt(metrics.length).putInt(limiters);
+            int from = 0;
+            while (from < metrics.length) {
+                int chunk = Math.min(out.remaining(), metrics.length - from);
+                out.put(metrics, from, chunk);
+                from += chunk;
+                if (!out.hasRemaining()) {
+                    flush();
+                }
+            }
+        }
+
+        /**
+         * Start the section of the named limiter whose policies have these
+         * fingerprints.
+         */
+        public void beginLimiter(final String name, final int[] fingerprints) throws IOException {
+            if (fingerprints.length > 64) {
+                throw new IllegalArgumentException("At most 64 policies per limiter");
+            }
+            byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            if (nameBytes.length > MAX_KEY_BYTES) {
+                throw new IllegalArgumentException("Limiter name too long: " + name);
+            }
+            ensure(2 + nameBytes.length + 4 + 4 * fingerprints.length + 16);
+            out.putShort((short) nameBytes.length).put(nameBytes);
+            out.putInt(fingerprints.length);
+            for (int fingerprint : fingerprints) {
+                out.putInt(fingerprint);
+            }
+            sectionCounts = position();
+            out.putInt(0).putInt(0).putLong(0);
+            policies = fingerprints.length;
+            records = 0;
+        }
+
+        /**
+         * Add a client; {@code words} holds one entry per policy slot, of
+         * which those with a bit in {@code mask} are saved.
+         */
+        public void add(final String clientId, final long mask, final long[] words) throws IOException {
+            byte[] key = clientId.getBytes(StandardCharsets.UTF_8);
+            long slots = policies == 64 ? mask : mask & ((1L << policies) - 1);
+            if (key.length > MAX_KEY_BYTES || slots == 0) {
+                return;
+            }
+            ensure(2 + key.length + 8 + 8 * Long.bitCount(slots));
+            if (records == offsets.length) {
+                offsets = Arrays.copyOf(offsets, records * 2);
+                hashes = Arrays.copyOf(hashes, records * 2);
+            }
+            offsets[records] = position();
+            hashes[records] = hash(clientId);
+            records++;
+            out.putShort((short) key.length).put(key).putLong(slots);
+            for (int slot = 0; slot < policies; slot++) {
+                if ((slots & (1L << slot)) != 0) {
+                    out.putLong(words[slot]);
+                }
+            }
+        }
+
+        /**
+         * Write the table of the current limiter.
+         */
+        public void endLimiter() throws IOException {
+            // Load factor at most 1/2 keeps probe sequences short
+            int capacity = records == 0 ? 0 : Integer.highestOneBit(records * 2 - 1) << 1;
+            long[] table = new long[capacity];
+            for (int i = 0; i < records; i++) {
+                int bucket = hashes[i] & (capacity - 1);
+                while (table[bucket] != 0) {
+                    bucket = (bucket + 1) & (capacity - 1);
+                }
+                table[bucket] = offsets[i];
+            }
+            long tableOffset = position();
+            for (long offset : table) {
+                ensure(8);
+                out.putLong(offset);
+            }
+            flush();
+            ByteBuffer counts = ByteBuffer.allocate(16).putInt(records).putInt(capacity).putLong(tableOffset).flip();
+            while (counts.hasRemaining()) {
+                channel.write(counts, sectionCounts + counts.position());
+            }
+        }
+
+        private long position() {
+            return written + out.position();
+        }
+
+        private void ensure(final int bytes) throws IOException {
+            if (out.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                written += channel.write(out, written);
+            }
+            out.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
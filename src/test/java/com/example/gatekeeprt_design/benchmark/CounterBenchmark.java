@@ -0,0 +1,50 @@
+package com.example.gatekeeprt_design.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.gatekeeprt_design.metrics.StripedCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-request counter update as done by BenchmarkFilter: shared AtomicLongs
+ * vs. striped counters. Run with {@code -t 1}, {@code -t 4}, ... up to the
+ * core count to see the AtomicLong throughput flatten while the striped
+ * counters keep scaling.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class CounterBenchmark {
+
+	private final AtomicLong totalRequests = new AtomicLong();
+	private final AtomicLong totalResponseTime = new AtomicLong();
+	private final AtomicLong successfulRequests = new AtomicLong();
+
+	private final StripedCounters totals = new StripedCounters(3);
+
+	@Benchmark
+	public void atomicLongs() {
+		totalRequests.incrementAndGet();
+		totalResponseTime.addAndGet(1_000);
+		successfulRequests.incrementAndGet();
+	}
+
+	@Benchmark
+	public void stripedCounters() {
+		totals.add(0, 1, 2, 1_000);
+	}
+}
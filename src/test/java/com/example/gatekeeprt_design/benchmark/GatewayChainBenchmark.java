@@ -0,0 +1,262 @@
+package com.example.gatekeeprt_design.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.example.gatekeeprt_design.filter.BehaviorScoringFilter;
+import com.example.gatekeeprt_design.filter.BenchmarkFilter;
+import com.example.gatekeeprt_design.filter.BotDetectionFilter;
+import com.example.gatekeeprt_design.filter.RateLimitingFilter;
+import com.example.gatekeeprt_design.gateway.GatewayPipeline;
+import com.example.gatekeeprt_design.security.InputValidator;
+import com.example.gatekeeprt_design.security.SecurityGateway;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Per-request cost of each gateway stage and of the whole pipeline, plus the
+ * input checks of the search and registration pages, on every core at once.
+ *
+ * <p>Requests are drawn from a fixed, seeded mix so runs compare: client IPs
+ * follow a Zipf distribution over 50k addresses (a few heavy hitters run into
+ * the rate limit, the long tail never does), User-Agents are 80% browsers
+ * across many versions, 12% crawlers and 8% scripts or no header at all, and
+ * only browsers send Accept and Accept-Language. Run through the
+ * {@code benchmark} Maven profile to get the results as JSON.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class GatewayChainBenchmark {
+
+	private static final int REQUESTS = 8192;
+
+	private static final int CLIENTS = 50_000;
+
+	private static final String[] PATHS = { "/", "/home", "/search", "/dashboard", "/api/metrics",
+			"/rate-limit-test", "/view-log" };
+
+	private static final String[] CRAWLERS = {
+			"Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)",
+			"Mozilla/5.0 (compatible; bingbot/2.0; +http://www.bing.com/bingbot.htm)",
+			"Mozilla/5.0 (compatible; YandexBot/3.0; +http://yandex.com/bots)",
+			"facebookexternalhit/1.1 (+http://www.facebook.com/externalhit_uatext.php)" };
+
+	private static final String[] SCRIPTS = { "curl/7.68.0", "python-requests/2.31.0", "Wget/1.21.4",
+			"Scrapy/2.11.0 (+https://scrapy.org)", null };
+
+	private static final FilterChain APPLICATION = (request, response) -> {
+	};
+
+	private final List<MockHttpServletRequest> requests = new ArrayList<>(REQUESTS);
+
+	private final List<String> queries = new ArrayList<>(REQUESTS);
+
+	private final List<InputValidator.Registration> registrations = new ArrayList<>(REQUESTS);
+
+	private BenchmarkFilter benchmarkFilter;
+
+	private BotDetectionFilter botDetectionFilter;
+
+	private RateLimitingFilter rateLimitingFilter;
+
+	private GatewayPipeline pipeline;
+
+	private SecurityGateway securityGateway;
+
+	private InputValidator inputValidator;
+
+	@Setup
+	public void setUp() {
+		SplittableRandom random = new SplittableRandom(42);
+		double[] zipf = zipfCumulative(CLIENTS, 1.1);
+		for (int i = 0; i < REQUESTS; i++) {
+			requests.add(request(random, zipf));
+			queries.add(query(random));
+			registrations.add(registration(random));
+		}
+		benchmarkFilter = new BenchmarkFilter();
+		botDetectionFilter = new BotDetectionFilter();
+		rateLimitingFilter = new RateLimitingFilter();
+		pipeline = new GatewayPipeline(List.of(new BenchmarkFilter(), new BotDetectionFilter(),
+				new RateLimitingFilter(), new BehaviorScoringFilter()));
+		securityGateway = new SecurityGateway();
+		inputValidator = new InputValidator();
+	}
+
+	@TearDown
+	public void tearDown() {
+		rateLimitingFilter.destroy();
+		pipeline.destroy();
+	}
+
+	@State(Scope.Thread)
+	public static class Client {
+
+		int next;
+
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+
+		/**
+		 * Index of the next sample; threads start apart so they do not walk in step.
+		 */
+		int next() {
+			next = (next + 1) & (REQUESTS - 1);
+			return next;
+		}
+
+		MockHttpServletResponse response() {
+			if (response.getStatus() != 200 || response.isCommitted()) {
+				response.reset();
+			}
+			return response;
+		}
+
+		@Setup
+		public void setUp() {
+			next = (int) (Thread.currentThread().threadId() * 997) & (REQUESTS - 1);
+		}
+	}
+
+	@Benchmark
+	public int benchmarkFilter(Client client) throws IOException, ServletException {
+		MockHttpServletResponse response = client.response();
+		benchmarkFilter.doFilter(requests.get(client.next()), response, APPLICATION);
+		return response.getStatus();
+	}
+
+	@Benchmark
+	public int botDetectionFilter(Client client) throws IOException, ServletException {
+		MockHttpServletResponse response = client.response();
+		botDetectionFilter.doFilter(requests.get(client.next()), response, APPLICATION);
+		return response.getStatus();
+	}
+
+	@Benchmark
+	public int rateLimitingFilter(Client client) throws IOException, ServletException {
+		MockHttpServletResponse response = client.response();
+		rateLimitingFilter.doFilter(requests.get(client.next()), response, APPLICATION);
+		return response.getStatus();
+	}
+
+	@Benchmark
+	public int pipeline(Client client) throws IOException, ServletException {
+		MockHttpServletResponse response = client.response();
+		pipeline.doFilter(requests.get(client.next()), response, APPLICATION);
+		return response.getStatus();
+	}
+
+	@Benchmark
+	public String sanitizeXSS(Client client) {
+		return securityGateway.sanitizeXSS(queries.get(client.next()));
+	}
+
+	@Benchmark
+	public boolean validateRegistration(Client client) {
+		InputValidator.Registration registration = registrations.get(client.next());
+		return inputValidator.isValidUsername(registration.username())
+				& inputValidator.isValidEmail(registration.email())
+				& inputValidator.isValidPassword(registration.password());
+	}
+
+	private static MockHttpServletRequest request(SplittableRandom random, double[] zipf) {
+		String path = PATHS[random.nextInt(PATHS.length)];
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+		int client = sample(zipf, random.nextDouble());
+		request.setRemoteAddr("10." + (client >> 16) + "." + ((client >> 8) & 0xFF) + "." + (client & 0xFF));
+		int kind = random.nextInt(100);
+		String userAgent;
+		if (kind < 80) {
+			userAgent = browser(random);
+			request.addHeader("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
+			request.addHeader("Accept-Language", "vi-VN,vi;q=0.9,en-US;q=0.8,en;q=0.7");
+		} else if (kind < 92) {
+			userAgent = CRAWLERS[random.nextInt(CRAWLERS.length)];
+		} else {
+			userAgent = SCRIPTS[random.nextInt(SCRIPTS.length)];
+		}
+		if (userAgent != null) {
+			request.addHeader("User-Agent", userAgent);
+		}
+		return request;
+	}
+
+	private static String browser(SplittableRandom random) {
+		int kind = random.nextInt(100);
+		if (kind < 55) {
+			return "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/"
+					+ (110 + random.nextInt(21)) + ".0." + random.nextInt(6000) + ".0 Safari/537.36";
+		}
+		if (kind < 80) {
+			return "Mozilla/5.0 (iPhone; CPU iPhone OS 17_" + random.nextInt(6)
+					+ " like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.0 Mobile/15E148 Safari/604.1";
+		}
+		if (kind < 92) {
+			return "Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:" + (115 + random.nextInt(16))
+					+ ".0) Gecko/20100101 Firefox/" + (115 + random.nextInt(16)) + ".0";
+		}
+		return "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/"
+				+ (110 + random.nextInt(21)) + ".0.0.0 Safari/537.36 Edg/" + (110 + random.nextInt(21)) + ".0.0.0";
+	}
+
+	private static String query(SplittableRandom random) {
+		int kind = random.nextInt(100);
+		if (kind < 80) {
+			return "gateway rate limit " + random.nextInt(1000) + " bot detection spring boot";
+		}
+		if (kind < 95) {
+			return "\"rate limit\" & bot's <score> " + random.nextInt(1000);
+		}
+		return "<script>alert('xss')</script><img src=x onerror=\"alert(" + random.nextInt(1000) + ")\">";
+	}
+
+	private static InputValidator.Registration registration(SplittableRandom random) {
+		int n = random.nextInt(100_000);
+		return switch (random.nextInt(10)) {
+			case 0 -> new InputValidator.Registration("u" + n, "user" + n + "example.com", "password");
+			case 1 -> new InputValidator.Registration("user " + n, "user" + n + "@example.com", "short1");
+			default -> new InputValidator.Registration("user_" + n, "user." + n + "@example.com", "Passw0rd!" + n);
+		};
+	}
+
+	private static double[] zipfCumulative(int n, double s) {
+		double[] cumulative = new double[n];
+		double sum = 0;
+		for (int k = 0; k < n; k++) {
+			sum += 1 / Math.pow(k + 1, s);
+			cumulative[k] = sum;
+		}
+		for (int k = 0; k < n; k++) {
+			cumulative[k] /= sum;
+		}
+		return cumulative;
+	}
+
+	private static int sample(double[] cumulative, double u) {
+		int i = Arrays.binarySearch(cumulative, u);
+		return Math.min(i >= 0 ? i : -i - 1, cumulative.length - 1);
+	}
+
+}
@@ -0,0 +1,78 @@
+package com.example.gatekeeprt_design.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.example.gatekeeprt_design.security.HtmlEscaper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.owasp.html.PolicyFactory;
+import org.owasp.html.Sanitizers;
+
+/**
+ * Single-pass escaper vs. the former chain of five {@code String.replace}
+ * calls, plus the OWASP policy used for rich-text fields, on a search query
+ * with no, a few and mostly special characters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HtmlEscaperBenchmark {
+
+	private static final PolicyFactory RICH_TEXT = Sanitizers.FORMATTING.and(Sanitizers.BLOCKS).and(Sanitizers.LINKS);
+
+	@Param({ "clean", "light", "heavy" })
+	public String inputKind;
+
+	private String input;
+
+	private final StringBuilder out = new StringBuilder(1024);
+
+	@Setup
+	public void setUp() {
+		input = switch (inputKind) {
+			case "clean" -> "failed login attempts for admin from 192.168.1.10 between 10:00 and 10:15 today";
+			case "light" -> "failed login attempts for \"admin\" from 192.168.1.10 between 10:00 & 10:15 today";
+			default -> "<script>alert('x')</script><img src=\"x\" onerror=\"alert('&')\"><b>'\"'\"</b>";
+		};
+	}
+
+	@Benchmark
+	public String replaceChain() {
+		return input.replace("&", "&amp;")
+				.replace("<", "&lt;")
+				.replace(">", "&gt;")
+				.replace("\"", "&quot;")
+				.replace("'", "&#39;");
+	}
+
+	@Benchmark
+	public String escape() {
+		return HtmlEscaper.escape(input);
+	}
+
+	@Benchmark
+	public int escapeToAppendable() throws IOException {
+		out.setLength(0);
+		HtmlEscaper.escape(input, out);
+		return out.length();
+	}
+
+	@Benchmark
+	public String owaspRichText() {
+		return RICH_TEXT.sanitize(input);
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.example.gatekeeprt_design.benchmark;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.example.gatekeeprt_design.ratelimit.GcraRateLimiter;
+import com.example.gatekeeprt_design.ratelimit.RateLimitPolicy;
+import com.example.gatekeeprt_design.ratelimit.RoutePolicyTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of finding the policy for a request in a route table holding one
+ * policy against one holding fifty. The trie walks the request path once, so
+ * both should cost about the same; requests hit exact routes, subtree routes
+ * and unmatched paths that fall through to the default.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoutePolicyTableBenchmark {
+
+	private static final int REQUESTS = 1024;
+
+	private static final String[] METHODS = { "GET", "GET", "GET", "POST" };
+
+	@Param({ "1", "50" })
+	public int policies;
+
+	private RoutePolicyTable table;
+
+	private final String[] methods = new String[REQUESTS];
+
+	private final String[] paths = new String[REQUESTS];
+
+	private int next;
+
+	@Setup
+	public void setUp() {
+		long window = TimeUnit.SECONDS.toNanos(60);
+		RoutePolicyTable.Builder builder = RoutePolicyTable.builder(new GcraRateLimiter(100, 60, TimeUnit.SECONDS),
+				window);
+		for (int i = 0; i < policies; i++) {
+			String pattern = i % 2 == 0 ? "/api/v1/service" + i + "/**" : "/page" + i;
+			builder.add(pattern, i % 5 == 0 ? List.of("POST") : List.of(),
+					new GcraRateLimiter(10 + i, 60, TimeUnit.SECONDS), window);
+		}
+		table = builder.build();
+
+		SplittableRandom random = new SplittableRandom(42);
+		for (int r = 0; r < REQUESTS; r++) {
+			int i = random.nextInt(Math.max(2, policies));
+			methods[r] = METHODS[random.nextInt(METHODS.length)];
+			paths[r] = switch (random.nextInt(3)) {
+				case 0 -> "/api/v1/service" + i + "/orders/" + random.nextInt(100_000);
+				case 1 -> "/page" + i;
+				default -> "/static/assets/app-" + random.nextInt(1000) + ".js";
+			};
+		}
+	}
+
+	@Benchmark
+	public RateLimitPolicy match() {
+		int r = next;
+		next = (r + 1) & (REQUESTS - 1);
+		return table.match(methods[r], paths[r]);
+	}
+
+}
@@ -0,0 +1,157 @@
+package com.example.gatekeeprt_design.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.example.gatekeeprt_design.GatekeeprtDesignApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Latency a normal client sees while slow uploads tie up request threads,
+ * with Tomcat on platform threads and with
+ * {@code spring.threads.virtual.enabled=true}. Each trial starts the
+ * application on a random port and opens {@code slowConnections} uploads that
+ * trickle their body to {@code /upload} a byte at a time; the benchmark
+ * threads then time fast requests to {@code /rate-limit-test}. Sample mode
+ * reports the p50/p99 to compare; a request that times out is sampled at the
+ * full {@link #FAST_TIMEOUT}.
+ *
+ * <p>On JDK 21 a virtual thread blocked in Tomcat's body read is pinned (the
+ * read waits on a monitor), so the virtual mode tops out near the scheduler's
+ * 256 carrier threads rather than Tomcat's 200 request threads; the gap
+ * widens on JDK 24+, where monitors no longer pin.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class SlowUploadBenchmark {
+
+	private static final Duration FAST_TIMEOUT = Duration.ofSeconds(2);
+
+	@Param({ "platform", "virtual" })
+	public String threads;
+
+	@Param({ "100", "200", "400", "800" })
+	public int slowConnections;
+
+	private ConfigurableApplicationContext context;
+
+	private final List<Socket> slow = new ArrayList<>();
+
+	private Thread trickler;
+
+	private HttpClient client;
+
+	private HttpRequest request;
+
+	@Setup
+	public void setUp() throws Exception {
+		context = new SpringApplicationBuilder(GatekeeprtDesignApplication.class).run(
+				"--server.port=0",
+				"--spring.threads.virtual.enabled=" + "virtual".equals(threads),
+				"--logging.level.root=WARN",
+				"--logging.level.com.example.gatekeeprt_design=WARN");
+		int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+		for (int i = 0; i < slowConnections; i++) {
+			slow.add(openSlowUpload(port));
+		}
+		trickler = Thread.ofPlatform().daemon().start(this::trickle);
+		// Let the server dispatch the slow uploads before measuring
+		Thread.sleep(1000);
+
+		client = HttpClient.newBuilder().connectTimeout(FAST_TIMEOUT).build();
+		request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/rate-limit-test"))
+			.header("User-Agent", "Mozilla/5.0 (load test)")
+			.timeout(FAST_TIMEOUT)
+			.build();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		trickler.interrupt();
+		trickler.join();
+		for (Socket socket : slow) {
+			socket.close();
+		}
+		context.close();
+	}
+
+	@Benchmark
+	public int fastRequest() throws InterruptedException {
+		try {
+			return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+		}
+		catch (IOException e) {
+			// Timed out behind the slow uploads; the sample already holds the wait
+			return -1;
+		}
+	}
+
+	private static Socket openSlowUpload(int port) throws IOException {
+		Socket socket = new Socket("localhost", port);
+		String head = "POST /upload HTTP/1.1\r\n"
+				+ "Host: localhost\r\n"
+				+ "User-Agent: Mozilla/5.0 (load test)\r\n"
+				+ "Content-Type: multipart/form-data; boundary=slowupload\r\n"
+				+ "Content-Length: 1000000\r\n\r\n"
+				+ "--slowupload\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"slow.txt\"\r\n\r\n";
+		OutputStream out = socket.getOutputStream();
+		out.write(head.getBytes(StandardCharsets.US_ASCII));
+		out.flush();
+		return socket;
+	}
+
+	/**
+	 * Send one more body byte on every slow connection twice a second, well
+	 * inside the server's read timeout.
+	 */
+	private void trickle() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				for (Socket socket : slow) {
+					try {
+						socket.getOutputStream().write('x');
+					}
+					catch (IOException e) {
+						// Server gave up on this one; keep the others going
+					}
+				}
+				Thread.sleep(500);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
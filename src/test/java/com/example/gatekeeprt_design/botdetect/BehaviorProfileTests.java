@@ -0,0 +1,85 @@
+package com.example.gatekeeprt_design.botdetect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.example.gatekeeprt_design.config.BehaviorScoringProperties;
+import org.junit.jupiter.api.Test;
+
+class BehaviorProfileTests {
+
+	private static final BehaviorScoringProperties DEFAULTS = new BehaviorScoringProperties();
+
+	private static final BehaviorWeights WEIGHTS = DEFAULTS.toWeights();
+
+	private static final double THRESHOLD = DEFAULTS.getThreshold();
+
+	@Test
+	void scriptedCrawlerWithoutBrowserHeadersCrossesThreshold() {
+		BehaviorProfile profile = new BehaviorProfile();
+		long now = 0;
+		double score = 0;
+		for (int i = 0; i < 200; i++) {
+			now += TimeUnit.MILLISECONDS.toNanos(100);
+			score = profile.onRequest(now, ("/page/" + i).hashCode(), true, true, WEIGHTS);
+			profile.onResponse(i % 3 == 0 ? 404 : 200);
+		}
+
+		assertTrue(profile.getIntervalVariation() < 0.1);
+		assertTrue(profile.getPathDiversity() > 0.7);
+		assertTrue(score >= THRESHOLD, "score " + score);
+	}
+
+	@Test
+	void scriptedClientWithoutBrowserHeadersCrossesThresholdOnRepeatedPages() {
+		// Polls one page on a timer and never errors: only cadence and headers give it away
+		assertTrue(steadyScore(true, true) >= THRESHOLD, "score " + steadyScore(true, true));
+		assertFalse(steadyScore(true, false) >= THRESHOLD, "score " + steadyScore(true, false));
+		assertFalse(steadyScore(false, true) >= THRESHOLD, "score " + steadyScore(false, true));
+	}
+
+	@Test
+	void browsingHumanStaysBelowThreshold() {
+		BehaviorProfile profile = new BehaviorProfile();
+		Random random = new Random(7);
+		String[] pages = { "/", "/search", "/dashboard", "/login" };
+		long now = 0;
+		double score = 0;
+		for (int i = 0; i < 200; i++) {
+			// Bursts of asset loads separated by reading pauses
+			long gap = i % 5 == 0 ? 2_000 + random.nextInt(20_000) : 5 + random.nextInt(50);
+			now += TimeUnit.MILLISECONDS.toNanos(gap);
+			score = profile.onRequest(now, pages[random.nextInt(pages.length)].hashCode(), false, false, WEIGHTS);
+			profile.onResponse(200);
+		}
+
+		assertTrue(score < THRESHOLD, "score " + score);
+	}
+
+	@Test
+	void newClientsAreNotScored() {
+		BehaviorProfile profile = new BehaviorProfile();
+		for (int i = 0; i < 9; i++) {
+			assertEquals(0.0, profile.onRequest(i, 0, true, true, WEIGHTS));
+		}
+	}
+
+	private static double steadyScore(boolean scripted, boolean missingHeaders) {
+		BehaviorProfile profile = new BehaviorProfile();
+		Random random = new Random(11);
+		long now = 0;
+		double score = 0;
+		for (int i = 0; i < 200; i++) {
+			long gap = scripted ? 1_000 : 200 + random.nextInt(5_000);
+			now += TimeUnit.MILLISECONDS.toNanos(gap);
+			score = profile.onRequest(now, "/status".hashCode(), missingHeaders, missingHeaders, WEIGHTS);
+			profile.onResponse(200);
+		}
+		return score;
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.example.gatekeeprt_design.botdetect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BotSignaturesTests {
+
+	@Test
+	void allowListOverridesDenySignatures() {
+		BotSignatures signatures = BotSignatures.parse(List.of(
+				"# comment", "", "bot", "curl", "allow: UptimeRobot"));
+
+		assertTrue(signatures.isBot("SomeBot/1.0"));
+		assertFalse(signatures.isBot("Mozilla/5.0+(compatible; UptimeRobot/2.0)"));
+		assertEquals(2, signatures.getDenyCount());
+		assertEquals(1, signatures.getAllowCount());
+	}
+
+	@Test
+	void builtInRulesKeepTheJavascriptException() {
+		BotSignatures signatures = BotSignatures.loadDefaults();
+
+		assertTrue(signatures.isBot("Java/17"));
+		assertFalse(signatures.isBot("Mozilla/5.0 JavaScript"));
+		assertFalse(signatures.isBot("Pingdom.com_bot_version_1.4"));
+	}
+
+	@Test
+	void rejectsRuleSetWithoutDenySignatures() {
+		assertThrows(IllegalArgumentException.class, () -> BotSignatures.parse(List.of("allow: Pingdom")));
+	}
+
+	@Test
+	void watcherPublishesValidChangesAndKeepsPreviousRulesOnError(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("bots.txt");
+		Files.writeString(file, "curl\n");
+		AtomicReference<BotSignatures> active = new AtomicReference<>();
+
+		try (SignatureFileWatcher watcher = new SignatureFileWatcher(file, active::set)) {
+			BotSignatures initial = active.get();
+			assertTrue(initial.isBot("curl/8"));
+			assertFalse(initial.isBot("HeadlessChrome"));
+
+			Files.writeString(file, "curl\nheadless\n");
+			assertTrue(watcher.reload());
+			assertTrue(active.get().isBot("HeadlessChrome"));
+
+			BotSignatures beforeError = active.get();
+			Files.writeString(file, "allow: only\n");
+			assertFalse(watcher.reload());
+			assertEquals(beforeError, active.get());
+		}
+	}
+
+	@Test
+	void watcherReloadsWhenTheFileIsWritten(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("bots.txt");
+		Files.writeString(file, "curl\n");
+		BlockingQueue<BotSignatures> published = new LinkedBlockingQueue<>();
+
+		try (SignatureFileWatcher watcher = new SignatureFileWatcher(file, published::add)) {
+			assertFalse(published.take().isBot("HeadlessChrome"));
+
+			// No explicit reload: the watch service has to notice the write
+			Files.writeString(file, "curl\nheadless\n");
+			BotSignatures reloaded = published.poll(30, TimeUnit.SECONDS);
+			assertNotNull(reloaded, "no reload within 30s of writing the file");
+			assertTrue(reloaded.isBot("HeadlessChrome"));
+
+			// A broken file is noticed too, but never published
+			Files.writeString(file, "allow: only\n");
+			Files.writeString(dir.resolve("unrelated.txt"), "headless\n");
+			assertNull(published.poll(2, TimeUnit.SECONDS));
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.example.gatekeeprt_design.botdetect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class UserAgentMatcherTests {
+
+	private static final List<String> SIGNATURES = List.of("bot", "crawler", "spider", "scraper", "scrapy",
+			"curl", "wget", "python", "java(?!script)", "perl", "ruby", "googlebot", "bingbot", "slurp",
+			"duckduckbot", "baiduspider", "yandexbot", "facebookexternalhit", "twitterbot");
+
+	private final UserAgentMatcher matcher = UserAgentMatcher.compile(SIGNATURES);
+
+	@Test
+	void matchesKnownBotsCaseInsensitively() {
+		assertTrue(matcher.matches("curl/7.68.0"));
+		assertTrue(matcher.matches("python-requests/2.25.1"));
+		assertTrue(matcher.matches("Mozilla/5.0 (compatible; Googlebot/2.1)"));
+		assertTrue(matcher.matches("Scrapy/2.5.0 (+http://www.scrapy.org)"));
+		assertTrue(matcher.matches("WGET/1.20.3"));
+	}
+
+	@Test
+	void letsBrowsersThrough() {
+		assertFalse(matcher.matches("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+				+ "(KHTML, like Gecko) Chrome/126.0.0.0 Safari/537.36"));
+		assertFalse(matcher.matches(""));
+	}
+
+	@Test
+	void javaLookaheadExcludesJavascriptOnly() {
+		assertTrue(matcher.matches("Java/17.0.2"));
+		assertTrue(matcher.matches("Apache-HttpClient (Java)"));
+		assertTrue(matcher.matches("javascr"));
+		assertTrue(matcher.matches("JavaScript java"));
+		assertFalse(matcher.matches("Mozilla/5.0 JavaScript enabled"));
+	}
+
+	@Test
+	void agreesWithCaseInsensitiveRegexes() {
+		List<Pattern> patterns = SIGNATURES.stream().map(s -> Pattern.compile(s, Pattern.CASE_INSENSITIVE)).toList();
+		String alphabet = "botcrawlspidejavscriptyhonBOTJAVASCRIPT/ .;éK";
+		Random random = new Random(42);
+
+		for (int n = 0; n < 20_000; n++) {
+			StringBuilder sb = new StringBuilder();
+			int length = random.nextInt(24);
+			for (int i = 0; i < length; i++) {
+				sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			String ua = sb.toString();
+			boolean expected = patterns.stream().anyMatch(p -> p.matcher(ua).find());
+			assertEquals(expected, matcher.matches(ua), ua);
+		}
+	}
+
+	@Test
+	void rejectsMalformedSignatures() {
+		assertThrows(IllegalArgumentException.class, () -> UserAgentMatcher.compile(List.of("")));
+		assertThrows(IllegalArgumentException.class, () -> UserAgentMatcher.compile(List.of("java(?!script)x")));
+		assertThrows(IllegalArgumentException.class, () -> UserAgentMatcher.compile(List.of("böt")));
+	}
+
+}
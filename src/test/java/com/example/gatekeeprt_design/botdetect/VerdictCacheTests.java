@@ -0,0 +1,45 @@
+package com.example.gatekeeprt_design.botdetect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class VerdictCacheTests {
+
+	private static final String CHROME = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/126.0.0.0";
+
+	@Test
+	void repeatedUserAgentIsAHit() {
+		VerdictCache cache = new VerdictCache(16);
+		BotSignatures signatures = BotSignatures.of(List.of("bot", "curl"), List.of());
+
+		assertFalse(cache.isBot(CHROME, signatures));
+		assertFalse(cache.isBot(new String(CHROME), signatures));
+		assertTrue(cache.isBot("curl/8.0", signatures));
+
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	void newSignatureSetInvalidatesCachedVerdicts() {
+		VerdictCache cache = new VerdictCache(16);
+		BotSignatures before = BotSignatures.of(List.of("bot"), List.of());
+		BotSignatures after = BotSignatures.of(List.of("bot", "chrome"), List.of());
+
+		assertFalse(cache.isBot(CHROME, before));
+		assertTrue(cache.isBot(CHROME, after));
+		assertEquals(0, cache.getHits());
+	}
+
+	@Test
+	void capacityIsRoundedToPowerOfTwo() {
+		assertEquals(4096, new VerdictCache(3000).getCapacity());
+		assertEquals(1, new VerdictCache(1).getCapacity());
+	}
+
+}
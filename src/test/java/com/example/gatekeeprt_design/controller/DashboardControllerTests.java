@@ -0,0 +1,74 @@
+package com.example.gatekeeprt_design.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class DashboardControllerTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Test
+	void stageSwitchWithoutTokenIsRejectedFromRemoteClients() throws Exception {
+		mvc.perform(switchOn().with(from("203.0.113.7"))).andExpect(status().isForbidden());
+	}
+
+	@Test
+	void stageSwitchWithoutTokenIsAcceptedFromLoopback() throws Exception {
+		mvc.perform(switchOn().with(from("127.0.0.1"))).andExpect(status().isOk());
+		mvc.perform(switchOn().with(from("::1"))).andExpect(status().isOk());
+	}
+
+	@Test
+	void securityEventsAreOnlyListedForAdmins() throws Exception {
+		mvc.perform(get("/api/security-events").with(from("203.0.113.7"))).andExpect(status().isForbidden());
+		mvc.perform(get("/api/security-events").with(from("127.0.0.1"))).andExpect(status().isOk());
+	}
+
+	@Nested
+	@TestPropertySource(properties = "gateway.admin.token=s3cret")
+	class WithAdminToken {
+
+		@Autowired
+		private MockMvc mvc;
+
+		@Test
+		void stageSwitchWithoutOrWithWrongTokenIsRejected() throws Exception {
+			mvc.perform(switchOn().with(from("127.0.0.1"))).andExpect(status().isForbidden());
+			mvc.perform(switchOn().header("X-Admin-Token", "guess").with(from("127.0.0.1")))
+				.andExpect(status().isForbidden());
+		}
+
+		@Test
+		void stageSwitchWithTokenIsAccepted() throws Exception {
+			mvc.perform(switchOn().header("X-Admin-Token", "s3cret").with(from("203.0.113.7")))
+				.andExpect(status().isOk());
+		}
+
+	}
+
+	private static MockHttpServletRequestBuilder switchOn() {
+		return post("/api/admin/stages/bot-detection").param("enabled", "true");
+	}
+
+	private static RequestPostProcessor from(String address) {
+		return request -> {
+			request.setRemoteAddr(address);
+			return request;
+		};
+	}
+
+}
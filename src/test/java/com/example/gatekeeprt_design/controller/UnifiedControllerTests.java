@@ -0,0 +1,149 @@
+package com.example.gatekeeprt_design.controller;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+/**
+ * Runs against the embedded server over a plain socket: MockMvc hands the
+ * controller an already parsed multipart request, so it never reaches the
+ * container's size limits, and an HTTP client gives up on the response once
+ * the server stops reading the body it is still sending.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.servlet.multipart.max-file-size=1MB", "spring.servlet.multipart.max-request-size=1MB" })
+class UnifiedControllerTests {
+
+	private static final int LIMIT = 1024 * 1024;
+
+	private static final long UPLOAD_SIZE = 256L * LIMIT;
+
+	private static final String BOUNDARY = "oversized";
+
+	private static final byte[] PART_HEAD = ("--" + BOUNDARY + "\r\n"
+			+ "Content-Disposition: form-data; name=\"file\"; filename=\"big.bin\"\r\n"
+			+ "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] PART_TAIL = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+	@LocalServerPort
+	private int port;
+
+	@Test
+	void declaredOversizedUploadIsRejectedBeforeTheBodyIsRead() throws Exception {
+		long length = PART_HEAD.length + UPLOAD_SIZE + PART_TAIL.length;
+		Upload upload = new Upload(false, "Content-Length: " + length);
+
+		String response = upload.send();
+
+		assertTrue(response.startsWith("HTTP/1.1 413"), response);
+		assertTrue(response.contains("File size exceeds 1MB limit"), response);
+		assertTrue(upload.sent.get() < UPLOAD_SIZE / 8, "sent " + upload.sent.get() + " bytes");
+	}
+
+	@Test
+	void chunkedOversizedUploadIsRejectedOnceTheLimitIsCrossed() throws Exception {
+		Upload upload = new Upload(true, "Transfer-Encoding: chunked");
+
+		String response = upload.send();
+
+		assertTrue(response.startsWith("HTTP/1.1 413"), response);
+		// The parser stops reading right after the limit; the body was never held whole
+		assertTrue(upload.sent.get() < UPLOAD_SIZE / 8, "sent " + upload.sent.get() + " bytes");
+	}
+
+	/**
+	 * One multipart upload of {@link #UPLOAD_SIZE} bytes, written from its own
+	 * thread until the server stops reading, while the response is read.
+	 */
+	private final class Upload {
+
+		private final boolean chunked;
+
+		private final String framing;
+
+		final AtomicLong sent = new AtomicLong();
+
+		Upload(boolean chunked, String framing) {
+			this.chunked = chunked;
+			this.framing = framing;
+		}
+
+		String send() throws Exception {
+			try (Socket socket = new Socket()) {
+				// Keep what the kernel buffers on our side from counting as read by the server
+				socket.setSendBufferSize(64 * 1024);
+				socket.connect(new InetSocketAddress("localhost", port));
+				socket.setSoTimeout(30_000);
+				OutputStream out = socket.getOutputStream();
+				out.write(("POST /upload HTTP/1.1\r\n"
+						+ "Host: localhost\r\n"
+						+ "User-Agent: Mozilla/5.0 (X11; Linux x86_64)\r\n"
+						+ "Content-Type: multipart/form-data; boundary=" + BOUNDARY + "\r\n"
+						+ framing + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+				Thread writer = Thread.ofPlatform().daemon().start(() -> writeBody(out));
+				String response = readResponse(socket.getInputStream());
+				writer.join(10_000);
+				return response;
+			}
+		}
+
+		private void writeBody(OutputStream out) {
+			byte[] block = new byte[64 * 1024];
+			Arrays.fill(block, (byte) 'x');
+			try {
+				write(out, PART_HEAD);
+				for (long written = 0; written < UPLOAD_SIZE; written += block.length) {
+					write(out, block);
+					sent.addAndGet(block.length);
+				}
+				write(out, PART_TAIL);
+				if (chunked) {
+					out.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+				}
+				out.flush();
+			}
+			catch (IOException e) {
+				// The server closed the connection after answering
+			}
+		}
+
+		private void write(OutputStream out, byte[] data) throws IOException {
+			if (chunked) {
+				out.write((Integer.toHexString(data.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+			}
+			out.write(data);
+			if (chunked) {
+				out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+			}
+		}
+
+		private String readResponse(InputStream in) {
+			ByteArrayOutputStream response = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			try {
+				for (int n; (n = in.read(buffer)) > 0;) {
+					response.write(buffer, 0, n);
+				}
+			}
+			catch (IOException e) {
+				// Reset once the server gives up on the rest of the body
+			}
+			return response.toString(StandardCharsets.UTF_8);
+		}
+
+	}
+
+}
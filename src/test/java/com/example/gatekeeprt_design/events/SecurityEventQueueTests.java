@@ -0,0 +1,97 @@
+package com.example.gatekeeprt_design.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class SecurityEventQueueTests {
+
+	private static final int PRODUCERS = 8;
+
+	private static final int EVENTS_PER_PRODUCER = 50_000;
+
+	@Test
+	void concurrentProducersHandEveryEventToTheConsumerOnce() throws Exception {
+		SecurityEventQueue queue = new SecurityEventQueue(1024, 1);
+		ExecutorService pool = Executors.newFixedThreadPool(PRODUCERS);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int p = 0; p < PRODUCERS; p++) {
+			String client = "client-" + p;
+			pool.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < EVENTS_PER_PRODUCER; i++) {
+					SecurityEvent event = new SecurityEvent(i, SecurityEvent.Type.RATE_LIMITED, client, "/", null);
+					while (!queue.offer(event)) {
+						Thread.onSpinWait();
+					}
+				}
+			});
+		}
+		start.countDown();
+
+		Set<String> seen = new HashSet<>();
+		long[] next = new long[PRODUCERS];
+		int total = PRODUCERS * EVENTS_PER_PRODUCER;
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (seen.size() < total && System.nanoTime() < deadline) {
+			queue.drain(event -> {
+				int producer = Integer.parseInt(event.clientId().substring("client-".length()));
+				// Each producer's events arrive in the order it offered them
+				assertEquals(next[producer]++, event.timestamp());
+				assertTrue(seen.add(event.clientId() + ":" + event.timestamp()));
+			}, 256);
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(total, seen.size());
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	void overloadSamplesThenDropsWithoutBlocking() {
+		SecurityEventQueue queue = new SecurityEventQueue(1000, 4);
+		assertEquals(1024, queue.capacity());
+		SecurityEvent event = new SecurityEvent(0, SecurityEvent.Type.BOT_BLOCKED, "10.0.0.1", "/", "curl");
+		int offered = 0;
+		while (queue.size() < queue.capacity()) {
+			queue.offer(event);
+			offered++;
+		}
+		// The first half went in unconditionally, the second half at one in four
+		assertEquals(queue.capacity(), queue.getAccepted());
+		assertEquals(offered - queue.capacity(), queue.getSampledOut());
+		assertTrue(queue.getSampledOut() > queue.capacity());
+
+		int rejected = 0;
+		for (int i = 0; i < 1000; i++) {
+			if (!queue.offer(event)) {
+				rejected++;
+			}
+		}
+		assertEquals(1000, rejected);
+		assertTrue(queue.getDropped() > 0);
+
+		List<SecurityEvent> taken = new ArrayList<>();
+		assertEquals(100, queue.drain(taken::add, 100));
+		assertEquals(queue.capacity() - 100, queue.size());
+		queue.drain(taken::add, Integer.MAX_VALUE);
+		assertEquals(queue.capacity(), taken.size());
+		assertFalse(queue.drain(taken::add, 1) > 0);
+	}
+
+}
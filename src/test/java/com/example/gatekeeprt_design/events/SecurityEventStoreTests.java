@@ -0,0 +1,132 @@
+package com.example.gatekeeprt_design.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.gatekeeprt_design.config.SecurityEventProperties;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+class SecurityEventStoreTests {
+
+	private EmbeddedDatabase database;
+
+	private SecurityEventStore store;
+
+	@BeforeEach
+	void openStore() {
+		database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		store = new SecurityEventStore(database, properties());
+	}
+
+	@AfterEach
+	void closeStore() {
+		store.close();
+		database.shutdown();
+	}
+
+	@Test
+	void publishedEventsAreWrittenInBatchesAndQueryable() {
+		for (int i = 0; i < 1000; i++) {
+			SecurityEvents.publish(i % 2 == 0 ? SecurityEvent.Type.RATE_LIMITED : SecurityEvent.Type.BOT_BLOCKED,
+					"10.0.0." + (i % 10), "/home", "detail-" + i);
+		}
+		store.flush();
+
+		Map<String, Object> stats = store.getStats();
+		assertEquals(1000L, stats.get("written"));
+		assertEquals(0, stats.get("queued"));
+		assertEquals(Map.of("BOT_BLOCKED", 500L, "RATE_LIMITED", 500L), store.countByType());
+
+		List<SecurityEvent> byClient = store.find("10.0.0.3", null, null, null, 1000);
+		assertEquals(100, byClient.size());
+		assertTrue(byClient.stream().allMatch(e -> e.type() == SecurityEvent.Type.BOT_BLOCKED));
+		assertEquals(500, store.find(null, SecurityEvent.Type.RATE_LIMITED, null, null, 1000).size());
+		assertEquals(0, store.find("10.0.0.3", SecurityEvent.Type.RATE_LIMITED, null, null, 1000).size());
+		assertEquals(5, store.find(null, null, null, null, 5).size());
+	}
+
+	@Test
+	void queriesFilterByTimeRangeNewestFirst() {
+		SecurityEventQueue queue = store.getQueue();
+		long now = System.currentTimeMillis();
+		for (long t = 0; t < 1_000; t += 100) {
+			queue.offer(new SecurityEvent(now + t, SecurityEvent.Type.LOGIN_FAILED, "10.0.0.1", "/login", "admin"));
+		}
+		queue.offer(new SecurityEvent(now + 500, SecurityEvent.Type.LOGIN_FAILED, "10.0.0.1", "/login",
+				"x".repeat(1000)));
+		// Older than the retention: deleted by the flush
+		queue.offer(new SecurityEvent(now - Duration.ofDays(2).toMillis(), SecurityEvent.Type.LOGIN_FAILED,
+				"10.0.0.1", "/login", "admin"));
+		store.flush();
+
+		List<SecurityEvent> range = store.find("10.0.0.1", SecurityEvent.Type.LOGIN_FAILED, now + 200, now + 500,
+				100);
+		assertEquals(List.of(now + 400, now + 300, now + 200),
+				range.stream().map(SecurityEvent::timestamp).toList());
+		List<SecurityEvent> from = store.find(null, null, now + 500, null, 100);
+		assertEquals(6, from.size());
+		assertTrue(from.stream().anyMatch(e -> e.detail().length() == SecurityEventStore.MAX_VALUE_LENGTH));
+		assertEquals(11, store.find(null, null, null, null, 100).size());
+	}
+
+	@Test
+	void oldestRowsAreDeletedPastTheRowCap() {
+		store.close();
+		SecurityEventProperties properties = properties();
+		properties.setMaxRows(300);
+		store = new SecurityEventStore(database, properties);
+		for (int i = 0; i < 1000; i++) {
+			store.getQueue().offer(new SecurityEvent(System.currentTimeMillis(), SecurityEvent.Type.RATE_LIMITED,
+					"10.0.0.1", "/home", Integer.toString(i)));
+		}
+		store.flush();
+
+		List<SecurityEvent> kept = store.find(null, null, null, null, 500);
+		assertEquals(300, kept.size());
+		assertEquals("999", kept.get(0).detail());
+		assertEquals("700", kept.get(kept.size() - 1).detail());
+		assertEquals(700L, store.getStats().get("trimmed"));
+	}
+
+	@Test
+	void disabledStoreCreatesNoTableAndFindsNothing() {
+		EmbeddedDatabase empty = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+			.generateUniqueName(true)
+			.build();
+		SecurityEventProperties properties = properties();
+		properties.setEnabled(false);
+		SecurityEventStore disabled = new SecurityEventStore(empty, properties);
+		try {
+			SecurityEvents.publish(SecurityEvent.Type.BOT_BLOCKED, "10.0.0.1", "/", "curl");
+			assertEquals(0, disabled.getQueue().size());
+			assertEquals(List.of(), disabled.find(null, null, null, null, 10));
+			assertEquals(Map.of(), disabled.countByType());
+			Integer tables = new JdbcTemplate(empty).queryForObject(
+					"SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'SECURITY_EVENT'",
+					Integer.class);
+			assertEquals(0, tables);
+		}
+		finally {
+			disabled.close();
+			empty.shutdown();
+		}
+	}
+
+	private static SecurityEventProperties properties() {
+		SecurityEventProperties properties = new SecurityEventProperties();
+		properties.setBatchSize(64);
+		properties.setFlushInterval(Duration.ofHours(1));
+		properties.setMaxQueryResults(500);
+		return properties;
+	}
+
+}
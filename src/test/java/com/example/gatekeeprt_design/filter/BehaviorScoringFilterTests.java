@@ -0,0 +1,60 @@
+package com.example.gatekeeprt_design.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.gatekeeprt_design.config.BehaviorScoringProperties;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class BehaviorScoringFilterTests {
+
+	private static final String UPTIME_ROBOT = "Mozilla/5.0+(compatible; UptimeRobot/2.0; http://www.uptimerobot.com/)";
+
+	private long now = System.nanoTime();
+
+	@Test
+	void allowListedMonitorPollingOnAFixedCadenceIsNeverBlocked() throws Exception {
+		BehaviorScoringFilter filter = new BehaviorScoringFilter(new BehaviorScoringProperties(), () -> now);
+		try {
+			for (int i = 0; i < 500; i++) {
+				now += TimeUnit.SECONDS.toNanos(60);
+				assertEquals(200, poll(filter, UPTIME_ROBOT), "poll " + i);
+			}
+		}
+		finally {
+			filter.destroy();
+		}
+	}
+
+	@Test
+	void sameCadenceFromAnUnlistedAgentIsBlocked() throws Exception {
+		BehaviorScoringFilter filter = new BehaviorScoringFilter(new BehaviorScoringProperties(), () -> now);
+		try {
+			int blocked = 0;
+			for (int i = 0; i < 500; i++) {
+				now += TimeUnit.SECONDS.toNanos(60);
+				if (poll(filter, "StatusChecker/1.0") == 403) {
+					blocked++;
+				}
+			}
+			assertTrue(blocked > 0, "never blocked");
+		}
+		finally {
+			filter.destroy();
+		}
+	}
+
+	private static int poll(BehaviorScoringFilter filter, String userAgent) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/status");
+		request.setRemoteAddr("192.0.2.10");
+		request.addHeader("User-Agent", userAgent);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response.getStatus();
+	}
+
+}
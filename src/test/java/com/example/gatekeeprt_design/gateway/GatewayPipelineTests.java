@@ -0,0 +1,144 @@
+package com.example.gatekeeprt_design.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.gatekeeprt_design.filter.BotDetectionFilter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class GatewayPipelineTests {
+
+	private final List<String> calls = new ArrayList<>();
+
+	@BeforeEach
+	void resetStats() {
+		GatewayPipeline.resetStageStats();
+	}
+
+	@AfterEach
+	void switchEverythingBackOn() {
+		for (GatewayStage stage : GatewayStage.values()) {
+			StageRegistry.setSwitchedOn(stage, true);
+		}
+	}
+
+	@Test
+	void stagesRunInOrderAndRespondInReverse() throws Exception {
+		GatewayPipeline pipeline = new GatewayPipeline(List.of(
+				new RecordingStage(GatewayStage.BENCHMARK, true),
+				new RecordingStage(GatewayStage.RATE_LIMITING, true)));
+		MockFilterChain chain = new MockFilterChain();
+
+		pipeline.doFilter(request("Mozilla/5.0"), new MockHttpServletResponse(), chain);
+
+		assertNotNull(chain.getRequest());
+		assertEquals(List.of("benchmark:request", "rate-limiting:request",
+				"rate-limiting:response", "benchmark:response"), calls);
+	}
+
+	@Test
+	void rejectionSkipsLaterStagesAndTheApplication() throws Exception {
+		GatewayPipeline pipeline = new GatewayPipeline(List.of(
+				new RecordingStage(GatewayStage.BENCHMARK, true),
+				new BotDetectionFilter(),
+				new RecordingStage(GatewayStage.RATE_LIMITING, true)));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+
+		pipeline.doFilter(request(null), response, chain);
+
+		assertNull(chain.getRequest());
+		assertEquals(403, response.getStatus());
+		assertEquals(List.of("benchmark:request", "benchmark:response"), calls);
+
+		Map<String, Map<String, Object>> stats = GatewayPipeline.getStageStats();
+		assertEquals(1L, stats.get("bot-detection").get("calls"));
+		assertEquals(1L, stats.get("bot-detection").get("rejected"));
+		assertEquals(0L, stats.get("benchmark").get("rejected"));
+		assertFalse(stats.containsKey("rate-limiting"));
+	}
+
+	@Test
+	void switchedOffStagesAreSkipped() throws Exception {
+		GatewayPipeline pipeline = new GatewayPipeline(List.of(
+				new RecordingStage(GatewayStage.BENCHMARK, true),
+				new RecordingStage(GatewayStage.RATE_LIMITING, false)));
+		StageRegistry.setSwitchedOn(GatewayStage.RATE_LIMITING, false);
+		MockFilterChain chain = new MockFilterChain();
+
+		pipeline.doFilter(request("Mozilla/5.0"), new MockHttpServletResponse(), chain);
+
+		assertNotNull(chain.getRequest());
+		assertEquals(List.of("benchmark:request", "benchmark:response"), calls);
+	}
+
+	@Test
+	void duplicateStagesAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new GatewayPipeline(List.of(
+				new RecordingStage(GatewayStage.BENCHMARK, true),
+				new RecordingStage(GatewayStage.BENCHMARK, true))));
+	}
+
+	@Test
+	void contextIsBuiltOnce() {
+		MockHttpServletRequest request = request("Mozilla/5.0");
+		request.addHeader("X-Forwarded-For", "203.0.113.7");
+		RequestContext context = new RequestContext(request, new MockHttpServletResponse(), null);
+
+		assertEquals("203.0.113.7", context.getClientId());
+		assertEquals("Mozilla/5.0", context.getUserAgent());
+		assertEquals("/home", context.getPath());
+		assertEquals(-1, context.getRouteId());
+
+		context.setStageState(GatewayStage.BEHAVIOR_SCORING, "state");
+		assertEquals("state", context.getStageState(GatewayStage.BEHAVIOR_SCORING));
+		assertNull(context.getStageState(GatewayStage.BENCHMARK));
+	}
+
+	private static MockHttpServletRequest request(String userAgent) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+		if (userAgent != null) {
+			request.addHeader("User-Agent", userAgent);
+		}
+		return request;
+	}
+
+	private final class RecordingStage implements PipelineStage {
+
+		private final GatewayStage stage;
+
+		private final boolean allow;
+
+		RecordingStage(GatewayStage stage, boolean allow) {
+			this.stage = stage;
+			this.allow = allow;
+		}
+
+		@Override
+		public GatewayStage getStage() {
+			return stage;
+		}
+
+		@Override
+		public boolean onRequest(RequestContext context) {
+			calls.add(stage.getId() + ":request");
+			return allow;
+		}
+
+		@Override
+		public void onResponse(RequestContext context, int status) {
+			calls.add(stage.getId() + ":response");
+		}
+	}
+}
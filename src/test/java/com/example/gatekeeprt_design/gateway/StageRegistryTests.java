@@ -0,0 +1,55 @@
+package com.example.gatekeeprt_design.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.gatekeeprt_design.filter.BotDetectionFilter;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+
+class StageRegistryTests {
+
+	@AfterEach
+	void switchEverythingBackOn() {
+		for (GatewayStage stage : GatewayStage.values()) {
+			StageRegistry.setSwitchedOn(stage, true);
+		}
+	}
+
+	@Test
+	void installedStagesAreResolvedAtRefresh() {
+		try (GenericApplicationContext ctx = new GenericApplicationContext()) {
+			ctx.registerBean(StageRegistry.class);
+			ctx.registerBean("botDetectionFilter", BotDetectionFilter.class, () -> new BotDetectionFilter());
+			ctx.refresh();
+
+			assertTrue(StageRegistry.isEnabled(GatewayStage.BOT_DETECTION));
+			assertFalse(StageRegistry.isInstalled(GatewayStage.RATE_LIMITING));
+			assertFalse(StageRegistry.isEnabled(GatewayStage.RATE_LIMITING));
+			assertEquals(1, StageRegistry.getFilters(GatewayStage.BOT_DETECTION).size());
+			assertEquals(Set.of("botDetectionFilter"),
+					StageRegistry.getNamedFilters(GatewayStage.BOT_DETECTION).keySet());
+		}
+	}
+
+	@Test
+	void stagesCanBeSwitchedAtRuntime() {
+		assertTrue(StageRegistry.setSwitchedOn(GatewayStage.RATE_LIMITING, false));
+		assertTrue(StageRegistry.isSwitchedOff(GatewayStage.RATE_LIMITING));
+		assertFalse(StageRegistry.isSwitchedOff(GatewayStage.BENCHMARK));
+		assertEquals(false, StageRegistry.describe().get("rate-limiting").get("switchedOn"));
+
+		assertFalse(StageRegistry.setSwitchedOn(GatewayStage.RATE_LIMITING, true));
+		assertFalse(StageRegistry.isSwitchedOff(GatewayStage.RATE_LIMITING));
+	}
+
+	@Test
+	void unknownStageIdIsRejected() {
+		assertEquals(GatewayStage.BEHAVIOR_SCORING, GatewayStage.fromId("behavior-scoring"));
+		assertThrows(IllegalArgumentException.class, () -> GatewayStage.fromId("firewall"));
+	}
+}
@@ -0,0 +1,72 @@
+package com.example.gatekeeprt_design.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.FilterChain;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class VirtualThreadPinningTests {
+
+	/**
+	 * Catches a monitor held across a blocking call, which is what pins on
+	 * JDK 21; it says nothing about spinning or lock contention.
+	 */
+	@Test
+	void gatewayStagesDoNotPinVirtualThreads() throws Exception {
+		GatewayPipeline pipeline = new GatewayPipeline();
+		AtomicInteger passed = new AtomicInteger();
+		// Blocks downstream of every stage; a monitor held around the chain would pin here
+		FilterChain blockingChain = (request, response) -> {
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			passed.incrementAndGet();
+		};
+
+		List<String> pinned = new ArrayList<>();
+		try (RecordingStream events = new RecordingStream()) {
+			events.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+			events.onEvent("jdk.VirtualThreadPinned", e -> pinned.add(String.valueOf(e.getStackTrace())));
+			events.startAsync();
+
+			try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+				for (int client = 0; client < 64; client++) {
+					String clientId = "10.0.0." + client;
+					executor.submit(() -> {
+						for (int i = 0; i < 20; i++) {
+							pipeline.doFilter(request(clientId, "/page/" + i), new MockHttpServletResponse(), blockingChain);
+						}
+						return null;
+					});
+				}
+			}
+			events.stop();
+		} finally {
+			pipeline.destroy();
+		}
+
+		assertEquals(64 * 20, passed.get());
+		assertEquals(List.of(), pinned);
+	}
+
+	private static MockHttpServletRequest request(String clientId, String path) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+		request.addHeader("User-Agent", "Mozilla/5.0 (X11; Linux x86_64)");
+		request.addHeader("Accept", "text/html");
+		request.addHeader("Accept-Language", "en");
+		request.addHeader("X-Forwarded-For", clientId);
+		return request;
+	}
+}
@@ -0,0 +1,177 @@
+package com.example.gatekeeprt_design.logs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogFileTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void jumpsToLinesAcrossIndexMarksAndSegments() throws Exception {
+		Path path = write(lines(0, 100));
+		// Index every 7th line, 64-byte segments: most lines straddle a boundary somewhere
+		try (LogFile log = new LogFile(path, 7, 6)) {
+			assertEquals(100, log.getLineCount());
+			for (int first : new int[] { 0, 6, 7, 8, 49, 98 }) {
+				LogFile.Page page = log.lines(first, 3, 1024);
+				assertEquals(first, page.getFirstLine());
+				assertEquals(lines(first, Math.min(first + 3, 100)), page.getLines());
+			}
+			assertEquals(lines(95, 100), log.tail(5, 1024).getLines());
+			assertEquals(List.of(), log.lines(100, 3, 1024).getLines());
+		}
+	}
+
+	@Test
+	void pagesByByteRangeStartAtLineBoundaries() throws Exception {
+		Path path = write(lines(0, 20));
+		try (LogFile log = new LogFile(path, 4, 5)) {
+			LogFile.Page first = log.range(0, 30, false);
+			assertEquals(0, first.getFirstLine());
+			assertEquals(lines(0, first.getLines().size()), first.getLines());
+
+			LogFile.Page next = log.range(first.getEndOffset(), 30, false);
+			assertEquals(first.getLines().size(), next.getFirstLine());
+
+			// An offset inside a line moves on to the next one
+			LogFile.Page inside = log.range(first.getEndOffset() + 2, 1024, false);
+			assertEquals(next.getFirstLine() + 1, inside.getFirstLine());
+			assertEquals(lines((int) inside.getFirstLine(), 20), inside.getLines());
+		}
+	}
+
+	@Test
+	void scanningSplitRangesVisitsEachLineOnce() throws Exception {
+		Path path = write(lines(0, 50));
+		try (LogFile log = new LogFile(path, 5, 6)) {
+			for (long chunk : new long[] { 1, 7, 13, 64, 1000 }) {
+				List<String> seen = new ArrayList<>();
+				for (long from = 0; from < log.getSize(); from += chunk) {
+					log.scan(from, from + chunk, 1024, (line, text) -> {
+						assertEquals("line " + line, text);
+						return seen.add(text);
+					});
+				}
+				assertEquals(lines(0, 50), seen);
+			}
+		}
+	}
+
+	@Test
+	void refreshIndexesAppendedBytesOnly() throws Exception {
+		Path path = write(lines(0, 10));
+		try (LogFile log = new LogFile(path, 3, 6)) {
+			long end = log.getCompleteLength();
+
+			Files.writeString(path, "line 10\nline 1", StandardOpenOption.APPEND);
+			log.refresh();
+			assertEquals(12, log.getLineCount());
+			// A follower does not get the line still being written
+			assertEquals(List.of("line 10"), log.range(end, 1024, true).getLines());
+			assertEquals(List.of("line 10", "line 1"), log.range(end, 1024, false).getLines());
+
+			Files.writeString(path, "1\n", StandardOpenOption.APPEND);
+			log.refresh();
+			assertEquals(lines(9, 12), log.tail(3, 1024).getLines());
+		}
+	}
+
+	@Test
+	void truncatedFileIsIndexedAgain() throws Exception {
+		Path path = write(lines(0, 10));
+		try (LogFile log = new LogFile(path, 3, 6)) {
+			Files.writeString(path, "fresh\r\n");
+			log.refresh();
+			assertEquals(1, log.getLineCount());
+			assertEquals(List.of("fresh"), log.lines(0, 10, 1024).getLines());
+		}
+	}
+
+	@Test
+	void fileTruncatedAndRegrownPastItsOldSizeIsIndexedAgain() throws Exception {
+		Path path = write(lines(0, 10));
+		try (LogFile log = new LogFile(path, 3, 6)) {
+			int rewrites = log.getRewriteCount();
+
+			// copytruncate: same file, emptied and written past the old size before the next refresh
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+				channel.truncate(0);
+			}
+			Files.writeString(path, lines(100, 120).stream().map(line -> line + "\n").collect(Collectors.joining()),
+					StandardOpenOption.APPEND);
+			log.refresh();
+
+			assertEquals(rewrites + 1, log.getRewriteCount());
+			assertEquals(20, log.getLineCount());
+			assertEquals(lines(100, 103), log.lines(0, 3, 1024).getLines());
+		}
+	}
+
+	@Test
+	void readPastTheEndOfATruncatedMappingFailsAsIOError() throws Exception {
+		Path path = write(lines(0, 20_000));
+		try (LogFile log = LogFile.open(path)) {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+				channel.truncate(0);
+			}
+
+			assertThrows(UncheckedIOException.class, () -> log.tail(10, 1 << 20));
+
+			log.refresh();
+			assertEquals(0, log.getLineCount());
+			assertEquals(List.of(), log.tail(10, 1 << 20).getLines());
+		}
+	}
+
+	@Test
+	void longLinesAreCutToThePageBudget() throws Exception {
+		Path path = write("x".repeat(100) + "\nshort\n");
+		try (LogFile log = LogFile.open(path)) {
+			LogFile.Page page = log.lines(0, 10, 10);
+			assertEquals(List.of("x".repeat(10)), page.getLines());
+			assertEquals(List.of("short"), log.range(page.getEndOffset(), 10, false).getLines());
+		}
+	}
+
+	@Test
+	void wordScanFindsANewlineInAnyByte() {
+		for (int shift = 0; shift < 64; shift += 8) {
+			assertTrue(LogFile.hasNewline(0x4141414141414141L & ~(0xFFL << shift) | (0x0AL << shift)));
+		}
+		assertFalse(LogFile.hasNewline(0x0B0B0B0B0B0B0B0BL));
+		assertFalse(LogFile.hasNewline(0x8A8A8A8A8A8A8A8AL));
+		assertFalse(LogFile.hasNewline(0L));
+	}
+
+	private Path write(String content) throws Exception {
+		Path path = dir.resolve("app.log");
+		Files.writeString(path, content, StandardCharsets.UTF_8);
+		return path;
+	}
+
+	private Path write(List<String> lines) throws Exception {
+		return write(lines.stream().map(line -> line + "\n").collect(Collectors.joining()));
+	}
+
+	private static List<String> lines(int from, int to) {
+		return IntStream.range(from, to).mapToObj(i -> "line " + i).toList();
+	}
+}
@@ -0,0 +1,142 @@
+package com.example.gatekeeprt_design.logs;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.example.gatekeeprt_design.config.LogViewerProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogIndexTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void tokensKeepAddressesAndDropEdgePunctuation() {
+		assertEquals(List.of("login", "failed", "for", "admin", "from", "192.168.1.10"),
+				LogIndex.tokens("Login failed for admin from 192.168.1.10."));
+		assertEquals(List.of("user@example.com", "warn", "x-forwarded-for"),
+				LogIndex.tokens("-- user@example.com WARN x-forwarded-for: --"));
+		assertEquals(List.of(), LogIndex.tokens(" ... "));
+	}
+
+	@Test
+	void postingsRoundTripAndIntersect() {
+		LogIndex index = new LogIndex(100);
+		for (int line = 0; line < 5000; line++) {
+			index.add(line, (line % 2 == 0 ? "even" : "odd") + (line % 3 == 0 ? " three" : "") + " all all");
+		}
+		assertArrayEquals(new int[0], index.lookup(List.of("even")), "unpublished lines are not visible");
+		index.publish(1000, 5000);
+
+		assertArrayEquals(IntStream.range(0, 5000).toArray(), index.lookup(List.of("all")));
+		assertArrayEquals(IntStream.range(0, 5000).filter(i -> i % 6 == 0).toArray(),
+				index.lookup(List.of("even", "three")));
+		assertArrayEquals(new int[0], index.lookup(List.of("even", "odd")));
+		assertArrayEquals(new int[0], index.lookup(List.of("missing")));
+
+		// Gaps over 127 take several varint bytes
+		index.add(1_000_000, "even");
+		index.publish(2000, 1_000_001);
+		int[] even = index.lookup(List.of("even"));
+		assertEquals(1_000_000, even[even.length - 1]);
+
+		// Capped lookups stop decoding once enough lines are found
+		assertArrayEquals(IntStream.range(0, 10).toArray(), index.lookup(List.of("all"), 10));
+		assertArrayEquals(new int[] { 0, 6, 12 }, index.lookup(List.of("all", "three", "even"), 3));
+	}
+
+	@Test
+	void saturatedOrOverlongTokensCannotBeAnswered() {
+		LogIndex index = new LogIndex(2);
+		index.add(0, "alpha beta gamma");
+		index.publish(17, 1);
+		assertArrayEquals(new int[] { 0 }, index.lookup(List.of("alpha")));
+		assertNull(index.lookup(List.of("gamma")));
+		assertNull(new LogIndex(10).lookup(List.of("x".repeat(LogIndex.MAX_TOKEN_LENGTH + 1))));
+	}
+
+	@Test
+	void searchCombinesIndexWithScanOfNewLines() throws Exception {
+		Path log = dir.resolve("access.log");
+		Files.writeString(log, IntStream.range(0, 3000)
+				.mapToObj(i -> "GET /page user=u" + (i % 100) + " from 10.0.0." + (i % 7) + "\n")
+				.collect(Collectors.joining()));
+		LogViewerProperties properties = new LogViewerProperties();
+		properties.setDirectory(dir.toString());
+		properties.setIndexInterval(Duration.ofHours(1));
+		properties.setMaxSearchResults(1000);
+		LogReader reader = new LogReader(new ObjectMapper(), properties);
+		LogSearch search = new LogSearch(reader, properties);
+		try {
+			LogSearch.Result scanned = search.search("u42 10.0.0.3", false);
+			assertEquals(0, scanned.indexedFiles());
+
+			search.indexAll();
+			Files.writeString(log, "POST /login user=u42 from 10.0.0.3\n", StandardOpenOption.APPEND);
+			LogSearch.Result indexed = search.search("u42 10.0.0.3", false);
+			assertEquals(1, indexed.indexedFiles());
+			assertTrue(indexed.scannedBytes() < 100, "only the appended line is scanned");
+
+			List<Long> expected = IntStream.range(0, 3000).filter(i -> i % 100 == 42 && i % 7 == 3)
+					.mapToObj(i -> i + 1L).collect(Collectors.toList());
+			assertEquals(expected, scanned.hits().stream().map(LogSearch.Hit::line).toList());
+			expected.add(3001L);
+			assertEquals(expected, indexed.hits().stream().map(LogSearch.Hit::line).toList());
+			assertEquals("POST /login user=u42 from 10.0.0.3", indexed.hits().get(expected.size() - 1).text());
+
+			// Substring queries always scan, and match inside tokens
+			LogSearch.Result substring = search.search("ogi", true);
+			assertEquals(List.of(3001L), substring.hits().stream().map(LogSearch.Hit::line).toList());
+		} finally {
+			search.close();
+			reader.close();
+		}
+	}
+
+	@Test
+	void copyTruncatedLogGrownPastItsOldLengthIsIndexedAgain() throws Exception {
+		Path log = dir.resolve("app.log");
+		Files.writeString(log, "login alice\nlogin bob\n");
+		LogViewerProperties properties = new LogViewerProperties();
+		properties.setDirectory(dir.toString());
+		properties.setIndexInterval(Duration.ofHours(1));
+		LogReader reader = new LogReader(new ObjectMapper(), properties);
+		LogSearch search = new LogSearch(reader, properties);
+		try {
+			search.indexAll();
+			assertEquals(List.of("login bob"), search.search("bob", false).hits().stream()
+					.map(LogSearch.Hit::text).toList());
+
+			// Truncated in place and written past the old length before the next pass
+			try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+				channel.truncate(0);
+			}
+			Files.writeString(log, "logout carol\nlogout dave after a long day\n", StandardOpenOption.APPEND);
+			search.indexAll();
+
+			LogSearch.Result result = search.search("bob", false);
+			assertEquals(1, result.indexedFiles());
+			assertEquals(List.of(), result.hits());
+			assertEquals(List.of(2L), search.search("dave", false).hits().stream()
+					.map(LogSearch.Hit::line).toList());
+		}
+		finally {
+			search.close();
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package com.example.gatekeeprt_design.logs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.example.gatekeeprt_design.config.LogViewerProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class LogReaderTests {
+
+	private static final Pattern ID = Pattern.compile("^id:(\\d+)$", Pattern.MULTILINE);
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	@TempDir
+	Path dir;
+
+	private LogReader reader;
+
+	@BeforeEach
+	void createReader() {
+		LogViewerProperties properties = new LogViewerProperties();
+		properties.setMaxOpenFiles(1);
+		properties.setFollowInterval(Duration.ofMillis(20));
+		reader = new LogReader(OBJECT_MAPPER, properties);
+	}
+
+	@AfterEach
+	void closeReader() {
+		reader.close();
+	}
+
+	@Test
+	void followerKeepsItsPlaceWhenTheFileIsEvictedAndReopened() throws Exception {
+		Path followed = write("app.log", "one\ntwo\n");
+		Path other = write("other.log", "x\n");
+		RecordingEmitter emitter = new RecordingEmitter();
+		reader.follow(followed, 0, emitter);
+		assertEquals(List.of("one", "two"), emitter.next().lines());
+
+		// Only one file fits the cache: opening another evicts the followed one
+		reader.open(other);
+		append(followed, "three\n");
+		assertEquals(List.of("three"), emitter.next().lines());
+		reader.open(other);
+		append(followed, "four\n");
+		assertEquals(List.of("four"), emitter.next().lines());
+	}
+
+	@Test
+	void followerReconnectingFromTheLastEventIdSeesNoLineTwice() throws Exception {
+		Path followed = write("app.log", "one\ntwo\n");
+		RecordingEmitter first = new RecordingEmitter();
+		reader.follow(followed, 0, first);
+		Event event = first.next();
+		assertEquals(List.of("one", "two"), event.lines());
+		assertEquals(Files.size(followed), event.id());
+		first.completeWithError(new IOException("disconnected"));
+
+		RecordingEmitter second = new RecordingEmitter();
+		reader.follow(followed, event.id(), second);
+		append(followed, "three\n");
+		assertEquals(List.of("three"), second.next().lines());
+	}
+
+	@Test
+	void followerStartsOverWhenTheFileIsReplaced() throws Exception {
+		Path followed = write("app.log", "one\ntwo\n");
+		RecordingEmitter emitter = new RecordingEmitter();
+		reader.follow(followed, 0, emitter);
+		assertEquals(List.of("one", "two"), emitter.next().lines());
+
+		Path rotated = write("app.log.new", "fresh line that is longer\n");
+		Files.move(rotated, followed, StandardCopyOption.REPLACE_EXISTING);
+		assertEquals(List.of("fresh line that is longer"), emitter.next().lines());
+	}
+
+	private Path write(final String name, final String content) throws IOException {
+		return Files.writeString(dir.resolve(name), content);
+	}
+
+	private static void append(final Path path, final String content) throws IOException {
+		Files.writeString(path, content, StandardOpenOption.APPEND);
+	}
+
+	private record Event(long id, List<String> lines) {
+	}
+
+	private static final class RecordingEmitter extends SseEmitter {
+
+		final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+		RecordingEmitter() {
+			super(0L);
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) {
+			send(builder.build());
+		}
+
+		@Override
+		public void send(Set<DataWithMediaType> items) {
+			StringBuilder event = new StringBuilder();
+			for (DataWithMediaType item : items) {
+				Object data = item.getData();
+				event.append(data instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : data);
+			}
+			if (event.indexOf("event:lines") >= 0) {
+				events.add(event.toString());
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		Event next() throws Exception {
+			String event = events.poll(5, TimeUnit.SECONDS);
+			assertNotNull(event, "no event");
+			Matcher id = ID.matcher(event);
+			assertTrue(id.find(), event);
+			String json = event.substring(event.indexOf("data:") + 5).trim();
+			Map<String, Object> data = OBJECT_MAPPER.readValue(json, Map.class);
+			return new Event(Long.parseLong(id.group(1)), (List<String>) data.get("lines"));
+		}
+
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.example.gatekeeprt_design.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTests {
+
+	@Test
+	void bucketsAreContiguousAndCoverTheirValues() {
+		for (long value : new long[] { 0, 1, 31, 32, 63, 64, 65, 127, 128, 1_000, 999_999, 1L << 40,
+				LatencyHistogram.MAX_TRACKABLE }) {
+			int bucket = LatencyHistogram.bucketOf(value);
+			assertTrue(value <= LatencyHistogram.highestValueOf(bucket), "value " + value);
+			assertTrue(bucket == 0 || value > LatencyHistogram.highestValueOf(bucket - 1), "value " + value);
+		}
+	}
+
+	@Test
+	void percentilesStayWithinRelativeErrorBound() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Random random = new Random(1);
+		long[] samples = new long[100_000];
+		for (int i = 0; i < samples.length; i++) {
+			// Log-uniform between 1us and 1s
+			samples[i] = (long) Math.pow(10, 3 + 6 * random.nextDouble());
+			histogram.record(samples[i]);
+		}
+		Arrays.sort(samples);
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(samples.length, snapshot.getCount());
+		assertEquals(samples[samples.length - 1], snapshot.getMax());
+		for (double percentile : new double[] { 50, 90, 99, 99.9 }) {
+			long exact = samples[(int) Math.ceil(percentile / 100 * samples.length) - 1];
+			long reported = snapshot.getValueAtPercentile(percentile);
+			assertTrue(Math.abs(reported - exact) <= exact / 32 + 1,
+					"p" + percentile + " exact " + exact + " reported " + reported);
+		}
+	}
+
+	@Test
+	void concurrentRecordingLosesNoSamples() throws InterruptedException {
+		LatencyHistogram histogram = new LatencyHistogram();
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			pool.execute(() -> {
+				for (int i = 0; i < 100_000; i++) {
+					histogram.record(1_000 + i % 50);
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+		assertEquals(800_000, histogram.snapshot().getCount());
+		assertEquals(1_049, histogram.snapshot().getMax());
+	}
+
+}
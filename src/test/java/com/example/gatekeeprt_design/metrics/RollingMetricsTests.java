@@ -0,0 +1,80 @@
+package com.example.gatekeeprt_design.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class RollingMetricsTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	void windowsCoverOnlyTheirCompletedSeconds() {
+		AtomicLong clock = new AtomicLong(1_000 * SECOND);
+		RollingMetrics rolling = new RollingMetrics(clock::get);
+
+		// 10 requests per second for 10 minutes, every 5th one failing
+		for (int s = 0; s < 600; s++) {
+			for (int i = 0; i < 10; i++) {
+				rolling.record(2 * MILLI, i % 5 == 0);
+			}
+			clock.addAndGet(SECOND);
+		}
+		rolling.record(2 * MILLI, true); // current second, not reported yet
+
+		RollingMetrics.Window minute = rolling.window(60);
+		assertEquals(600, minute.getRequests());
+		assertEquals(10.0, minute.getRequestsPerSecond(), 1e-9);
+		assertEquals(0.2, minute.getErrorRate(), 1e-9);
+
+		assertEquals(3_000, rolling.window(300).getRequests());
+		assertEquals(6_000, rolling.window(900).getRequests());
+	}
+
+	@Test
+	void oldSecondsFallOutOfTheRing() {
+		AtomicLong clock = new AtomicLong(-3 * SECOND);
+		RollingMetrics rolling = new RollingMetrics(clock::get);
+
+		rolling.record(1 * MILLI, false);
+		clock.addAndGet(RollingMetrics.MAX_WINDOW_SECONDS * SECOND);
+		// Same bucket, one ring later: the old second is recycled
+		rolling.record(500 * MILLI, false);
+		clock.addAndGet(SECOND);
+
+		RollingMetrics.Window window = rolling.window(RollingMetrics.MAX_WINDOW_SECONDS);
+		assertEquals(1, window.getRequests());
+		assertTrue(window.getValueAtPercentile(50) >= 500 * MILLI);
+	}
+
+	@Test
+	void percentilesReflectTheWindowOnly() {
+		AtomicLong clock = new AtomicLong(0);
+		RollingMetrics rolling = new RollingMetrics(clock::get);
+
+		// A slow burst ten minutes ago, fast traffic since
+		for (int i = 0; i < 100; i++) {
+			rolling.record(800 * MILLI, true);
+		}
+		clock.addAndGet(600 * SECOND);
+		for (int i = 0; i < 1_000; i++) {
+			rolling.record(i * 10_000L, false);
+		}
+		clock.addAndGet(SECOND);
+
+		RollingMetrics.Window minute = rolling.window(60);
+		long p99 = minute.getValueAtPercentile(99);
+		assertTrue(p99 >= 9_900_000 && p99 <= 9_900_000 * 1.13, "p99 " + p99);
+		assertEquals(0.0, minute.getErrorRate());
+
+		RollingMetrics.Window quarter = rolling.window(900);
+		assertEquals(1_100, quarter.getRequests());
+		assertTrue(quarter.getMax() >= 800 * MILLI);
+	}
+}
@@ -0,0 +1,102 @@
+package com.example.gatekeeprt_design.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class StripedCountersTests {
+
+	@Test
+	void concurrentUpdatesAreNotLost() throws Exception {
+		StripedCounters counters = new StripedCounters(2, 4);
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			pool.execute(() -> {
+				for (int i = 0; i < 100_000; i++) {
+					counters.add(0, 1, 1, 3);
+				}
+			});
+		}
+		pool.shutdown();
+		pool.awaitTermination(30, TimeUnit.SECONDS);
+
+		assertArrayEquals(new long[] { 800_000, 2_400_000 }, counters.snapshot());
+		assertEquals(800_000, counters.sum(0));
+	}
+
+	@Test
+	void snapshotsTakenDuringPairedUpdatesAlwaysAgreeAndNeverGoBackwards() throws Exception {
+		StripedCounters counters = new StripedCounters(2, 2);
+		AtomicBoolean running = new AtomicBoolean(true);
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		for (int t = 0; t < 3; t++) {
+			pool.execute(() -> {
+				while (running.get()) {
+					counters.add(0, 1, 1, 7);
+				}
+			});
+		}
+		Future<?> reader = pool.submit(() -> {
+			long[] previous = counters.snapshot();
+			for (int i = 0; i < 20_000; i++) {
+				long[] totals = counters.snapshot();
+				assertEquals(totals[0] * 7, totals[1]);
+				assertTrue(totals[0] >= previous[0] && totals[1] >= previous[1]);
+				previous = totals;
+			}
+		});
+		try {
+			reader.get(30, TimeUnit.SECONDS);
+		} finally {
+			running.set(false);
+			pool.shutdown();
+			pool.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	void resetDuringPairedUpdatesKeepsThePairInStep() throws Exception {
+		StripedCounters counters = new StripedCounters(2, 2);
+		AtomicBoolean running = new AtomicBoolean(true);
+		ExecutorService pool = Executors.newFixedThreadPool(3);
+		for (int t = 0; t < 3; t++) {
+			pool.execute(() -> {
+				while (running.get()) {
+					counters.add(0, 1, 1, 7);
+				}
+			});
+		}
+		try {
+			for (int i = 0; i < 2_000; i++) {
+				counters.reset();
+			}
+		}
+		finally {
+			running.set(false);
+			pool.shutdown();
+			pool.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		long[] totals = counters.snapshot();
+		assertEquals(totals[0] * 7, totals[1]);
+	}
+
+	@Test
+	void resetClearsEveryStripe() {
+		StripedCounters counters = new StripedCounters(3);
+		counters.increment(0);
+		counters.add(2, 5);
+		counters.reset();
+
+		assertArrayEquals(new long[3], counters.snapshot());
+		counters.increment(1);
+		assertArrayEquals(new long[] { 0, 1, 0 }, counters.snapshot());
+	}
+}
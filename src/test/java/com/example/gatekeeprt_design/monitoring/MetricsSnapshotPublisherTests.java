@@ -0,0 +1,100 @@
+package com.example.gatekeeprt_design.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.example.gatekeeprt_design.config.MetricsProperties;
+import com.example.gatekeeprt_design.filter.BenchmarkFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class MetricsSnapshotPublisherTests {
+
+	@Test
+	void refreshPublishesCurrentCounters() throws Exception {
+		MetricsSnapshotPublisher publisher = new MetricsSnapshotPublisher(new ObjectMapper(),
+				properties(Duration.ofHours(1)));
+		try {
+			MetricsSnapshot before = publisher.get();
+			new BenchmarkFilter().doFilter(new MockHttpServletRequest("GET", "/home"),
+					new MockHttpServletResponse(), (request, response) -> {
+					});
+
+			MetricsSnapshot after = publisher.refresh();
+			assertSame(after, publisher.get());
+			assertTrue(totalRequests(after) >= totalRequests(before) + 1,
+					totalRequests(before) + " -> " + totalRequests(after));
+		}
+		finally {
+			publisher.close();
+		}
+	}
+
+	@Test
+	void publishesOnItsOwnEveryInterval() throws Exception {
+		MetricsSnapshotPublisher publisher = new MetricsSnapshotPublisher(new ObjectMapper(),
+				properties(Duration.ofMillis(20)));
+		try {
+			MetricsSnapshot first = publisher.get();
+			assertNotNull(first);
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (publisher.get() == first && System.nanoTime() < deadline) {
+				Thread.sleep(5);
+			}
+			assertNotSame(first, publisher.get());
+		}
+		finally {
+			publisher.close();
+		}
+	}
+
+	@Test
+	void failedCaptureKeepsThePreviousSnapshot() {
+		FailingMapper objectMapper = new FailingMapper();
+		MetricsSnapshotPublisher publisher = new MetricsSnapshotPublisher(objectMapper,
+				properties(Duration.ofHours(1)));
+		try {
+			MetricsSnapshot good = publisher.get();
+			objectMapper.failing = true;
+
+			assertSame(good, publisher.refresh());
+		}
+		finally {
+			publisher.close();
+		}
+	}
+
+	private static MetricsProperties properties(Duration interval) {
+		MetricsProperties properties = new MetricsProperties();
+		properties.setSnapshotInterval(interval);
+		return properties;
+	}
+
+	private static long totalRequests(MetricsSnapshot snapshot) {
+		return ((Number) snapshot.getModel().get("totalRequests")).longValue();
+	}
+
+	private static final class FailingMapper extends ObjectMapper {
+
+		volatile boolean failing;
+
+		@Override
+		public byte[] writeValueAsBytes(Object value) throws JsonProcessingException {
+			if (failing) {
+				throw new JsonProcessingException("broken") {
+				};
+			}
+			return super.writeValueAsBytes(value);
+		}
+
+	}
+
+}
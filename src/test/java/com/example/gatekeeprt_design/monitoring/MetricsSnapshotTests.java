@@ -0,0 +1,60 @@
+package com.example.gatekeeprt_design.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.example.gatekeeprt_design.filter.BenchmarkFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+
+class MetricsSnapshotTests {
+
+	@Test
+	void jsonIsTheModelWrittenWithTheGivenMapper() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+		MetricsSnapshot snapshot = MetricsSnapshot.capture(objectMapper);
+
+		String json = new String(snapshot.getJson(), StandardCharsets.UTF_8);
+		assertTrue(json.contains("\n"), "mapper settings not applied: " + json);
+		JsonNode tree = objectMapper.readTree(json);
+		assertEquals(((Number) snapshot.getModel().get("totalRequests")).longValue(),
+				tree.get("totalRequests").asLong());
+		assertEquals(snapshot.getModel().keySet(), keys(tree));
+		assertEquals(snapshot.getModel().get("totalRequests"), snapshot.getPageAttributes().get("totalRequests"));
+	}
+
+	@Test
+	void textIsThePlainMetricsReport() throws Exception {
+		MetricsSnapshot snapshot = MetricsSnapshot.capture(new ObjectMapper());
+
+		assertArrayEquals(BenchmarkFilter.getMetrics().getBytes(StandardCharsets.UTF_8), snapshot.getText());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void modelIsImmutableAllTheWayDown() throws Exception {
+		MetricsSnapshot snapshot = MetricsSnapshot.capture(new ObjectMapper());
+		Map<String, Object> model = snapshot.getModel();
+		Map<String, Object> latency = (Map<String, Object>) model.get("latency");
+
+		assertThrows(UnsupportedOperationException.class, () -> model.put("totalRequests", 0L));
+		assertThrows(UnsupportedOperationException.class, () -> latency.clear());
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getPageAttributes().clear());
+	}
+
+	private static Set<String> keys(JsonNode tree) {
+		Set<String> keys = new LinkedHashSet<>();
+		tree.fieldNames().forEachRemaining(keys::add);
+		return keys;
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.example.gatekeeprt_design.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.example.gatekeeprt_design.config.MetricsProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class MetricsStreamTests {
+
+	@Test
+	void unchangedModelProducesEmptyDelta() {
+		Map<String, Object> model = Map.of("totalRequests", 5L, "latency", Map.of("p50", 1.5));
+		assertTrue(MetricsStream.diff(model, Map.copyOf(model)).isEmpty());
+	}
+
+	@Test
+	void deltaHoldsOnlyChangedLeavesOfNestedMaps() {
+		Map<String, Object> before = Map.of("totalRequests", 5L, "botsDetected", 1L,
+				"latency", Map.of("p50", 1.5, "p99", 9.0));
+		Map<String, Object> after = Map.of("totalRequests", 6L, "botsDetected", 1L,
+				"latency", Map.of("p50", 1.5, "p99", 12.0));
+
+		assertEquals(Map.of("totalRequests", 6L, "latency", Map.of("p99", 12.0)),
+				MetricsStream.diff(before, after));
+	}
+
+	@Test
+	void removedKeysAreSentAsNull() {
+		Map<String, Object> before = Map.of("endpoints", Map.of("/a", 1, "/b", 2));
+		Map<String, Object> after = Map.of("endpoints", Map.of("/a", 1));
+
+		Map<Object, Object> expected = new HashMap<>();
+		expected.put("/b", null);
+		assertEquals(Map.of("endpoints", expected), MetricsStream.diff(before, after));
+	}
+
+	@Test
+	void stalledSubscriberIsDisconnectedWithoutDelayingOthers() throws Exception {
+		MetricsProperties properties = new MetricsProperties();
+		properties.setSnapshotInterval(Duration.ofMillis(20));
+		properties.setStreamInterval(Duration.ofMillis(20));
+		ObjectMapper objectMapper = new ObjectMapper();
+		MetricsSnapshotPublisher publisher = new MetricsSnapshotPublisher(objectMapper, properties);
+		MetricsStream stream = new MetricsStream(objectMapper, publisher, properties);
+		CountDownLatch unblock = new CountDownLatch(1);
+		try {
+			RecordingEmitter stalled = new RecordingEmitter(unblock);
+			RecordingEmitter healthy = new RecordingEmitter(null);
+			stream.subscribe(stalled);
+			stream.subscribe(healthy);
+
+			// The healthy client keeps receiving every tick while the other is stuck in a write
+			for (int i = 0; i < MetricsStream.BUFFERED_EVENTS * 2; i++) {
+				assertNotNull(healthy.events.poll(5, TimeUnit.SECONDS), "event " + i);
+			}
+			assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+			assertEquals(1, stream.getSubscriberCount());
+		}
+		finally {
+			unblock.countDown();
+			stream.close();
+			publisher.close();
+		}
+	}
+
+	private static final class RecordingEmitter extends SseEmitter {
+
+		final BlockingQueue<Set<DataWithMediaType>> events = new LinkedBlockingQueue<>();
+
+		final CountDownLatch completed = new CountDownLatch(1);
+
+		private final CountDownLatch unblock;
+
+		RecordingEmitter(CountDownLatch unblock) {
+			super(0L);
+			this.unblock = unblock;
+		}
+
+		@Override
+		public void send(Set<DataWithMediaType> items) throws IOException {
+			if (unblock != null) {
+				try {
+					unblock.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			events.add(items);
+		}
+
+		@Override
+		public void complete() {
+			completed.countDown();
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ClientStateStoreTests {
+
+	private static final long TTL = TimeUnit.MINUTES.toNanos(1);
+
+	@Test
+	void returnsSameStateForSameClient() {
+		try (ClientStateStore<LimiterState> store = new ClientStateStore<>(10, 1, TimeUnit.MINUTES)) {
+			LimiterState first = store.get("10.0.0.1", 0L, LimiterState::new);
+			assertSame(first, store.get("10.0.0.1", 1L, LimiterState::new));
+			assertEquals(1, store.size());
+		}
+	}
+
+	@Test
+	void sweepRemovesOnlyIdleClients() {
+		try (ClientStateStore<LimiterState> store = new ClientStateStore<>(10, 1, TimeUnit.MINUTES)) {
+			store.get("idle", 0L, LimiterState::new);
+			store.get("active", 0L, LimiterState::new);
+			store.get("active", TTL, LimiterState::new);
+
+			store.sweep(TTL + 1);
+
+			assertEquals(1, store.size());
+			assertEquals(1, store.getExpiredCount());
+			assertEquals(0, store.getEvictedCount());
+		}
+	}
+
+	@Test
+	void spoofedClientFloodStaysWithinCapacity() {
+		try (ClientStateStore<LimiterState> store = new ClientStateStore<>(1_000, 1, TimeUnit.MINUTES)) {
+			for (int i = 0; i < 50_000; i++) {
+				store.get("spoofed-" + i, i, LimiterState::new);
+			}
+
+			assertTrue(store.size() <= 1_000);
+			assertEquals(49_000, store.getEvictedCount());
+		}
+	}
+
+	@Test
+	void concurrentNewClientsNeverExceedCapacity() throws Exception {
+		int threads = 8;
+		try (ClientStateStore<LimiterState> store = new ClientStateStore<>(500, 1, TimeUnit.MINUTES)) {
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			int[] maxSeen = new int[threads];
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				pool.execute(() -> {
+					for (int i = 0; i < 20_000; i++) {
+						store.get(thread + "-" + i, i, LimiterState::new);
+						maxSeen[thread] = Math.max(maxSeen[thread], store.size());
+					}
+				});
+			}
+			pool.shutdown();
+			assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+			for (int seen : maxSeen) {
+				assertTrue(seen <= 500, "size reached " + seen);
+			}
+			assertEquals(500, store.size());
+			assertEquals(threads * 20_000 - 500, store.getEvictedCount());
+		}
+	}
+
+	@Test
+	void evictionPrefersIdleClientsAcrossTheWholeTable() {
+		try (ClientStateStore<LimiterState> store = new ClientStateStore<>(1_000, 1, TimeUnit.MINUTES)) {
+			for (int i = 0; i < 1_000; i++) {
+				store.get("old-" + i, 0L, LimiterState::new);
+			}
+			for (int i = 0; i < 500; i++) {
+				store.get("new-" + i, TTL / 2 + i, LimiterState::new);
+			}
+
+			int newKept = 0;
+			for (int i = 0; i < 500; i++) {
+				LimiterState state = new LimiterState(-1);
+				if (store.get("new-" + i, TTL / 2 + 1_000, now -> state) != state) {
+					newKept++;
+				}
+			}
+			// A sample of 8 nearly always holds an old client while two thirds of the table is old
+			assertTrue(newKept >= 450, "kept " + newKept);
+		}
+	}
+
+}
@@ -0,0 +1,185 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ClusterRateLimiterTests {
+
+	private static final int LIMIT = 300;
+
+	// A long window, so the test never straddles a wall-clock window boundary in practice
+	private static final long WINDOW = TimeUnit.HOURS.toNanos(1);
+
+	private static final long INTERVAL_MILLIS = 10;
+
+	private static final byte[] SECRET = "cluster-secret".getBytes(StandardCharsets.UTF_8);
+
+	private final RateLimitPolicy policy = RoutePolicyTable
+			.builder(new SlidingWindowRateLimiter(LIMIT, 1, TimeUnit.HOURS), WINDOW).build().getPolicies().get(0);
+
+	private final List<ClusterRateLimiter> nodes = new ArrayList<>();
+
+	@AfterEach
+	void close() {
+		nodes.forEach(ClusterRateLimiter::close);
+	}
+
+	@Test
+	void clientSpreadOverNodesGetsTheClusterLimitWithinTheGossipError() throws Exception {
+		startCluster(3);
+		int admitted = 0;
+		// 30 requests per 10ms gossip interval, round robin over the nodes
+		for (int i = 0; i < 3 * LIMIT; i++) {
+			if (nodes.get(i % 3).tryAcquire("10.0.0.1", policy)) {
+				admitted++;
+			}
+			if (i % 30 == 29) {
+				Thread.sleep(INTERVAL_MILLIS);
+			}
+		}
+		// Unshared, each node would admit LIMIT; shared, the overshoot is what the others
+		// admit within a gossip interval (about 20 here), with slack for a slow scheduler
+		assertTrue(admitted >= LIMIT && admitted <= LIMIT + LIMIT / 2, "admitted " + admitted);
+	}
+
+	@Test
+	void quotaUsedOnOneNodeIsEnforcedByTheOthers() throws Exception {
+		startCluster(2);
+		for (int i = 0; i < LIMIT; i++) {
+			assertTrue(nodes.get(0).tryAcquire("10.0.0.2", policy));
+		}
+		assertFalse(nodes.get(0).tryAcquire("10.0.0.2", policy));
+
+		boolean denied = false;
+		for (int i = 0; i < 100 && !denied; i++) {
+			Thread.sleep(INTERVAL_MILLIS);
+			denied = !nodes.get(1).tryAcquire("10.0.0.2", policy);
+		}
+		assertTrue(denied, "second node never learned about the first node's usage");
+		assertTrue(nodes.get(1).tryAcquire("10.0.0.3", policy));
+	}
+
+	@Test
+	void ownAddressIsNotAPeer() throws Exception {
+		startCluster(3);
+		for (ClusterRateLimiter node : nodes) {
+			assertEquals(2, node.getStats().get("peers"));
+		}
+	}
+
+	@Test
+	void nodesWithAnotherSecretAreNotHeard() throws Exception {
+		startCluster(1);
+		ClusterRateLimiter stranger = node("other-secret".getBytes(StandardCharsets.UTF_8));
+		nodes.get(0).addPeer(address(stranger));
+		stranger.addPeer(address(nodes.get(0)));
+
+		for (int i = 0; i < LIMIT; i++) {
+			assertTrue(stranger.tryAcquire("10.0.0.4", policy));
+		}
+		awaitRejected(nodes.get(0), 1);
+		assertTrue(nodes.get(0).tryAcquire("10.0.0.4", policy));
+		assertEquals(0L, nodes.get(0).getStats().get("receivedDatagrams"));
+	}
+
+	@Test
+	void datagramsFromUnknownSendersAreDropped() throws Exception {
+		startCluster(1);
+		try (DatagramChannel sender = DatagramChannel.open()) {
+			sender.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			sender.send(ByteBuffer.wrap(new byte[64]), address(nodes.get(0)));
+		}
+		awaitRejected(nodes.get(0), 1);
+		assertEquals(0L, nodes.get(0).getStats().get("receivedDatagrams"));
+	}
+
+	@Test
+	void windowIndexWrappingPastIntegerMaxValueStartsAFreshWindow() throws Exception {
+		long window = TimeUnit.MILLISECONDS.toNanos(100);
+		// The last window before the index wraps
+		AtomicLong wall = new AtomicLong(Integer.MAX_VALUE * window);
+		RateLimitPolicy shortPolicy = RoutePolicyTable
+				.builder(new SlidingWindowRateLimiter(2, 100, TimeUnit.MILLISECONDS), window).build().getPolicies()
+				.get(0);
+		ClusterRateLimiter first = node(2, window, wall);
+		ClusterRateLimiter second = node(2, window, wall);
+		first.addPeer(address(second));
+		second.addPeer(address(first));
+
+		assertTrue(first.tryAcquire("10.0.0.1", shortPolicy));
+		assertTrue(first.tryAcquire("10.0.0.1", shortPolicy));
+		assertFalse(first.tryAcquire("10.0.0.1", shortPolicy));
+		awaitReceived(second, 1);
+
+		// Two windows later the index has wrapped to Integer.MIN_VALUE + 1
+		wall.addAndGet(2 * window);
+		assertTrue(first.tryAcquire("10.0.0.1", shortPolicy));
+		assertTrue(first.tryAcquire("10.0.0.1", shortPolicy));
+		assertFalse(first.tryAcquire("10.0.0.1", shortPolicy));
+
+		// The counts gossiped for the wrapped window replace those of the old one
+		awaitReceived(second, 2);
+		assertFalse(second.tryAcquire("10.0.0.1", shortPolicy));
+	}
+
+	private void startCluster(int size) throws Exception {
+		List<InetSocketAddress> addresses = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			addresses.add(address(node(SECRET)));
+		}
+		// Every node gets the same list, itself included
+		for (ClusterRateLimiter node : nodes) {
+			for (InetSocketAddress address : addresses) {
+				node.addPeer(address);
+			}
+		}
+	}
+
+	private ClusterRateLimiter node(byte[] secret) throws Exception {
+		ClusterRateLimiter node = new ClusterRateLimiter(new int[] { LIMIT }, new long[] { WINDOW }, 1000,
+				new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), secret, 4, INTERVAL_MILLIS,
+				TimeUnit.MILLISECONDS);
+		nodes.add(node);
+		return node;
+	}
+
+	private ClusterRateLimiter node(int limit, long window, AtomicLong wall) throws Exception {
+		ClusterRateLimiter node = new ClusterRateLimiter(new int[] { limit }, new long[] { window }, 1000,
+				new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), SECRET, 4, INTERVAL_MILLIS,
+				TimeUnit.MILLISECONDS, wall::get);
+		nodes.add(node);
+		return node;
+	}
+
+	private static InetSocketAddress address(ClusterRateLimiter node) throws Exception {
+		return new InetSocketAddress(InetAddress.getLoopbackAddress(), node.getLocalPort());
+	}
+
+	private static void awaitReceived(ClusterRateLimiter node, long count) throws InterruptedException {
+		for (int i = 0; i < 500 && (long) node.getStats().get("receivedDatagrams") < count; i++) {
+			Thread.sleep(INTERVAL_MILLIS);
+		}
+		assertTrue((long) node.getStats().get("receivedDatagrams") >= count, "nothing was received");
+	}
+
+	private static void awaitRejected(ClusterRateLimiter node, long count) throws InterruptedException {
+		for (int i = 0; i < 500 && (long) node.getStats().get("rejectedDatagrams") < count; i++) {
+			Thread.sleep(INTERVAL_MILLIS);
+		}
+		assertTrue((long) node.getStats().get("rejectedDatagrams") >= count, "nothing was rejected");
+	}
+}
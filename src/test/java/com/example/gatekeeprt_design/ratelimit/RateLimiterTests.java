@@ -0,0 +1,148 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTests {
+
+	private static final int THREADS = 32;
+
+	private static final int ATTEMPTS_PER_THREAD = 10_000;
+
+	@Test
+	void gcraAdmitsBurstThenRefillsAtSustainedRate() {
+		RateLimiter limiter = new GcraRateLimiter(100, 60, TimeUnit.SECONDS);
+		long now = 1_000_000_000L;
+		LimiterState state = limiter.newState(now);
+
+		for (int i = 0; i < 100; i++) {
+			assertTrue(limiter.tryAcquire(state, now));
+		}
+		assertFalse(limiter.tryAcquire(state, now));
+
+		long emission = TimeUnit.SECONDS.toNanos(60) / 100;
+		assertFalse(limiter.tryAcquire(state, now + emission - 1));
+		assertTrue(limiter.tryAcquire(state, now + emission));
+		assertFalse(limiter.tryAcquire(state, now + emission));
+	}
+
+	@Test
+	void tokenBucketStartsFullAndNeverExceedsCapacity() {
+		RateLimiter limiter = new TokenBucketRateLimiter(10, 10, 1, TimeUnit.SECONDS);
+		long now = 0L;
+		LimiterState state = limiter.newState(now);
+
+		assertEquals(10, drain(limiter, state, now));
+
+		// A long idle period refills only up to the capacity
+		assertEquals(10, drain(limiter, state, now + TimeUnit.HOURS.toNanos(1)));
+	}
+
+	@Test
+	void slidingWindowWeightsPreviousWindowByOverlap() {
+		long window = TimeUnit.SECONDS.toNanos(60);
+		RateLimiter limiter = new SlidingWindowRateLimiter(100, 60, TimeUnit.SECONDS);
+		LimiterState state = limiter.newState(0L);
+
+		assertEquals(100, drain(limiter, state, 0L));
+
+		// A quarter into the next window, 75% of the previous 100 still count
+		assertEquals(25, drain(limiter, state, window + window / 4));
+
+		// Two windows later everything has aged out
+		assertEquals(100, drain(limiter, state, 3 * window));
+	}
+
+	@Test
+	void slidingWindowSurvivesWindowIndexesPastIntRange() {
+		long window = TimeUnit.MILLISECONDS.toNanos(1);
+		RateLimiter limiter = new SlidingWindowRateLimiter(10, 1, TimeUnit.MILLISECONDS);
+		// Window index just below 2^32: it wraps to negative in 32 bits, then past zero
+		long now = ((1L << 32) - 1) * window;
+		LimiterState state = limiter.newState(now);
+
+		assertEquals(10, drain(limiter, state, now));
+		assertEquals(0, drain(limiter, state, now + window / 2));
+		assertEquals(10, drain(limiter, state, now + 2 * window));
+
+		// Moved to a clock a day later, the spent window stays spent
+		long shift = TimeUnit.DAYS.toNanos(1);
+		LimiterState moved = new LimiterState(limiter.rebase(state.get(), shift));
+		assertEquals(0, drain(limiter, moved, now + 2 * window + shift));
+		assertEquals(10, drain(limiter, moved, now + 4 * window + shift));
+	}
+
+	@Test
+	void limitersNeverOverAdmitUnderContention() throws InterruptedException {
+		for (RateLimiter limiter : List.of(
+				new GcraRateLimiter(500, 60, TimeUnit.SECONDS),
+				new TokenBucketRateLimiter(500, 500, 60, TimeUnit.SECONDS),
+				new SlidingWindowRateLimiter(500, 60, TimeUnit.SECONDS))) {
+			long now = System.nanoTime();
+			LimiterState state = limiter.newState(now);
+
+			assertEquals(500, hammer(limiter, state, now));
+		}
+	}
+
+	@Test
+	void contendedRefillAdmitsExactlyElapsedPermits() throws InterruptedException {
+		RateLimiter limiter = new GcraRateLimiter(1_000, 1, TimeUnit.SECONDS);
+		long now = 0L;
+		LimiterState state = limiter.newState(now);
+		assertEquals(1_000, hammer(limiter, state, now));
+
+		// 250ms later a quarter of the budget is back, however many threads race for it
+		assertEquals(250, hammer(limiter, state, now + TimeUnit.MILLISECONDS.toNanos(250)));
+	}
+
+	private static int drain(RateLimiter limiter, LimiterState state, long now) {
+		int granted = 0;
+		while (limiter.tryAcquire(state, now)) {
+			granted++;
+		}
+		return granted;
+	}
+
+	private static int hammer(RateLimiter limiter, LimiterState state, long now)
+			throws InterruptedException {
+		AtomicInteger granted = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			for (int t = 0; t < THREADS; t++) {
+				pool.execute(() -> {
+					try {
+						start.await();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+						if (limiter.tryAcquire(state, now)) {
+							granted.incrementAndGet();
+						}
+					}
+				});
+			}
+			start.countDown();
+		}
+		finally {
+			pool.shutdown();
+			assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+		}
+		return granted.get();
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.example.gatekeeprt_design.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class RoutePolicyTableTests {
+
+	private static final long WINDOW = TimeUnit.MINUTES.toNanos(1);
+
+	private static final RateLimiter LIMITER = new GcraRateLimiter(100, 1, TimeUnit.MINUTES);
+
+	private final RoutePolicyTable table = RoutePolicyTable.builder(LIMITER, WINDOW)
+			.add("/upload", List.of("POST"), LIMITER, WINDOW)
+			.add("/api/**", List.of(), LIMITER, WINDOW)
+			.add("/api/metrics", List.of("GET"), LIMITER, WINDOW)
+			.add("/api/admin/**", List.of("post", "delete"), LIMITER, WINDOW)
+			.build();
+
+	@Test
+	void exactPathMatchesOnlyConfiguredMethods() {
+		assertEquals("/upload", patternFor("POST", "/upload"));
+		assertEquals("/**", patternFor("GET", "/upload"));
+		assertEquals("/**", patternFor("POST", "/upload/extra"));
+	}
+
+	@Test
+	void subtreeMatchesItsRootAndDescendantsOnSegmentBoundaries() {
+		assertEquals("/api/**", patternFor("GET", "/api"));
+		assertEquals("/api/**", patternFor("GET", "/api/bot-count"));
+		assertEquals("/**", patternFor("GET", "/apix"));
+	}
+
+	@Test
+	void exactBeatsPrefixAndLongerPrefixBeatsShorter() {
+		assertEquals("/api/metrics", patternFor("GET", "/api/metrics"));
+		assertEquals("/api/**", patternFor("POST", "/api/metrics"));
+		assertEquals("/api/admin/**", patternFor("DELETE", "/api/admin/stages/bot"));
+		assertEquals("/api/**", patternFor("GET", "/api/admin/stages/bot"));
+	}
+
+	@Test
+	void policyIdsIndexThePolicyList() {
+		for (RateLimitPolicy policy : table.getPolicies()) {
+			assertEquals(policy, table.getPolicies().get(policy.getId()));
+		}
+	}
+
+	@Test
+	void rejectsUnsupportedPatterns() {
+		RoutePolicyTable.Builder builder = RoutePolicyTable.builder(LIMITER, WINDOW);
+		assertThrows(IllegalArgumentException.class, () -> builder.add("/api/*/x", List.of(), LIMITER, WINDOW));
+		assertThrows(IllegalArgumentException.class, () -> builder.add("upload", List.of(), LIMITER, WINDOW));
+		assertThrows(IllegalArgumentException.class, () -> builder.add("/upload", List.of("FETCH"), LIMITER, WINDOW));
+	}
+
+	private String patternFor(String method, String path) {
+		return table.match(method, path).getPattern();
+	}
+
+}
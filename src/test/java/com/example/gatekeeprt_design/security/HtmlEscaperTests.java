@@ -0,0 +1,49 @@
+package com.example.gatekeeprt_design.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class HtmlEscaperTests {
+
+	@Test
+	void cleanInputIsReturnedAsIs() {
+		String clean = "tìm kiếm: admin 192.168.1.10 [x] {y} = z?";
+		assertSame(clean, HtmlEscaper.escape(clean));
+		assertSame("", HtmlEscaper.escape(""));
+	}
+
+	@Test
+	void matchesTheReplaceChain() throws Exception {
+		Random random = new Random(20);
+		String alphabet = "ab <>&\"'=/;é ";
+		for (int i = 0; i < 2000; i++) {
+			StringBuilder input = new StringBuilder();
+			for (int j = random.nextInt(40); j > 0; j--) {
+				input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			String expected = input.toString().replace("&", "&amp;").replace("<", "&lt;")
+					.replace(">", "&gt;").replace("\"", "&quot;").replace("'", "&#39;");
+			assertEquals(expected, HtmlEscaper.escape(input.toString()));
+
+			StringBuilder out = new StringBuilder("prefix:");
+			HtmlEscaper.escape(input, out);
+			assertEquals("prefix:" + expected, out.toString());
+		}
+	}
+
+	@Test
+	void richTextKeepsFormattingAndDropsScripts() {
+		SecurityGateway gateway = new SecurityGateway();
+		String html = gateway.sanitizeRichText("<p onclick=\"x()\">Hi <b>there</b><script>alert(1)</script> "
+				+ "<a href=\"javascript:x()\">l</a></p>");
+		assertTrue(html.startsWith("<p>Hi <b>there</b>"), html);
+		assertFalse(html.contains("script"), html);
+		assertFalse(html.contains("onclick"), html);
+	}
+}
@@ -0,0 +1,94 @@
+package com.example.gatekeeprt_design.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class InputValidatorTests {
+
+	/**
+	 * The patterns the scanners replaced; they must agree on every input.
+	 */
+	private static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
+	private static final Pattern USERNAME = Pattern.compile("^[A-Za-z0-9_]{3,20}$");
+	private static final Pattern PASSWORD = Pattern.compile("^(?=.*[A-Za-z])(?=.*\\d)[A-Za-z\\d@$!%*#?&]{8,}$");
+
+	/**
+	 * Every character class boundary, plus line terminators, non-ASCII
+	 * digits and letters and a surrogate pair.
+	 */
+	private static final String ALPHABET = "aZm09_+.-@$!%*#?&/:`[{ \n\r\u0085é٣😀";
+
+	private final InputValidator validator = new InputValidator();
+
+	@Test
+	void emailAgreesWithPattern() {
+		agree(EMAIL, validator::isValidEmail, 12);
+	}
+
+	@Test
+	void usernameAgreesWithPattern() {
+		agree(USERNAME, validator::isValidUsername, 24);
+	}
+
+	@Test
+	void passwordAgreesWithPattern() {
+		agree(PASSWORD, validator::isValidPassword, 14);
+	}
+
+	@Test
+	void nullIsInvalid() {
+		assertFalse(validator.isValidEmail(null));
+		assertFalse(validator.isValidUsername(null));
+		assertFalse(validator.isValidPassword(null));
+	}
+
+	@Test
+	void batchReportsFailedFieldsInOrder() {
+		List<InputValidator.Registration> records = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			records.add(new InputValidator.Registration(i % 3 == 0 ? "x" : "user" + i,
+					i % 5 == 0 ? "nope" : "user" + i + "@example.com", i % 7 == 0 ? "short1" : "secret" + i + "x"));
+		}
+		List<InputValidator.Failure> failures = validator.validateAll(records);
+
+		List<Integer> expected = IntStream.range(0, 5000).filter(i -> i % 3 == 0 || i % 5 == 0 || i % 7 == 0)
+				.boxed().toList();
+		assertEquals(expected, failures.stream().map(InputValidator.Failure::index).toList());
+		assertEquals(EnumSet.allOf(InputValidator.Field.class), failures.get(0).fields());
+		assertEquals(EnumSet.of(InputValidator.Field.EMAIL), failures.get(2).fields());
+	}
+
+	@Test
+	void nullRecordsAreReportedAsFailures() {
+		List<InputValidator.Registration> records = Arrays.asList(
+				new InputValidator.Registration("user1", "user1@example.com", "secret1x"), null);
+		List<InputValidator.Failure> failures = validator.validateAll(records);
+
+		assertEquals(List.of(new InputValidator.Failure(1, EnumSet.allOf(InputValidator.Field.class))), failures);
+	}
+
+	private static void agree(Pattern pattern, Predicate<String> scanner, int maxLength) {
+		Random random = new Random(21);
+		for (int i = 0; i < 200_000; i++) {
+			StringBuilder input = new StringBuilder();
+			for (int j = random.nextInt(maxLength + 1); j > 0; j--) {
+				// Mostly characters the pattern accepts, so valid inputs are common
+				String from = random.nextInt(8) == 0 ? ALPHABET : "aZ09@_.-";
+				input.append(from.charAt(random.nextInt(from.length())));
+			}
+			String s = input.toString();
+			assertEquals(pattern.matcher(s).matches(), scanner.test(s), () -> "disagree on \"" + s + "\"");
+		}
+	}
+}
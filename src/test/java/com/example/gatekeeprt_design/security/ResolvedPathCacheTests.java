@@ -0,0 +1,96 @@
+package com.example.gatekeeprt_design.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResolvedPathCacheTests {
+
+	@TempDir
+	Path dir;
+
+	private final ResolvedPathCache cache = new ResolvedPathCache(100);
+
+	@AfterEach
+	void close() {
+		cache.close();
+	}
+
+	@Test
+	void cachesDirectChildrenOnly() throws Exception {
+		Path base = Files.createDirectory(dir.resolve("logs")).toRealPath();
+		Files.writeString(base.resolve("app.log"), "x");
+		Files.createDirectory(base.resolve("old"));
+		Files.writeString(base.resolve("old/app.log"), "x");
+
+		assertEquals(base.resolve("app.log").toString(), cache.resolve("app.log", base.toString()));
+		assertEquals(base.resolve("app.log").toString(), cache.resolve("app.log", base.toString()));
+		assertEquals(base.resolve("old/app.log").toString(), cache.resolve("old/app.log", base.toString()));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void rejectsEscapesLikeAnUncachedLookup() throws Exception {
+		Path base = Files.createDirectory(dir.resolve("logs"));
+		Files.writeString(dir.resolve("secret.txt"), "x");
+		Files.createSymbolicLink(base.resolve("link.log"), dir.resolve("secret.txt"));
+
+		assertThrows(SecurityException.class, () -> cache.resolve("../secret.txt", base.toString()));
+		assertThrows(SecurityException.class, () -> cache.resolve("link.log", base.toString()));
+		assertThrows(NoSuchFileException.class, () -> cache.resolve("missing.log", base.toString()));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void replacingAFileDropsTheCachedPath() throws Exception {
+		Path base = Files.createDirectory(dir.resolve("logs"));
+		Path log = Files.writeString(base.resolve("app.log"), "x");
+		Files.writeString(dir.resolve("secret.txt"), "x");
+		cache.resolve("app.log", base.toString());
+		assertEquals(1, cache.size());
+
+		// Swap the validated file for a symlink pointing out of the directory
+		Files.delete(log);
+		Files.createSymbolicLink(log, dir.resolve("secret.txt"));
+		awaitEmpty();
+		assertThrows(SecurityException.class, () -> cache.resolve("app.log", base.toString()));
+	}
+
+	@Test
+	void fileSwappedForASymlinkIsNotServedFromTheCacheBeforeTheWatchEvent() throws Exception {
+		Path base = Files.createDirectory(dir.resolve("logs"));
+		Path log = Files.writeString(base.resolve("app.log"), "x");
+		Files.writeString(dir.resolve("secret.txt"), "x");
+		cache.resolve("app.log", base.toString());
+
+		Files.delete(log);
+		Files.createSymbolicLink(log, dir.resolve("secret.txt"));
+		assertThrows(SecurityException.class, () -> cache.resolve("app.log", base.toString()));
+	}
+
+	@Test
+	void fileReplacedByAnotherFileIsResolvedAgain() throws Exception {
+		Path base = Files.createDirectory(dir.resolve("logs"));
+		Path log = Files.writeString(base.resolve("app.log"), "x");
+		cache.resolve("app.log", base.toString());
+
+		Files.delete(log);
+		assertThrows(NoSuchFileException.class, () -> cache.resolve("app.log", base.toString()));
+		Files.writeString(log, "y");
+		assertEquals(log.toRealPath().toString(), cache.resolve("app.log", base.toString()));
+	}
+
+	private void awaitEmpty() throws InterruptedException {
+		for (int i = 0; i < 500 && cache.size() > 0; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, cache.size());
+	}
+}
@@ -0,0 +1,248 @@
+package com.example.gatekeeprt_design.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.gatekeeprt_design.config.SnapshotProperties;
+import com.example.gatekeeprt_design.filter.BenchmarkFilter;
+import com.example.gatekeeprt_design.filter.BotDetectionFilter;
+import com.example.gatekeeprt_design.filter.RateLimitingFilter;
+import com.example.gatekeeprt_design.ratelimit.GcraRateLimiter;
+import com.example.gatekeeprt_design.ratelimit.RoutePolicyTable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class StateSnapshotTests {
+
+	private static final int LIMIT = 5;
+
+	private static final String NAME = "rateLimitingFilter";
+
+	@TempDir
+	Path dir;
+
+	@AfterEach
+	void resetCounters() {
+		BotDetectionFilter.resetBotDetectionCount();
+		BenchmarkFilter.resetMetrics();
+	}
+
+	@Test
+	void savedClientsAreFoundByKeyWithoutLoading() throws Exception {
+		Path file = dir.resolve("state.snap");
+		int clients = 10_000;
+		try (StateSnapshot.Writer writer = new StateSnapshot.Writer(file, 1L, 2L, new byte[] { 7 }, 2)) {
+			writer.beginLimiter("rateLimitingFilter", new int[] { 11, 22 });
+			for (int i = 0; i < clients; i++) {
+				writer.add("10.0." + (i >> 8) + "." + (i & 0xFF), i % 2 == 0 ? 0b11 : 0b10, new long[] { i, -i });
+			}
+			writer.endLimiter();
+			writer.beginLimiter("gatewayPipeline.rate-limiting", new int[] { 33 });
+			writer.endLimiter();
+		}
+
+		StateSnapshot snapshot = StateSnapshot.open(file);
+		assertEquals(1L, snapshot.getWallMillis());
+		assertEquals(2L, snapshot.getNanoTime());
+		assertArrayEquals(new byte[] { 7 }, snapshot.getMetrics());
+		assertEquals(2, snapshot.getLimiters().size());
+		StateSnapshot.Limiter limiter = snapshot.getLimiters().get(0);
+		assertEquals("rateLimitingFilter", limiter.getName());
+		assertEquals("gatewayPipeline.rate-limiting", snapshot.getLimiters().get(1).getName());
+		assertArrayEquals(new int[] { 11, 22 }, limiter.getFingerprints());
+		assertEquals(clients, limiter.size());
+		for (int i = 0; i < clients; i++) {
+			StateSnapshot.Record record = limiter.find("10.0." + (i >> 8) + "." + (i & 0xFF));
+			assertNotNull(record);
+			assertEquals(i % 2 == 0, record.has(0));
+			assertTrue(record.has(1));
+			assertEquals(-i, record.words()[1]);
+			if (i % 2 == 0) {
+				assertEquals(i, record.words()[0]);
+			}
+		}
+		assertNull(limiter.find("192.168.0.1"));
+		AtomicInteger visited = new AtomicInteger();
+		limiter.forEach(record -> visited.incrementAndGet());
+		assertEquals(clients, visited.get());
+		assertNull(snapshot.getLimiters().get(1).find("10.0.0.0"));
+	}
+
+	@Test
+	void restartKeepsClientsLimitedAndMetrics() throws Exception {
+		SnapshotProperties properties = new SnapshotProperties();
+		properties.setFile(dir.resolve("state.snap").toString());
+
+		RateLimitingFilter before = filter();
+		for (int i = 0; i < LIMIT; i++) {
+			assertEquals(200, request(before, "10.0.0.1"));
+		}
+		assertEquals(429, request(before, "10.0.0.1"));
+		assertEquals(200, request(before, "10.0.0.2"));
+		BotDetectionFilter.resetBotDetectionCount();
+		BotDetectionFilter.addBotDetectionCount(3);
+		new SnapshotService(properties).write(Map.of(NAME, before));
+
+		BotDetectionFilter.resetBotDetectionCount();
+		RateLimitingFilter after = filter();
+		SnapshotService restarted = new SnapshotService(properties);
+		restarted.restore(Map.of(NAME, after));
+		assertEquals(3, BotDetectionFilter.getBotDetectionCount());
+		assertEquals(0, after.getClientStore().size());
+
+		// Rehydrated on first sight: still over the limit, and the other client keeps its usage
+		assertEquals(429, request(after, "10.0.0.1"));
+		for (int i = 1; i < LIMIT; i++) {
+			assertEquals(200, request(after, "10.0.0.2"));
+		}
+		assertEquals(429, request(after, "10.0.0.2"));
+		assertEquals(200, request(after, "10.0.0.3"));
+		assertEquals(2L, restarted.getStats().get("restoredClients"));
+
+		// Clients not seen since the restart are carried into the next snapshot
+		RateLimitingFilter idle = filter();
+		restarted.write(Map.of(NAME, filter()));
+		new SnapshotService(properties).restore(Map.of(NAME, idle));
+		assertEquals(429, request(idle, "10.0.0.1"));
+	}
+
+	@Test
+	void stateOfChangedPoliciesIsNotRestored() throws Exception {
+		SnapshotProperties properties = new SnapshotProperties();
+		properties.setFile(dir.resolve("state.snap").toString());
+		RateLimitingFilter before = filter();
+		for (int i = 0; i <= LIMIT; i++) {
+			request(before, "10.0.0.1");
+		}
+		new SnapshotService(properties).write(Map.of(NAME, before));
+
+		RoutePolicyTable longer = RoutePolicyTable
+				.builder(new GcraRateLimiter(LIMIT, 120, TimeUnit.SECONDS), TimeUnit.SECONDS.toNanos(120)).build();
+		RateLimitingFilter after = new RateLimitingFilter(longer, 1000);
+		new SnapshotService(properties).restore(Map.of(NAME, after));
+		assertEquals(200, request(after, "10.0.0.1"));
+	}
+
+	@Test
+	void filtersGetBackTheirOwnClientsWhateverTheOrder() throws Exception {
+		SnapshotProperties properties = new SnapshotProperties();
+		properties.setFile(dir.resolve("state.snap").toString());
+		RateLimitingFilter standalone = filter();
+		for (int i = 0; i <= LIMIT; i++) {
+			request(standalone, "10.0.0.1");
+		}
+		Map<String, RateLimitingFilter> before = new LinkedHashMap<>();
+		before.put("rateLimitingFilter", standalone);
+		before.put("gatewayPipeline.rate-limiting", filter());
+		new SnapshotService(properties).write(before);
+
+		// The standalone filter is gone and the pipeline's comes first
+		RateLimitingFilter pipeline = filter();
+		RateLimitingFilter added = filter();
+		Map<String, RateLimitingFilter> after = new LinkedHashMap<>();
+		after.put("gatewayPipeline.rate-limiting", pipeline);
+		after.put("otherPipeline.rate-limiting", added);
+		new SnapshotService(properties).restore(after);
+		assertEquals(200, request(pipeline, "10.0.0.1"));
+		assertEquals(200, request(added, "10.0.0.1"));
+	}
+
+	@Test
+	void unreadableSnapshotIsIgnored() throws Exception {
+		Path file = dir.resolve("state.snap");
+		Files.writeString(file, "not a snapshot");
+		SnapshotProperties properties = new SnapshotProperties();
+		properties.setFile(file.toString());
+		RateLimitingFilter filter = filter();
+		long bots = BotDetectionFilter.getBotDetectionCount();
+		new SnapshotService(properties).restore(Map.of(NAME, filter));
+		assertEquals(200, request(filter, "10.0.0.1"));
+		assertEquals(bots, BotDetectionFilter.getBotDetectionCount());
+	}
+
+	@Test
+	void damagedSectionHeadersAreRejectedOnOpen() throws Exception {
+		Path file = dir.resolve("state.snap");
+		int counts = writeOneClient(file);
+		long size = Files.size(file);
+
+		// Table past the end of the file
+		overwrite(file, counts + 8, ByteBuffer.allocate(8).putLong(size).array());
+		assertThrows(IOException.class, () -> StateSnapshot.open(file));
+
+		// Capacity not a power of two
+		writeOneClient(file);
+		overwrite(file, counts + 4, ByteBuffer.allocate(4).putInt(3).array());
+		assertThrows(IOException.class, () -> StateSnapshot.open(file));
+
+		// More records than fit before the table
+		writeOneClient(file);
+		overwrite(file, counts, ByteBuffer.allocate(4).putInt(1000).array());
+		assertThrows(IOException.class, () -> StateSnapshot.open(file));
+	}
+
+	@Test
+	void damagedTableEntriesReadAsNotSaved() throws Exception {
+		Path file = dir.resolve("state.snap");
+		int records = writeOneClient(file) + 16;
+		long size = Files.size(file);
+		// Both buckets taken, one pointing past the records: no empty bucket to stop at
+		ByteBuffer table = ByteBuffer.allocate(16).putLong(records).putLong(Long.MAX_VALUE);
+		overwrite(file, size - 16, table.array());
+
+		StateSnapshot.Limiter limiter = StateSnapshot.open(file).getLimiters().get(0);
+		assertEquals(42L, limiter.find("10.0.0.1").words()[0]);
+		assertNull(limiter.find("10.0.0.2"));
+	}
+
+	/**
+	 * A snapshot with one client; returns the offset of the section's record count.
+	 */
+	private static int writeOneClient(Path file) throws IOException {
+		try (StateSnapshot.Writer writer = new StateSnapshot.Writer(file, 1L, 2L, new byte[0], 1)) {
+			writer.beginLimiter(NAME, new int[] { 11 });
+			writer.add("10.0.0.1", 0b1, new long[] { 42 });
+			writer.endLimiter();
+		}
+		return 32 + 2 + NAME.length() + 4 + 4;
+	}
+
+	private static void overwrite(Path file, long position, byte[] bytes) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(bytes), position);
+		}
+	}
+
+	private static RateLimitingFilter filter() {
+		RoutePolicyTable policies = RoutePolicyTable
+				.builder(new GcraRateLimiter(LIMIT, 60, TimeUnit.SECONDS), TimeUnit.SECONDS.toNanos(60)).build();
+		return new RateLimitingFilter(policies, 1000);
+	}
+
+	private static int request(RateLimitingFilter filter, String ip) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+		request.setRemoteAddr(ip);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response.getStatus();
+	}
+
+}